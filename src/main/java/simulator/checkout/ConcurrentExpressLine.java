@@ -0,0 +1,66 @@
+package simulator.checkout;
+
+import simulator.shopper.Shopper;
+
+/**
+ * A {@link ConcurrentExpressLine} is an {@link ExpressLine} that many threads
+ * may enter at the same time. Only the store serving the line may dequeue
+ * from it.
+ *
+ * @author jcollard, jddevaug
+ */
+public class ConcurrentExpressLine extends ConcurrentNormalLine {
+
+    private final int maxItems;
+
+    /**
+     * Creates an {@link ConcurrentExpressLine} for {@link Shopper}s with
+     * {@value ExpressLine#MAX_ITEMS} items or less.
+     */
+    public ConcurrentExpressLine() {
+        this(ExpressLine.MAX_ITEMS);
+    }
+
+    /**
+     * Creates an {@link ConcurrentExpressLine} for {@link Shopper}s with the specified
+     * number of items or less.
+     *
+     * @param maxItems
+     *            the largest number of items a {@link Shopper} may have
+     * @throws IllegalArgumentException
+     *             if {@code maxItems} is negative
+     */
+    public ConcurrentExpressLine(int maxItems) {
+        this.maxItems = ExpressLine.checkMaxItems(maxItems);
+    }
+
+    /**
+     * Returns the largest number of items a {@link Shopper} in this line may
+     * have.
+     *
+     * @return the largest number of items allowed in this line
+     */
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Express lines with the same maximum number of items admit the same
+     * {@link Shopper}s.
+     *
+     * @return the maximum number of items
+     */
+    @Override
+    public Object getEligibility() {
+        return maxItems;
+    }
+
+    @Override
+    public boolean canEnterLine(Shopper shopper) {
+        if (shopper == null) {
+            throw new NullPointerException();
+        }
+        return shopper.getShoppingList().size() <= maxItems;
+    }
+
+}
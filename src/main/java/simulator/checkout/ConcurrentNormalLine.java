@@ -0,0 +1,42 @@
+package simulator.checkout;
+
+import simulator.shopper.Shopper;
+import structures.MpscQueue;
+import structures.QueueInterface;
+
+/**
+ * A {@link ConcurrentNormalLine} is a {@link NormalLine} that many threads
+ * may enter at the same time. Only the store serving the line may dequeue
+ * from it.
+ *
+ * @author jcollard, jddevaug
+ */
+public class ConcurrentNormalLine extends MpscQueue<Shopper> implements CheckoutLineInterface {
+
+    /**
+     * Every {@link Shopper} may enter a normal line.
+     *
+     * @return the key shared by all normal lines
+     */
+    @Override
+    public Object getEligibility() {
+        return NormalLine.class;
+    }
+
+    @Override
+    public boolean canEnterLine(Shopper shopper) {
+        if (shopper == null) {
+            throw new NullPointerException();
+        }
+        return true;
+    }
+
+    @Override
+    public QueueInterface<Shopper> enqueue(Shopper shopper) {
+        if (!canEnterLine(shopper)) {
+            throw new IllegalArgumentException("The shopper cannot enter this line.");
+        }
+        return super.enqueue(shopper);
+    }
+
+}
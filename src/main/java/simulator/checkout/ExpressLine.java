@@ -0,0 +1,87 @@
+package simulator.checkout;
+
+import simulator.shopper.Shopper;
+
+/**
+ * An {@link ExpressLine} is a {@link CheckoutLineInterface} that only
+ * {@link Shopper}s with at most a maximum number of items may enter. The
+ * maximum is {@value #MAX_ITEMS} unless another one is given.
+ *
+ * @author jcollard, jddevaug
+ */
+public class ExpressLine extends NormalLine {
+
+    /**
+     * The largest number of items a {@link Shopper} in an express line may have.
+     */
+    public static final int MAX_ITEMS = 15;
+
+    private final int maxItems;
+
+    /**
+     * Creates an {@link ExpressLine} for {@link Shopper}s with
+     * {@value #MAX_ITEMS} items or less.
+     */
+    public ExpressLine() {
+        this(MAX_ITEMS);
+    }
+
+    /**
+     * Creates an {@link ExpressLine} for {@link Shopper}s with the specified
+     * number of items or less.
+     *
+     * @param maxItems
+     *            the largest number of items a {@link Shopper} may have
+     * @throws IllegalArgumentException
+     *             if {@code maxItems} is negative
+     */
+    public ExpressLine(int maxItems) {
+        this.maxItems = checkMaxItems(maxItems);
+    }
+
+    /**
+     * Returns the largest number of items a {@link Shopper} in this line may
+     * have.
+     *
+     * @return the largest number of items allowed in this line
+     */
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Returns the specified maximum number of items if it is not negative.
+     *
+     * @param maxItems
+     *            the largest number of items a {@link Shopper} may have
+     * @return {@code maxItems}
+     * @throws IllegalArgumentException
+     *             if {@code maxItems} is negative
+     */
+    static int checkMaxItems(int maxItems) {
+        if (maxItems < 0) {
+            throw new IllegalArgumentException("The maximum number of items must be non-negative.");
+        }
+        return maxItems;
+    }
+
+    /**
+     * Express lines with the same maximum number of items admit the same
+     * {@link Shopper}s.
+     *
+     * @return the maximum number of items
+     */
+    @Override
+    public Object getEligibility() {
+        return maxItems;
+    }
+
+    @Override
+    public boolean canEnterLine(Shopper shopper) {
+        if (shopper == null) {
+            throw new NullPointerException();
+        }
+        return shopper.getShoppingList().size() <= maxItems;
+    }
+
+}
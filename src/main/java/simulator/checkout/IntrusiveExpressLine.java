@@ -0,0 +1,65 @@
+package simulator.checkout;
+
+import simulator.shopper.Shopper;
+
+/**
+ * An {@link IntrusiveExpressLine} is an {@link ExpressLine} that links its
+ * {@link Shopper}s through their {@link LineLinks}.
+ *
+ * @author jcollard, jddevaug
+ */
+public class IntrusiveExpressLine extends IntrusiveNormalLine {
+
+    private final int maxItems;
+
+    /**
+     * Creates an {@link IntrusiveExpressLine} for {@link Shopper}s with
+     * {@value ExpressLine#MAX_ITEMS} items or less.
+     */
+    public IntrusiveExpressLine() {
+        this(ExpressLine.MAX_ITEMS);
+    }
+
+    /**
+     * Creates an {@link IntrusiveExpressLine} for {@link Shopper}s with the specified
+     * number of items or less.
+     *
+     * @param maxItems
+     *            the largest number of items a {@link Shopper} may have
+     * @throws IllegalArgumentException
+     *             if {@code maxItems} is negative
+     */
+    public IntrusiveExpressLine(int maxItems) {
+        this.maxItems = ExpressLine.checkMaxItems(maxItems);
+    }
+
+    /**
+     * Returns the largest number of items a {@link Shopper} in this line may
+     * have.
+     *
+     * @return the largest number of items allowed in this line
+     */
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Express lines with the same maximum number of items admit the same
+     * {@link Shopper}s.
+     *
+     * @return the maximum number of items
+     */
+    @Override
+    public Object getEligibility() {
+        return maxItems;
+    }
+
+    @Override
+    public boolean canEnterLine(Shopper shopper) {
+        if (shopper == null) {
+            throw new NullPointerException();
+        }
+        return shopper.getShoppingList().size() <= maxItems;
+    }
+
+}
@@ -0,0 +1,31 @@
+package simulator.checkout;
+
+import simulator.shopper.Shopper;
+
+/**
+ * An {@link IntrusiveNormalLine} is a {@link NormalLine} that links its
+ * {@link Shopper}s through their {@link LineLinks}.
+ *
+ * @author jcollard, jddevaug
+ */
+public class IntrusiveNormalLine extends IntrusiveQueue {
+
+    /**
+     * Every {@link Shopper} may enter a normal line.
+     *
+     * @return the key shared by all normal lines
+     */
+    @Override
+    public Object getEligibility() {
+        return NormalLine.class;
+    }
+
+    @Override
+    public boolean canEnterLine(Shopper shopper) {
+        if (shopper == null) {
+            throw new NullPointerException();
+        }
+        return true;
+    }
+
+}
@@ -1,23 +1,42 @@
 package simulator.checkout;
 
 import simulator.shopper.Shopper;
-import structures.LinkedQueue;
+import structures.ArrayQueue;
 import structures.QueueInterface;
 
-public class NormalLine extends LinkedQueue<Shopper> implements CheckoutLineInterface {
+/**
+ * A {@link NormalLine} is a {@link CheckoutLineInterface} that every
+ * {@link Shopper} may enter.
+ *
+ * @author jcollard, jddevaug
+ */
+public class NormalLine extends ArrayQueue<Shopper> implements CheckoutLineInterface {
+
+    /**
+     * Every {@link Shopper} may enter a normal line.
+     *
+     * @return the key shared by all normal lines
+     */
+    @Override
+    public Object getEligibility() {
+        return NormalLine.class;
+    }
 
     @Override
     public boolean canEnterLine(Shopper shopper) {
-        // TODO Auto-generated method stub
-        return false;
+        if (shopper == null) {
+            throw new NullPointerException();
+        }
+        return true;
     }
-    
+
     @Override
     public QueueInterface<Shopper> enqueue(Shopper shopper) {
         // check to see if they can enter the line if not then throw illegalArgument exceptions
-        
+        if (!canEnterLine(shopper)) {
+            throw new IllegalArgumentException("The shopper cannot enter this line.");
+        }
         return super.enqueue(shopper);
     }
 
-   
 }
@@ -0,0 +1,190 @@
+package simulator.bigbrother;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import simulator.store.SampleStore;
+import simulator.world.SampleWorld;
+import simulator.world.SimpleStoreWorld;
+
+public class BigBrotherTest {
+
+	@Test (timeout = 100)
+	public void testRunFor() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> new SimpleStoreWorld());
+		BigBrother bigBrother = context.getBigBrother();
+		assertFalse(bigBrother.runFor(100));
+		assertEquals(100, bigBrother.getTime());
+		bigBrother.setEngineMode(EngineMode.DISCRETE_EVENT);
+		assertFalse(bigBrother.runFor(50));
+		assertEquals(150, bigBrother.getTime());
+	}
+
+	@Test (timeout = 100)
+	public void testHorizon() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> new SimpleStoreWorld());
+		BigBrother bigBrother = context.getBigBrother();
+		bigBrother.setHorizon(20);
+		assertTrue(bigBrother.runFor(Integer.MAX_VALUE));
+		assertEquals(20, bigBrother.getTime());
+		assertTrue(bigBrother.tick());
+		assertEquals(20, bigBrother.getTime());
+	}
+
+	@Test (timeout = 100)
+	public void testRunUntil() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> new SimpleStoreWorld());
+		BigBrother bigBrother = context.getBigBrother();
+		assertFalse(bigBrother.runUntil(b -> b.getTime() == 42));
+		assertEquals(42, bigBrother.getTime());
+	}
+
+	@Test (timeout = 1000)
+	public void testRunUntilQuiescent() {
+		SimulationContext context = sample();
+		BigBrother bigBrother = context.getBigBrother();
+		bigBrother.setEngineMode(EngineMode.DISCRETE_EVENT);
+		// Nobody is shopping yet, but shoppers arrive until time 2500
+		assertTrue(bigBrother.isQuiescent());
+		assertFalse(bigBrother.isQuiescent(true));
+		assertFalse(bigBrother.runUntilQuiescent());
+		assertTrue(bigBrother.getTime() > 2500);
+		assertTrue(bigBrother.getTime() < bigBrother.getHorizon());
+		assertEquals(0, bigBrother.getNumberOfActiveShoppers());
+		assertEquals(2500 / 7, bigBrother.getNumberOfFinishedShoppers());
+		assertTrue(bigBrother.isQuiescent(true));
+	}
+
+	@Test (timeout = 1000)
+	public void testRunUntilQuiescentBetweenArrivals() {
+		SimulationContext context = sample();
+		BigBrother bigBrother = context.getBigBrother();
+		bigBrother.runFor(2500);
+		assertFalse(bigBrother.isQuiescent());
+		assertFalse(bigBrother.runUntilQuiescent());
+		assertEquals(2500 / 7, bigBrother.getNumberOfFinishedShoppers());
+		// A world creating shoppers forever runs until the horizon
+		SimulationContext endless = new SimulationContext();
+		endless.run(() -> {
+			new SampleWorld(50);
+			new SampleStore(2, 3);
+		});
+		endless.getBigBrother().setEngineMode(EngineMode.DISCRETE_EVENT);
+		endless.getBigBrother().setHorizon(5000);
+		assertTrue(endless.getBigBrother().runUntilQuiescent());
+		assertEquals(5000, endless.getBigBrother().getTime());
+	}
+
+	@Test (timeout = 100)
+	public void testPeriodicCallback() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> new SimpleStoreWorld());
+		BigBrother bigBrother = context.getBigBrother();
+		bigBrother.setEngineMode(EngineMode.DISCRETE_EVENT);
+		final List<Integer> calls = new ArrayList<Integer>();
+		bigBrother.addPeriodicCallback(300, b -> calls.add(b.getTime()));
+		bigBrother.runFor(900);
+		assertEquals(3, calls.size());
+		assertEquals(300, calls.get(0).intValue());
+		assertEquals(900, calls.get(2).intValue());
+	}
+
+	@Test (timeout = 1000)
+	public void testStoreThreads() {
+		SimulationContext sequential = sample();
+		SimulationContext threaded = sample();
+		sequential.getBigBrother().setStoreThreads(1);
+		threaded.getBigBrother().setStoreThreads(r -> {
+			Thread t = new Thread(r);
+			t.setDaemon(true);
+			return t;
+		});
+		assertEquals(3, threaded.getBigBrother().getStoreThreads());
+		for (SimulationContext context : new SimulationContext[] { sequential, threaded }) {
+			assertFalse(context.getBigBrother().runFor(1500));
+			assertEquals(1500, context.getBigBrother().getTime());
+		}
+		assertEquals(describe(sequential), describe(threaded));
+		// Switching to virtual threads in the middle of a run keeps the totals
+		threaded.getBigBrother().setVirtualStoreThreads();
+		for (SimulationContext context : new SimulationContext[] { sequential, threaded }) {
+			assertFalse(context.getBigBrother().runFor(1500));
+			context.close();
+		}
+		assertEquals(describe(sequential), describe(threaded));
+		assertEquals(sequential.getSocialNetwork().getTotalVotes(),
+				threaded.getSocialNetwork().getTotalVotes());
+		threaded.getBigBrother().setStoreThreads(1);
+		assertEquals(1, threaded.getBigBrother().getStoreThreads());
+	}
+
+	@Test (timeout = 1000)
+	public void testDiscreteEventTotals() {
+		SimulationContext tick = sample();
+		SimulationContext discrete = sample();
+		discrete.getBigBrother().setEngineMode(EngineMode.DISCRETE_EVENT);
+		tick.getBigBrother().runFor(3000);
+		discrete.getBigBrother().runFor(3000);
+		assertEquals(describe(tick), describe(discrete));
+		assertEquals(tick.getSocialNetwork().getTotalVotes(),
+				discrete.getSocialNetwork().getTotalVotes());
+		assertTrue(tick.getSocialNetwork().getTotalVotes() > 0);
+		// The default wake up time lets the stores skip idle time steps
+		SampleStore store = (SampleStore) discrete.getBigBrother().getStore(0);
+		assertTrue(store.getTicks() < 3000);
+	}
+
+	@Test (timeout = 1000)
+	public void testParallelStoreTotals() {
+		SimulationContext sequential = sample();
+		SimulationContext parallel = sample();
+		parallel.getBigBrother().setStoreThreads(4);
+		for (SimulationContext context : new SimulationContext[] { sequential, parallel }) {
+			// Reaching the horizon stops the workers, moving it starts them again
+			context.getBigBrother().setHorizon(1500);
+			assertTrue(context.getBigBrother().runFor(Integer.MAX_VALUE));
+			context.getBigBrother().setHorizon(3000);
+			assertTrue(context.getBigBrother().runFor(Integer.MAX_VALUE));
+			context.close();
+		}
+		assertEquals(describe(sequential), describe(parallel));
+		assertEquals(sequential.getSocialNetwork().getTotalVotes(),
+				parallel.getSocialNetwork().getTotalVotes());
+	}
+
+	/**
+	 * Creates a simulation of three sample stores whose registers are often
+	 * busy while shoppers are waiting.
+	 */
+	static SimulationContext sample() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> {
+			new SampleWorld(7, 2500);
+			for (int i = 0; i < 3; i++) {
+				new SampleStore(2, 3);
+			}
+		});
+		return context;
+	}
+
+	static List<String> describe(SimulationContext context) {
+		List<String> totals = new ArrayList<String>();
+		for (int i = 0; i < context.getBigBrother().getStoreCount(); i++) {
+			totals.add(((SampleStore) context.getBigBrother().getStore(i)).describe());
+		}
+		return totals;
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testNegativeHorizon() {
+		new SimulationContext().getBigBrother().setHorizon(-1);
+	}
+
+}
@@ -0,0 +1,94 @@
+package simulator.bigbrother;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import simulator.grocery.Grocery;
+import simulator.grocery.GroceryInterface;
+import simulator.shopper.Shopper;
+import simulator.world.SimpleWorld;
+
+public class CheckpointTest {
+
+	@Test (timeout = 100)
+	public void testRestoreClock() {
+		SimulationContext original = new SimulationContext();
+		original.run(() -> new SimpleWorld(15));
+		original.getBigBrother().setHorizon(5000);
+		original.getBigBrother().runFor(10);
+
+		SimulationContext restored = new SimulationContext();
+		restored.run(() -> new SimpleWorld(15));
+		Checkpoint.capture(original).restore(restored);
+		assertEquals(10, restored.getBigBrother().getTime());
+		assertEquals(5000, restored.getBigBrother().getHorizon());
+	}
+
+	@Test (timeout = 100)
+	public void testRestoreShoppers() {
+		SimulationContext original = new SimulationContext();
+		original.run(() -> {
+			new SimpleWorld(15);
+			List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+			GroceryInterface milk = new Grocery("Milk");
+			groceries.add(milk);
+			groceries.add(milk);
+			new Shopper(groceries);
+		});
+
+		SimulationContext restored = new SimulationContext();
+		restored.run(() -> new SimpleWorld(15));
+		Checkpoint.capture(original).restore(restored);
+		assertEquals(1, restored.getBigBrother().getNumberOfActiveShoppers());
+		assertEquals(1, restored.nextShopperID());
+	}
+
+	@Test (timeout = 100, expected = IllegalStateException.class)
+	public void testRestoreIntoStartedSimulation() {
+		SimulationContext original = new SimulationContext();
+		original.run(() -> new SimpleWorld(15));
+		original.getBigBrother().runFor(10);
+
+		SimulationContext restored = new SimulationContext();
+		restored.run(() -> new SimpleWorld(15));
+		restored.getBigBrother().runFor(1);
+		Checkpoint.capture(original).restore(restored);
+	}
+
+	@Test (timeout = 1000)
+	public void testWriteAndRead() throws IOException {
+		SimulationContext original = new SimulationContext();
+		original.run(() -> new SimpleWorld(15));
+		original.getBigBrother().runFor(10);
+		Checkpoint checkpoint = Checkpoint.capture(original);
+
+		Path path = Files.createTempFile("checkpoint", ".bin");
+		try {
+			checkpoint.write(path);
+			Checkpoint read = Checkpoint.read(path);
+			assertEquals(checkpoint.size(), read.size());
+			assertEquals(10, read.getTime());
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test (timeout = 1000, expected = IOException.class)
+	public void testReadNotACheckpoint() throws IOException {
+		Path path = Files.createTempFile("checkpoint", ".bin");
+		try {
+			Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+			Checkpoint.read(path);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+}
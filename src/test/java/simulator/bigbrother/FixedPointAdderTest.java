@@ -0,0 +1,54 @@
+package simulator.bigbrother;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FixedPointAdderTest {
+
+	@Test (timeout = 100)
+	public void testOrderIndependent() {
+		double[] amounts = {1e9, 0.1, -1e9, 0.2, 3.3333333};
+		FixedPointAdder forward = new FixedPointAdder();
+		FixedPointAdder backward = new FixedPointAdder();
+		for (int i = 0; i < amounts.length; i++) {
+			forward.add(amounts[i]);
+			backward.add(amounts[amounts.length - 1 - i]);
+		}
+		assertEquals(forward.getUnits(), backward.getUnits());
+		assertEquals(3.633333, forward.sum(), 0.0);
+	}
+
+	@Test (timeout = 1000)
+	public void testConcurrentAdds() throws InterruptedException {
+		final FixedPointAdder adder = new FixedPointAdder();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < 10000; j++) {
+					adder.add(0.15);
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertEquals(6000000000L, adder.getUnits());
+	}
+
+	@Test (timeout = 100)
+	public void testSetUnits() {
+		FixedPointAdder adder = new FixedPointAdder();
+		adder.add(12.5);
+		adder.setUnits(42);
+		assertEquals(42, adder.getUnits());
+		assertEquals(0.000042, adder.sum(), 0.0);
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testNotANumber() {
+		new FixedPointAdder().add(Double.NaN);
+	}
+
+}
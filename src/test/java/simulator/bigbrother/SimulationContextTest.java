@@ -0,0 +1,66 @@
+package simulator.bigbrother;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import simulator.grocery.GroceryInterface;
+import simulator.shopper.MyFacePagePlus;
+import simulator.shopper.Shopper;
+import simulator.world.SimpleStoreWorld;
+import simulator.world.World;
+
+public class SimulationContextTest {
+
+	@Test (timeout = 100)
+	public void testCurrentContext() {
+		final SimulationContext context = new SimulationContext();
+		context.run(() -> {
+			assertSame(context, SimulationContext.current());
+			assertSame(context.getBigBrother(), BigBrother.getBigBrother());
+			assertSame(context.getSocialNetwork(), MyFacePagePlus.getSocialNetwork());
+		});
+		assertNotSame(context, SimulationContext.current());
+	}
+
+	@Test (timeout = 100)
+	public void testOneWorldPerContext() {
+		SimulationContext first = new SimulationContext();
+		SimulationContext second = new SimulationContext();
+		World w1 = first.call(() -> new SimpleStoreWorld());
+		World w2 = second.call(() -> new SimpleStoreWorld());
+		assertSame(w1, first.getWorld());
+		assertSame(w2, second.getWorld());
+	}
+
+	@Test (timeout = 100, expected = BigBrotherIsWatchingYouException.class)
+	public void testMultipleWorlds() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> {
+			new SimpleStoreWorld();
+			new SimpleStoreWorld();
+		});
+	}
+
+	@Test (timeout = 100, expected = IllegalStateException.class)
+	public void testNoWorld() {
+		new SimulationContext().getWorld();
+	}
+
+	@Test (timeout = 100)
+	public void testShopperIDsPerContext() {
+		Shopper a = new SimulationContext().call(() -> new Shopper(new LinkedList<GroceryInterface>()));
+		Shopper b = new SimulationContext().call(() -> new Shopper(new LinkedList<GroceryInterface>()));
+		assertEquals(0, a.getUniqueID());
+		assertEquals(0, b.getUniqueID());
+		assertNotSame(a.getContext(), b.getContext());
+	}
+
+	@Test (timeout = 100, expected = BigBrotherIsWatchingYouException.class)
+	public void testOneSocialNetwork() {
+		new MyFacePagePlus(new SimulationContext());
+	}
+
+}
@@ -0,0 +1,91 @@
+package simulator.bigbrother;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import simulator.store.SampleStore;
+import simulator.world.SampleWorld;
+import simulator.world.SimpleWorld;
+import simulator.world.World;
+
+public class SimulationForkTest {
+
+	@Test (timeout = 1000)
+	public void testBranchesStartAtFork() {
+		SimulationContext source = new SimulationContext();
+		source.call(() -> new SimpleWorld(15));
+		source.getBigBrother().runFor(10);
+
+		SimulationFork<World> fork = new SimulationFork<World>(source, () -> new SimpleWorld(15));
+		assertEquals(10, fork.getTime());
+
+		ForkBranch<World, Integer> now = (c, w) -> c.getBigBrother().getTime();
+		ForkBranch<World, Integer> later = (c, w) -> {
+			c.getBigBrother().runFor(4);
+			return c.getBigBrother().getTime();
+		};
+		List<Integer> times = fork.runBranches(Arrays.asList(now, later, now));
+		assertEquals(Arrays.asList(10, 14, 10), times);
+		assertEquals(10, source.getBigBrother().getTime());
+	}
+
+	@Test (timeout = 1000)
+	public void testBranchIsCurrentContext() {
+		SimulationContext source = new SimulationContext();
+		source.call(() -> new SimpleWorld(15));
+		SimulationFork<World> fork = new SimulationFork<World>(source, () -> new SimpleWorld(15));
+		World world = fork.runBranch((c, w) -> {
+			assertSame(c, SimulationContext.current());
+			return w;
+		});
+		assertNotSame(source.getWorld(), world);
+	}
+
+	@Test (timeout = 1000)
+	public void testBranchesContinueLikeSource() {
+		SimulationContext source = new SimulationContext();
+		source.call(SimulationForkTest::setUp);
+		source.getBigBrother().runFor(1000);
+		SimulationFork<List<SampleStore>> fork =
+				new SimulationFork<List<SampleStore>>(source, SimulationForkTest::setUp);
+
+		ForkBranch<List<SampleStore>, List<String>> unchanged = (c, stores) -> {
+			c.getBigBrother().runFor(2000);
+			return BigBrotherTest.describe(c);
+		};
+		// Every shopper of the first store joins its first line
+		ForkBranch<List<SampleStore>, List<String>> oneLine = (c, stores) -> {
+			stores.get(0).setLineSelectionPolicy((shopper, lines, random) -> lines.get(0));
+			c.getBigBrother().runFor(2000);
+			return BigBrotherTest.describe(c);
+		};
+		List<List<String>> results = fork.runBranches(Arrays.asList(unchanged, oneLine, unchanged));
+
+		source.getBigBrother().runFor(2000);
+		assertEquals(3000, source.getBigBrother().getTime());
+		List<String> expected = BigBrotherTest.describe(source);
+		assertEquals(expected, results.get(0));
+		assertEquals(expected, results.get(2));
+		assertFalse(expected.get(0).equals(results.get(1).get(0)));
+		source.close();
+	}
+
+	/**
+	 * Creates three sample stores in a world creating shoppers until time
+	 * 2500.
+	 */
+	private static List<SampleStore> setUp() {
+		new SampleWorld(7, 2500);
+		List<SampleStore> stores = new ArrayList<SampleStore>();
+		for (int i = 0; i < 3; i++) {
+			stores.add(new SampleStore(2, 3));
+		}
+		return stores;
+	}
+
+}
@@ -0,0 +1,110 @@
+package simulator.bigbrother;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import simulator.checkout.CompactReceipt;
+import simulator.checkout.Transaction;
+import simulator.grocery.GroceryInterface;
+import simulator.grocery.SampleGrocery;
+import simulator.shopper.Shopper;
+import simulator.store.SampleStore;
+import simulator.world.SampleWorld;
+
+public class StoreLedgerTest {
+
+	@Test (timeout = 100)
+	public void testTotals() {
+		StoreLedger ledger = new StoreLedger();
+		SimulationContext context = new SimulationContext();
+		ledger.add(transaction(context, 0.5, 4, SampleGrocery.MILK, SampleGrocery.BEEF));
+		ledger.add(transaction(context, 0.0, 2, SampleGrocery.APPLE));
+		// Nothing is visible before the totals are published
+		assertEquals(0, ledger.getTransactionCount());
+		assertEquals(0.0, ledger.getTotalSales(), 0.0);
+		ledger.publish();
+		assertEquals(2, ledger.getTransactionCount());
+		assertEquals(0, ledger.getIrateCount());
+		assertEquals(6, ledger.getTotalTimeSteps());
+		assertEquals(6, ledger.getTotalWaitingTime());
+		assertEquals(3.0, ledger.getAverageWaitingTime(), 0.0);
+		assertEquals(3.29 + 3.39 + 0.69, ledger.getTotalSubtotal(), 1e-9);
+		assertEquals((3.29 + 3.39) / 2 + 0.69, ledger.getTotalSales(), 1e-9);
+		assertEquals(1.25 + 1.14 + 0.17, ledger.getTotalGroceryCost(), 1e-9);
+	}
+
+	@Test (timeout = 1000)
+	public void testOutsideTick() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> {
+			new SampleWorld(1, 0);
+			SampleStore store = new SampleStore(1, 2);
+			Shopper s = new Shopper(Arrays.asList(SampleGrocery.MILK, SampleGrocery.EGGS));
+			assertTrue(s.goShopping());
+			store.getRegisters().get(0).processShopper(store.getLines().get(0).dequeue());
+			// Nothing waits for the end of a time step
+			StoreLedger ledger = store.getLedger();
+			assertEquals(1, ledger.getTransactionCount());
+			assertEquals(4, ledger.getTotalTimeSteps());
+			assertEquals(3.29 + SampleGrocery.EGGS.getPrice(), ledger.getTotalSales(), 1e-9);
+			assertEquals(1, store.getNumberOfShoppers());
+		});
+	}
+
+	@Test (timeout = 100)
+	public void testEmpty() {
+		StoreLedger ledger = new StoreLedger();
+		ledger.publish();
+		assertEquals(0, ledger.getTransactionCount());
+		assertEquals(0.0, ledger.getAverageWaitingTime(), 0.0);
+	}
+
+	@Test (timeout = 100)
+	public void testCheckpoint() {
+		StoreLedger ledger = new StoreLedger();
+		SimulationContext context = new SimulationContext();
+		ledger.add(transaction(context, 0.25, 3, SampleGrocery.EGGS, SampleGrocery.CHIPS));
+		ledger.add(transaction(context, 0.0, 5, SampleGrocery.COLD_POCKET));
+		ledger.publish();
+		CheckpointWriter out = new CheckpointWriter();
+		ledger.writeCheckpoint(out);
+
+		StoreLedger restored = new StoreLedger();
+		restored.readCheckpoint(new CheckpointReader(out.toByteBuffer(), context.getBigBrother()));
+		assertEquals(ledger.getTransactionCount(), restored.getTransactionCount());
+		assertEquals(ledger.getIrateCount(), restored.getIrateCount());
+		assertEquals(ledger.getTotalTimeSteps(), restored.getTotalTimeSteps());
+		assertEquals(ledger.getTotalWaitingTime(), restored.getTotalWaitingTime());
+		assertEquals(ledger.getTotalSubtotal(), restored.getTotalSubtotal(), 0.0);
+		assertEquals(ledger.getTotalSales(), restored.getTotalSales(), 0.0);
+		assertEquals(ledger.getTotalGroceryCost(), restored.getTotalGroceryCost(), 0.0);
+
+		// The restored ledger keeps counting from the restored totals
+		Transaction t = transaction(context, 0.0, 1, SampleGrocery.MILK);
+		ledger.add(t);
+		restored.add(t);
+		ledger.publish();
+		restored.publish();
+		assertEquals(3, restored.getTransactionCount());
+		assertEquals(ledger.getTotalSales(), restored.getTotalSales(), 0.0);
+	}
+
+	/**
+	 * Creates the transaction of a new shopper who waited exactly as long as
+	 * the transaction took.
+	 */
+	private static Transaction transaction(SimulationContext context, double discount,
+			int timeSteps, GroceryInterface... groceries) {
+		return context.call(() -> {
+			Shopper s = new Shopper(Arrays.asList(groceries));
+			Transaction t = new Transaction(new CompactReceipt(s.getShoppingList(), discount),
+					s, timeSteps, 0);
+			s.completeTransaction(t);
+			return t;
+		});
+	}
+
+}
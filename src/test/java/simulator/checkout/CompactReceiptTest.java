@@ -0,0 +1,49 @@
+package simulator.checkout;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import simulator.bigbrother.SimulationContext;
+import simulator.grocery.Basket;
+import simulator.grocery.GroceryInterface;
+import simulator.grocery.SampleGrocery;
+import simulator.shopper.Shopper;
+
+public class CompactReceiptTest {
+
+	@Test (timeout = 100)
+	public void testTotals() {
+		List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+		groceries.add(SampleGrocery.APPLE);
+		groceries.add(SampleGrocery.MILK);
+		CompactReceipt receipt = new CompactReceipt(groceries, 0.25);
+		double expectedSubTotal = 0.69 + 3.29;
+		assertEquals(expectedSubTotal, receipt.getSubtotal(), 0.00001);
+		assertEquals(expectedSubTotal - expectedSubTotal * 0.25, receipt.getSaleValue(), 0.00001);
+		groceries.clear();
+		assertEquals(2, receipt.getGroceries().size());
+	}
+
+	@Test (timeout = 100)
+	public void testSharesBasket() {
+		final List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+		groceries.add(SampleGrocery.BEEF);
+		Shopper s = new SimulationContext().call(() -> new Shopper(groceries));
+		List<GroceryInterface> list = s.getShoppingList();
+		CompactReceipt receipt = new CompactReceipt(list, 0.0);
+		assertSame(list, receipt.getGroceries());
+		assertSame(((Basket) list).getSummary(), receipt.getBasketSummary());
+	}
+
+	@Test (timeout = 100, expected = UnsupportedOperationException.class)
+	public void testImmutable() {
+		List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+		groceries.add(SampleGrocery.APPLE);
+		new CompactReceipt(groceries, 0.0).getGroceries().add(SampleGrocery.APPLE);
+	}
+
+}
@@ -0,0 +1,92 @@
+package simulator.checkout;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import simulator.grocery.Grocery;
+import simulator.grocery.GroceryInterface;
+import simulator.shopper.Shopper;
+
+public class IntrusiveLineTest {
+
+	private Shopper bob;
+	private Shopper pete;
+	private Shopper mete;
+
+	@Before
+	public void setUp() throws Exception {
+		LinkedList<GroceryInterface> shortList = new LinkedList<GroceryInterface>();
+		shortList.add(new Grocery("Apple"));
+		bob = new Shopper(shortList);
+		pete = new Shopper(shortList);
+
+		LinkedList<GroceryInterface> tooMuchBeef = new LinkedList<GroceryInterface>();
+		for(int i = 0; i < 100; i++)
+			tooMuchBeef.add(new Grocery("Beef"));
+		mete = new Shopper(tooMuchBeef);
+	}
+
+	@Test (timeout = 100)
+	public void testFifo() {
+		IntrusiveQueue line = new IntrusiveNormalLine();
+		line.enqueue(bob).enqueue(pete).enqueue(mete);
+		assertEquals(3, line.size());
+		assertSame(line, bob.getLine());
+		assertEquals(bob, line.dequeue());
+		assertNull(bob.getLine());
+		assertEquals(pete, line.dequeue());
+		assertEquals(mete, line.peek());
+		assertEquals(mete, line.dequeue());
+		assertTrue(line.isEmpty());
+	}
+
+	@Test (timeout = 100)
+	public void testRemove() {
+		IntrusiveQueue line = new IntrusiveNormalLine();
+		line.enqueue(bob).enqueue(pete).enqueue(mete);
+		assertTrue(line.remove(pete));
+		assertFalse(line.remove(pete));
+		assertEquals(2, line.size());
+		assertEquals(bob, line.dequeue());
+		assertEquals(mete, line.dequeue());
+
+		line.enqueue(bob);
+		assertTrue(line.remove(bob));
+		assertTrue(line.isEmpty());
+		line.enqueue(pete);
+		assertEquals(pete, line.peek());
+	}
+
+	@Test (timeout = 100)
+	public void testExpress() {
+		IntrusiveQueue line = new IntrusiveExpressLine();
+		assertTrue(line.canEnterLine(bob));
+		assertFalse(line.canEnterLine(mete));
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testOneLineAtATime() {
+		new IntrusiveNormalLine().enqueue(bob);
+		new IntrusiveNormalLine().enqueue(bob);
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testLongList() {
+		new IntrusiveExpressLine().enqueue(mete);
+	}
+
+	@Test (timeout = 100, expected = IllegalStateException.class)
+	public void testDequeueEmpty() {
+		new IntrusiveNormalLine().dequeue();
+	}
+
+	@Test (timeout = 100, expected = NullPointerException.class)
+	public void testNPE() {
+		new IntrusiveNormalLine().enqueue(null);
+	}
+
+}
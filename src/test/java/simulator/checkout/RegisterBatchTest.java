@@ -0,0 +1,191 @@
+package simulator.checkout;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import simulator.bigbrother.BigBrotherIsWatchingYouException;
+import simulator.bigbrother.SimulationContext;
+import simulator.grocery.GroceryInterface;
+import simulator.grocery.SampleGrocery;
+import simulator.shopper.Shopper;
+import simulator.store.AbstractGroceryStore;
+import simulator.store.SampleStore;
+import simulator.world.SampleWorld;
+
+public class RegisterBatchTest {
+
+	@Test (timeout = 1000)
+	public void testProcess() {
+		assertEquals(serve(false), serve(true));
+	}
+
+	@Test (timeout = 1000)
+	public void testParallelStores() {
+		SimulationContext sequential = sample();
+		SimulationContext parallel = sample();
+		for (int i = 0; i < parallel.getBigBrother().getStoreCount(); i++) {
+			AbstractGroceryStore store = parallel.getBigBrother().getStore(i);
+			store.setParallelRegisters(true);
+			assertTrue(store.isParallelRegisters());
+		}
+		sequential.getBigBrother().runFor(3000);
+		parallel.getBigBrother().runFor(3000);
+		assertEquals(describe(sequential), describe(parallel));
+		assertEquals(sequential.getSocialNetwork().getTotalVotes(),
+				parallel.getSocialNetwork().getTotalVotes());
+		assertTrue(parallel.getSocialNetwork().getTotalVotes() > 0);
+	}
+
+	@Test (timeout = 1000)
+	public void testRegisterBusyWhenAdded() {
+		SimulationContext sequential = sharedRegister(false);
+		SimulationContext parallel = sharedRegister(true);
+		sequential.getBigBrother().runFor(3000);
+		parallel.getBigBrother().runFor(3000);
+		assertEquals(describe(sequential), describe(parallel));
+		assertTrue(parallel.getBigBrother().getStore(0).getNumberOfShoppers() > 0);
+	}
+
+	@Test (timeout = 1000, expected = BigBrotherIsWatchingYouException.class)
+	public void testSameRegister() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> {
+			AbstractRegister register = new SampleRegister(1);
+			register.turnOn();
+			RegisterBatch batch = new RegisterBatch();
+			batch.add(register, shopper(1));
+			batch.add(register, shopper(2));
+		});
+	}
+
+	@Test (timeout = 1000)
+	public void testSameShopper() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> {
+			AbstractRegister a = new SampleRegister(1);
+			AbstractRegister b = new SampleRegister(1);
+			a.turnOn();
+			b.turnOn();
+			Shopper s = shopper(3);
+			RegisterBatch batch = new RegisterBatch();
+			batch.add(a, s);
+			try {
+				batch.add(b, s);
+				fail();
+			} catch (BigBrotherIsWatchingYouException e) {
+				// A shopper can only be checked out once
+			}
+			assertEquals(1, batch.size());
+			batch.clear();
+			assertEquals(0, batch.size());
+			assertFalse(a.isBusy());
+		});
+	}
+
+	/**
+	 * Has six registers serve a shopper each, in a batch or one after another,
+	 * and returns the time steps of every transaction and running cost of
+	 * every register.
+	 */
+	private static List<Double> serve(boolean batched) {
+		SimulationContext context = new SimulationContext();
+		return context.call(() -> {
+			// Arriving shoppers find no line in a store without registers
+			new SampleWorld(1, 0);
+			new SampleStore(0, 1);
+			RegisterBatch batch = new RegisterBatch();
+			List<AbstractRegister> registers = new ArrayList<AbstractRegister>();
+			List<Transaction> transactions = new ArrayList<Transaction>();
+			for (int i = 0; i < 6; i++) {
+				AbstractRegister register = new SampleRegister(i + 1);
+				register.turnOn();
+				registers.add(register);
+				Shopper s = shopper(3 * i + 1);
+				if (batched) {
+					batch.add(register, s);
+				} else {
+					transactions.add(register.processShopper(s));
+				}
+			}
+			if (batched) {
+				assertEquals(6, batch.size());
+				transactions.addAll(batch.process());
+				assertEquals(0, batch.size());
+			}
+			List<Double> results = new ArrayList<Double>();
+			for (int i = 0; i < registers.size(); i++) {
+				AbstractRegister register = registers.get(i);
+				Transaction t = transactions.get(i);
+				assertTrue(register.isBusy());
+				assertSame(t, register.getTransactions().get(0));
+				assertEquals(3 * i + 1, t.getShopper().getShoppingList().size());
+				results.add((double) t.getTimeSteps());
+				results.add(t.getReceipt().getSaleValue());
+				results.add(register.getRunningCost());
+			}
+			return results;
+		});
+	}
+
+	/**
+	 * Creates a shopper with the specified number of sample groceries.
+	 */
+	private static Shopper shopper(int items) {
+		List<GroceryInterface> groceries = new ArrayList<GroceryInterface>();
+		for (int i = 0; i < items; i++) {
+			groceries.add(SampleGrocery.get(i % SampleGrocery.count()));
+		}
+		return new Shopper(groceries);
+	}
+
+	/**
+	 * Creates a simulation of a store whose first register serves both of its
+	 * lines, looking at every line for every free register.
+	 */
+	private static SimulationContext sharedRegister(boolean parallel) {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> {
+			new SampleWorld(2, 2500);
+			SampleStore store = new SampleStore(2, 2) {
+				@Override
+				public void tick() {
+					AbstractRegister register = getRegisters().get(0);
+					for (CheckoutLineInterface line : getLines()) {
+						if (!register.isBusy() && !line.isEmpty()) {
+							processShopper(register, dequeue(line));
+						}
+					}
+				}
+			};
+			store.setParallelRegisters(parallel);
+		});
+		return context;
+	}
+
+	/**
+	 * Creates a simulation of three sample stores with many registers.
+	 */
+	private static SimulationContext sample() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> {
+			new SampleWorld(2, 2500);
+			for (int i = 0; i < 3; i++) {
+				new SampleStore(6, 2);
+			}
+		});
+		return context;
+	}
+
+	private static List<String> describe(SimulationContext context) {
+		List<String> totals = new ArrayList<String>();
+		for (int i = 0; i < context.getBigBrother().getStoreCount(); i++) {
+			totals.add(((SampleStore) context.getBigBrother().getStore(i)).describe());
+		}
+		return totals;
+	}
+
+}
@@ -0,0 +1,24 @@
+package simulator.checkout;
+
+import simulator.shopper.Shopper;
+
+/**
+ * An {@link AbstractRegister} taking {@code speed} time steps per item and
+ * giving half off baskets of more than ten items.
+ */
+public class SampleRegister extends AbstractRegister {
+
+	private final int speed;
+
+	public SampleRegister(int speed) {
+		this.speed = speed;
+	}
+
+	@Override
+	protected Transaction createTransaction(Shopper s) {
+		int items = s.getShoppingList().size();
+		AbstractReceipt receipt = new CompactReceipt(s.getShoppingList(), items > 10 ? 0.5 : 0);
+		return new Transaction(receipt, s, Math.max(1, items * speed));
+	}
+
+}
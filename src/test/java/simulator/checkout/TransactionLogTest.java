@@ -0,0 +1,158 @@
+package simulator.checkout;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.junit.Test;
+
+import simulator.bigbrother.SimulationContext;
+import simulator.grocery.GroceryInterface;
+import simulator.grocery.SampleGrocery;
+import simulator.shopper.Shopper;
+import simulator.store.SampleStore;
+import simulator.world.SampleWorld;
+
+public class TransactionLogTest {
+
+	@Test (timeout = 1000)
+	public void testAppendAndGet() throws Exception {
+		final SimulationContext context = new SimulationContext();
+		final List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+		groceries.add(SampleGrocery.MILK);
+		groceries.add(SampleGrocery.BEEF);
+		Shopper s = context.call(() -> new Shopper(groceries));
+		Transaction t = new Transaction(new CompactReceipt(s.getShoppingList(), 0.25), s, 7, 3);
+		try (TransactionLog log = new TransactionLog(context)) {
+			assertEquals(0, log.append(2, t));
+			assertEquals(1, log.size());
+			Transaction read = log.get(0);
+			assertEquals(s, read.getShopper());
+			assertEquals(7, read.getTimeSteps());
+			assertEquals(3, read.getStartTime());
+			assertEquals(groceries, read.getReceipt().getGroceries());
+			assertEquals(t.getReceipt().getSaleValue(), read.getReceipt().getSaleValue(), 0.0);
+			assertEquals(0.25, read.getReceipt().getDiscount(), 0.0);
+			assertEquals(2, log.getRegisterID(0));
+			assertEquals(TransactionLog.NO_RECORD, log.getPrevious(0));
+			assertEquals(TransactionLog.NO_RECORD, log.getNext(0));
+		}
+	}
+
+	@Test (timeout = 1000)
+	public void testOtherGroceries() throws Exception {
+		final SimulationContext context = new SimulationContext();
+		Shopper s = context.call(() -> new Shopper(new LinkedList<GroceryInterface>()));
+		List<GroceryInterface> bought = new LinkedList<GroceryInterface>();
+		bought.add(SampleGrocery.APPLE);
+		try (TransactionLog log = new TransactionLog(context)) {
+			log.append(0, new Transaction(new CompactReceipt(bought, 0.0), s, 1, 0));
+			assertEquals(bought, log.get(0).getReceipt().getGroceries());
+		}
+	}
+
+	@Test (timeout = 1000)
+	public void testReceiptOutlivesShoppingList() throws Exception {
+		final SimulationContext context = new SimulationContext();
+		final List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+		groceries.add(SampleGrocery.EGGS);
+		groceries.add(SampleGrocery.CHIPS);
+		Shopper s = context.call(() -> new Shopper(groceries));
+		Transaction t = new Transaction(new CompactReceipt(s.getShoppingList(), 0.0), s, 1, 0);
+		try (TransactionLog log = new TransactionLog(context)) {
+			log.append(0, t);
+			// An irate shopper puts their groceries back
+			assertTrue(s.selectLine(Collections.<CheckoutLineInterface>singletonList(new NormalLine())));
+			s.tick(300);
+			assertTrue(s.isIrate());
+			assertTrue(s.getShoppingList().isEmpty());
+			assertEquals(groceries, log.get(0).getReceipt().getGroceries());
+			assertEquals(2, log.get(0).getReceipt().getBasketSummary().getItemCount());
+		}
+	}
+
+	@Test (timeout = 1000)
+	public void testLinkedRecords() throws Exception {
+		final SimulationContext context = new SimulationContext();
+		Shopper s = context.call(() -> new Shopper(new LinkedList<GroceryInterface>()));
+		Transaction t = new Transaction(new CompactReceipt(s.getShoppingList(), 0.0), s, 1, 0);
+		try (TransactionLog log = new TransactionLog(context)) {
+			int first = log.append(0, t);
+			int other = log.append(1, t);
+			int second = log.append(0, t, first);
+			assertEquals(second, log.getNext(first));
+			assertEquals(first, log.getPrevious(second));
+			assertEquals(TransactionLog.NO_RECORD, log.getNext(second));
+			assertEquals(TransactionLog.NO_RECORD, log.getNext(other));
+		}
+	}
+
+	@Test (timeout = 1000)
+	public void testRegisterKeepsTransactions() {
+		SimulationContext context = new SimulationContext();
+		final List<Transaction> processed = new LinkedList<Transaction>();
+		AbstractRegister register = context.call(() -> process(processed));
+		assertEquals(processed, register.getTransactions());
+		assertSame(processed.get(0), register.getTransactions().get(0));
+	}
+
+	@Test (timeout = 1000)
+	public void testRegisterLogsTransactions() {
+		SimulationContext context = new SimulationContext();
+		context.setTransactionLogging(true);
+		final List<Transaction> processed = new LinkedList<Transaction>();
+		AbstractRegister register = context.call(() -> process(processed));
+		List<Transaction> logged = register.getTransactions();
+		assertEquals(processed.size(), logged.size());
+		for (int i = 0; i < logged.size(); i++) {
+			assertEquals(processed.get(i).getShopper(), logged.get(i).getShopper());
+			assertEquals(processed.get(i).getTimeSteps(), logged.get(i).getTimeSteps());
+		}
+		ListIterator<Transaction> it = logged.listIterator(logged.size());
+		for (int i = logged.size() - 1; i >= 0; i--) {
+			assertEquals(processed.get(i).getShopper(), it.previous().getShopper());
+		}
+		assertFalse(it.hasPrevious());
+		assertEquals(context.getTransactionLog().size(), logged.size());
+		context.close();
+	}
+
+	@Test (timeout = 1000, expected = UnsupportedOperationException.class)
+	public void testLoggedTransactionsImmutable() {
+		SimulationContext context = new SimulationContext();
+		context.setTransactionLogging(true);
+		AbstractRegister register = context.call(() -> process(new LinkedList<Transaction>()));
+		register.getTransactions().remove(0);
+	}
+
+	/**
+	 * Processes five shoppers of growing baskets on a new register, adding
+	 * their transactions to the specified list.
+	 */
+	private static AbstractRegister process(List<Transaction> processed) {
+		// The shoppers find no line to enter while time passes
+		new SampleWorld(1, 0);
+		new SampleStore(0, 1);
+		AbstractRegister register = new SampleRegister(1);
+		register.turnOn();
+		List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+		for (int i = 0; i < 5; i++) {
+			groceries.add(SampleGrocery.get(i));
+			processed.add(register.processShopper(new Shopper(groceries)));
+			// Let the register finish before the next shopper
+			SimulationContext.current().getBigBrother().runFor(i + 1);
+		}
+		return register;
+	}
+
+	@Test (timeout = 1000, expected = IllegalArgumentException.class)
+	public void testUnknownRecord() throws Exception {
+		try (TransactionLog log = new TransactionLog(new SimulationContext())) {
+			log.get(0);
+		}
+	}
+
+}
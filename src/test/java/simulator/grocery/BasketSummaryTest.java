@@ -0,0 +1,49 @@
+package simulator.grocery;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BasketSummaryTest {
+
+	@Test (timeout = 100)
+	public void testSummary() {
+		List<GroceryInterface> basket = Arrays.<GroceryInterface>asList(SampleGrocery.MILK,
+				SampleGrocery.EGGS, SampleGrocery.MILK);
+		BasketSummary summary = BasketSummary.of(basket);
+		assertEquals(3, summary.getItemCount());
+		assertEquals(3.29 + 2.29 + 3.29, summary.getSubtotal(), 1e-9);
+		assertEquals(1.25 + 0.25 + 1.25, summary.getCost(), 1e-9);
+		assertEquals(0.1 + 0.8 + 0.1, summary.getHandling(), 1e-9);
+		assertEquals(2, summary.getCount("Milk"));
+		assertEquals(1, summary.getCount("Eggs"));
+		assertEquals(0, summary.getCount("Beef"));
+	}
+
+	@Test (timeout = 100)
+	public void testEmpty() {
+		assertSame(BasketSummary.EMPTY, BasketSummary.of(new LinkedList<GroceryInterface>()));
+		assertTrue(BasketSummary.EMPTY.isEmpty());
+		assertTrue(BasketSummary.EMPTY.getHistogram().isEmpty());
+	}
+
+	@Test (timeout = 100, expected = UnsupportedOperationException.class)
+	public void testImmutable() {
+		BasketSummary.of(Arrays.asList(SampleGrocery.APPLE)).getHistogram().put("Apple", 2);
+	}
+
+	@Test (timeout = 100, expected = NullPointerException.class)
+	public void testNullBasket() {
+		BasketSummary.of(null);
+	}
+
+	@Test (timeout = 100, expected = NullPointerException.class)
+	public void testNullItem() {
+		BasketSummary.of(Arrays.asList(SampleGrocery.MILK, null));
+	}
+
+}
@@ -0,0 +1,131 @@
+package simulator.grocery;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import simulator.bigbrother.SimulationContext;
+import simulator.checkout.AbstractReceipt;
+import simulator.checkout.CompactReceipt;
+import simulator.shopper.Shopper;
+
+public class GroceryCatalogTest {
+
+	@Test (timeout = 100)
+	public void testIntern() {
+		GroceryCatalog catalog = new GroceryCatalog();
+		GroceryInterface milk = SampleGrocery.MILK;
+		GroceryInterface beef = SampleGrocery.BEEF;
+		int m = catalog.intern(milk);
+		int b = catalog.intern(beef);
+		assertEquals(0, m);
+		assertEquals(1, b);
+		assertEquals(m, catalog.intern(milk));
+		assertEquals(2, catalog.size());
+		assertSame(milk, catalog.get(m));
+		assertEquals(milk.getName(), catalog.getName(m));
+		assertEquals(milk.getPrice(), catalog.getPrice(m), 0.0);
+		assertEquals(beef.getCost(), catalog.getCost(b), 0.0);
+		assertEquals(beef.getHandlingRating(), catalog.getHandlingRating(b), 0.0);
+	}
+
+	@Test (timeout = 100)
+	public void testBasket() {
+		GroceryCatalog catalog = new GroceryCatalog();
+		List<GroceryInterface> groceries = Arrays.<GroceryInterface>asList(SampleGrocery.MILK,
+				SampleGrocery.EGGS, SampleGrocery.MILK);
+		Basket basket = catalog.basket(groceries);
+		assertEquals(groceries, basket);
+		assertEquals(basket, catalog.basket(basket.toSkuArray()));
+		BasketSummary summary = basket.getSummary();
+		assertEquals(BasketSummary.of(groceries).getSubtotal(), summary.getSubtotal(), 0.0);
+		assertEquals(2, summary.getCount("Milk"));
+		assertEquals(0, summary.getCount("Beef"));
+		assertEquals(2, summary.getHistogram().get("Milk").intValue());
+		assertEquals(Arrays.asList("Milk", "Eggs"),
+				new ArrayList<String>(summary.getHistogram().keySet()));
+	}
+
+	@Test (timeout = 100)
+	public void testInternByValue() {
+		GroceryCatalog catalog = new GroceryCatalog();
+		int m = catalog.intern(SampleGrocery.MILK);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(m, catalog.intern(new SampleGrocery("Milk", 3.29, 1.25, 0.1)));
+		}
+		assertEquals(1, catalog.size());
+		assertSame(SampleGrocery.MILK, catalog.get(m));
+		// Any differing value makes another item
+		assertEquals(1, catalog.intern(new SampleGrocery("Milk", 3.29, 1.25, 0.2)));
+		assertEquals(2, catalog.intern(new SampleGrocery("Milk", 3.19, 1.25, 0.1)));
+		assertEquals(3, catalog.intern(new SampleGrocery("milk", 3.29, 1.25, 0.1)));
+		assertEquals(4, catalog.size());
+	}
+
+	@Test (timeout = 100)
+	public void testShoppingListHoldsInternedItems() {
+		SimulationContext context = new SimulationContext();
+		GroceryInterface first = new SampleGrocery("Milk", 3.29, 1.25, 0.1);
+		GroceryInterface second = new SampleGrocery("Milk", 3.29, 1.25, 0.1);
+		List<GroceryInterface> groceries = new ArrayList<GroceryInterface>();
+		groceries.add(first);
+		groceries.add(second);
+		Shopper s = context.call(() -> new Shopper(groceries));
+		// Both items are the first object interned with their values
+		List<GroceryInterface> list = s.getShoppingList();
+		assertSame(first, list.get(0));
+		assertSame(first, list.get(1));
+		assertFalse(list.contains(second));
+		assertFalse(list.equals(groceries));
+		AbstractReceipt receipt = new CompactReceipt(list, 0);
+		assertSame(first, receipt.getGroceries().get(1));
+		assertEquals(2 * 3.29, receipt.getSubtotal(), 1e-9);
+	}
+
+	@Test (timeout = 100)
+	public void testInternMany() {
+		GroceryCatalog catalog = new GroceryCatalog();
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, catalog.intern(new SampleGrocery("Item " + i, i, i / 2.0, 0.5)));
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, catalog.intern(new SampleGrocery("Item " + i, i, i / 2.0, 0.5)));
+		}
+		assertEquals(1000, catalog.size());
+	}
+
+	@Test (timeout = 100)
+	public void testNullItem() {
+		GroceryCatalog catalog = new GroceryCatalog();
+		assertEquals(GroceryCatalog.NO_SKU, catalog.intern((GroceryInterface) null));
+		Basket basket = catalog.basket(Arrays.asList(SampleGrocery.MILK, null));
+		assertEquals(2, basket.size());
+		assertNull(basket.get(1));
+	}
+
+	@Test (timeout = 100, expected = UnsupportedOperationException.class)
+	public void testBasketImmutable() {
+		new GroceryCatalog().basket(Arrays.asList(SampleGrocery.MILK)).remove(0);
+	}
+
+	@Test (timeout = 100)
+	public void testShopperBasket() {
+		final GroceryInterface apple = SampleGrocery.APPLE;
+		Shopper s = new SimulationContext().call(() -> {
+			int sku = SimulationContext.current().getGroceryCatalog().intern(apple);
+			return new Shopper(new int[] {sku, sku});
+		});
+		assertEquals(Arrays.asList(apple, apple), s.getShoppingList());
+		assertEquals(2, s.getBasketSummary().getItemCount());
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testUnknownSku() {
+		new SimulationContext().run(() -> new Shopper(new int[] {0}));
+	}
+
+}
@@ -0,0 +1,65 @@
+package simulator.grocery;
+
+/**
+ * The groceries described in {@link config.Groceries}, for tests that must
+ * not depend on how the configuration is implemented.
+ */
+public final class SampleGrocery implements GroceryInterface {
+
+	public static final SampleGrocery MILK = new SampleGrocery("Milk", 3.29, 1.25, 0.1);
+	public static final SampleGrocery EGGS = new SampleGrocery("Eggs", 2.29, 0.25, 0.8);
+	public static final SampleGrocery COLD_POCKET = new SampleGrocery("Cold Pocket", 0.49, 0.02, 0.13);
+	public static final SampleGrocery CHIPS = new SampleGrocery("Chips", 3.19, 0.50, 0.4);
+	public static final SampleGrocery BEEF = new SampleGrocery("Beef", 3.39, 1.14, 0.75);
+	public static final SampleGrocery APPLE = new SampleGrocery("Apple", 0.69, 0.17, 0.25);
+
+	private static final SampleGrocery[] ALL = { APPLE, BEEF, CHIPS, COLD_POCKET, EGGS, MILK };
+
+	private final String name;
+	private final double price;
+	private final double cost;
+	private final double handlingRating;
+
+	public SampleGrocery(String name, double price, double cost, double handlingRating) {
+		this.name = name;
+		this.price = price;
+		this.cost = cost;
+		this.handlingRating = handlingRating;
+	}
+
+	/**
+	 * Returns the sample grocery with the specified index, modulo the number
+	 * of sample groceries.
+	 */
+	public static SampleGrocery get(int index) {
+		return ALL[index % ALL.length];
+	}
+
+	/**
+	 * Returns the number of sample groceries.
+	 */
+	public static int count() {
+		return ALL.length;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public double getPrice() {
+		return price;
+	}
+
+	@Override
+	public double getCost() {
+		return cost;
+	}
+
+	@Override
+	public double getHandlingRating() {
+		return handlingRating;
+	}
+
+}
@@ -0,0 +1,52 @@
+package simulator.random;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RandomStreamsTest {
+
+	@Test (timeout = 100)
+	public void testSameSeedSameStream() {
+		RandomStream a = new RandomStreams(42).forShopper(7);
+		RandomStream b = new RandomStreams(42).forShopper(7);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(a.nextLong(), b.nextLong());
+		}
+	}
+
+	@Test (timeout = 100)
+	public void testIndependentStreams() {
+		RandomStreams streams = new RandomStreams(42);
+		assertFalse(streams.forShopper(0).nextLong() == streams.forShopper(1).nextLong());
+		assertFalse(streams.forShopper(0).nextLong() == streams.forStore(0).nextLong());
+		assertFalse(streams.forWorld().nextLong() == streams.forReplication(1).forWorld().nextLong());
+	}
+
+	@Test (timeout = 100)
+	public void testRestoreState() {
+		RandomStream a = new RandomStreams(1).forWorld();
+		a.nextDouble();
+		RandomStream b = new RandomStream(a.getState());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(a.nextInt(6), b.nextInt(6));
+		}
+	}
+
+	@Test (timeout = 100)
+	public void testBounds() {
+		RandomStream r = new RandomStreams(3).forWorld();
+		for (int i = 0; i < 10000; i++) {
+			int n = r.nextInt(6);
+			assertTrue(n >= 0 && n < 6);
+			double d = r.nextDouble();
+			assertTrue(d >= 0.0 && d < 1.0);
+		}
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testInvalidBound() {
+		new RandomStream(0).nextInt(0);
+	}
+
+}
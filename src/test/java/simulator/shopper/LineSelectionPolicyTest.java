@@ -0,0 +1,88 @@
+package simulator.shopper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import simulator.checkout.CheckoutLineInterface;
+import simulator.checkout.ExpressLine;
+import simulator.checkout.NormalLine;
+import simulator.grocery.Grocery;
+import simulator.grocery.GroceryInterface;
+import simulator.random.RandomStream;
+
+public class LineSelectionPolicyTest {
+
+	private List<CheckoutLineInterface> lines;
+	private RandomStream random;
+
+	@Before
+	public void setUp() {
+		lines = new ArrayList<CheckoutLineInterface>();
+		for (int i = 0; i < 10; i++) {
+			lines.add(new ExpressLine());
+		}
+		lines.add(new NormalLine());
+		random = new RandomStream(42);
+	}
+
+	private static Shopper shopper(int items) {
+		List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+		for (int i = 0; i < items; i++) {
+			groceries.add(new Grocery("Beef"));
+		}
+		return new Shopper(groceries);
+	}
+
+	@Test (timeout = 100)
+	public void testSampledOnlyEligible() {
+		LineSelectionPolicy policy = new SampledLinePolicy(2);
+		for (int i = 0; i < 50; i++) {
+			assertSame(lines.get(10), policy.selectLine(shopper(100), lines, random));
+		}
+	}
+
+	@Test (timeout = 100)
+	public void testSampledAllLinesIsExact() {
+		lines.get(3).enqueue(shopper(1));
+		LineSelectionPolicy policy = new SampledLinePolicy(1000);
+		Shopper s = shopper(1);
+		assertSame(ShortestLinePolicy.INSTANCE.selectLine(s, lines, random),
+				policy.selectLine(s, lines, random));
+	}
+
+	@Test (timeout = 100)
+	public void testNoDriftForShortest() {
+		LineSelectionDrift drift = new LineSelectionDrift(ShortestLinePolicy.INSTANCE);
+		for (int i = 0; i < 30; i++) {
+			Shopper s = shopper(i % 20);
+			drift.selectLine(s, lines, random).enqueue(s);
+		}
+		assertEquals(30, drift.getDecisions());
+		assertEquals(1.0, drift.getOptimalFraction(), 0.0);
+		assertEquals(0.0, drift.getMeanExcessLength(), 0.0);
+		assertEquals(0.0, drift.getLengthDistributionDistance(), 0.0);
+	}
+
+	@Test (timeout = 100)
+	public void testDrift() {
+		lines.get(0).enqueue(shopper(1)).enqueue(shopper(1));
+		LineSelectionPolicy first = (s, l, r) -> l.get(0);
+		LineSelectionDrift drift = new LineSelectionDrift(first);
+		drift.selectLine(shopper(1), lines, random);
+		assertEquals(0.0, drift.getOptimalFraction(), 0.0);
+		assertEquals(2, drift.getMaxExcessLength());
+		assertEquals(1.0, drift.getLengthDistributionDistance(), 0.0);
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testNoChoices() {
+		new SampledLinePolicy(0);
+	}
+
+}
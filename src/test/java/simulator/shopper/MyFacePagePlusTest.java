@@ -0,0 +1,100 @@
+package simulator.shopper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import simulator.bigbrother.Checkpoint;
+import simulator.bigbrother.SimulationContext;
+import simulator.random.RandomStream;
+import simulator.store.AbstractGroceryStore;
+import simulator.store.SampleStore;
+import simulator.world.SampleWorld;
+
+public class MyFacePagePlusTest {
+
+	@Test (timeout = 100)
+	public void testSameDraws() {
+		SimulationContext context = new SimulationContext();
+		List<AbstractGroceryStore> stores = stores(context, 20);
+		MyFacePagePlus network = context.getSocialNetwork();
+		for (int i = 0; i < stores.size(); i += 3) {
+			for (int j = 0; j < i % 5 + 1; j++) {
+				network.downvote(stores.get(i));
+			}
+		}
+		RandomStream random = new RandomStream(1984L);
+		RandomStream reference = new RandomStream(1984L);
+		for (int i = 0; i < 1000; i++) {
+			assertSame(select(network, stores, reference), network.selectStore(stores, random));
+			assertEquals(reference.getState(), random.getState());
+		}
+	}
+
+	@Test (timeout = 1000)
+	public void testUnratedStore() {
+		SimulationContext context = new SimulationContext();
+		List<AbstractGroceryStore> stores = stores(context, 100);
+		MyFacePagePlus network = context.getSocialNetwork();
+		int size = Checkpoint.capture(context).size();
+		for (AbstractGroceryStore store : stores) {
+			assertEquals(1.0, network.getRating(store), 0.0);
+		}
+		// Reading a rating does not store it
+		assertEquals(size, Checkpoint.capture(context).size());
+		assertEquals(0, network.getTotalVotes());
+
+		network.downvote(stores.get(99));
+		assertEquals(0.75, network.getRating(stores.get(99)), 0.0);
+		assertEquals(1.0, network.getRating(stores.get(98)), 0.0);
+		assertTrue(Checkpoint.capture(context).size() > size);
+	}
+
+	@Test (timeout = 1000)
+	public void testStoresAtFloor() {
+		SimulationContext context = new SimulationContext();
+		List<AbstractGroceryStore> stores = stores(context, 2000);
+		MyFacePagePlus network = context.getSocialNetwork();
+		for (AbstractGroceryStore store : stores) {
+			for (int i = 0; i < 10; i++) {
+				network.downvote(store);
+			}
+			assertEquals(0.10, network.getRating(store), 0.0);
+		}
+		RandomStream random = new RandomStream(7L);
+		for (int i = 0; i < 10000; i++) {
+			assertNotNull(network.selectStore(stores, random));
+			assertNotNull(network.selectStore(random));
+		}
+	}
+
+	/**
+	 * Registers the specified number of stores in a new world.
+	 */
+	private static List<AbstractGroceryStore> stores(SimulationContext context, int n) {
+		return context.call(() -> {
+			new SampleWorld(1, 0);
+			List<AbstractGroceryStore> stores = new ArrayList<AbstractGroceryStore>();
+			for (int i = 0; i < n; i++) {
+				stores.add(new SampleStore(0, 1));
+			}
+			return stores;
+		});
+	}
+
+	/**
+	 * The recursive rejection sampler that selectStore replaced.
+	 */
+	private static AbstractGroceryStore select(MyFacePagePlus network,
+			List<AbstractGroceryStore> stores, RandomStream random) {
+		AbstractGroceryStore store = stores.get(random.nextInt(stores.size()));
+		if (random.nextDouble() <= network.getRating(store)) {
+			return store;
+		}
+		return select(network, stores, random);
+	}
+
+}
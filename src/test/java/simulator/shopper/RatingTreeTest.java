@@ -0,0 +1,58 @@
+package simulator.shopper;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RatingTreeTest {
+
+	@Test (timeout = 100)
+	public void testInitialRating() {
+		RatingTree tree = new RatingTree(1.0);
+		assertEquals(1.0, tree.get(7), 0.0);
+		assertEquals(0, tree.size());
+		tree.set(2, 0.5);
+		assertEquals(3, tree.size());
+		assertEquals(1.0, tree.get(0), 0.0);
+		assertEquals(0.5, tree.get(2), 0.0);
+		assertEquals(2.5, tree.total(), 0.0);
+	}
+
+	@Test (timeout = 100)
+	public void testFind() {
+		RatingTree tree = new RatingTree(1.0);
+		tree.ensureSize(5);
+		tree.set(1, 0.25);
+		tree.set(3, 0.5);
+		// Ratings 1.0, 0.25, 1.0, 0.5, 1.0
+		assertEquals(0, tree.find(0.0));
+		assertEquals(0, tree.find(0.99));
+		assertEquals(1, tree.find(1.0));
+		assertEquals(2, tree.find(1.25));
+		assertEquals(3, tree.find(2.25));
+		assertEquals(4, tree.find(2.75));
+		assertEquals(4, tree.find(tree.total()));
+	}
+
+	@Test (timeout = 100)
+	public void testReset() {
+		RatingTree tree = new RatingTree(1.0);
+		for (int i = 0; i < 100; i++) {
+			tree.set(i % 9, 0.1 + i % 7 / 10.0);
+		}
+		double[] ratings = new double[tree.size()];
+		for (int i = 0; i < ratings.length; i++) {
+			ratings[i] = tree.get(i);
+		}
+		RatingTree restored = new RatingTree(1.0);
+		restored.set(20, 0.3);
+		restored.reset(ratings);
+		assertEquals(ratings.length, restored.size());
+		assertEquals(tree.total(), restored.total(), 0.0);
+		for (int i = 0; i < 100; i++) {
+			double point = tree.total() * i / 100;
+			assertEquals(tree.find(point), restored.find(point));
+		}
+	}
+
+}
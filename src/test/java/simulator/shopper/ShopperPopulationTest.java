@@ -0,0 +1,72 @@
+package simulator.shopper;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import simulator.bigbrother.SimulationContext;
+import simulator.grocery.GroceryInterface;
+import simulator.grocery.SampleGrocery;
+
+public class ShopperPopulationTest {
+
+	@Test (timeout = 100)
+	public void testHandles() {
+		SimulationContext context = new SimulationContext();
+		final List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+		groceries.add(SampleGrocery.MILK);
+		Shopper a = context.call(() -> new Shopper(groceries));
+		Shopper b = context.call(() -> new Shopper(new LinkedList<GroceryInterface>()));
+		ShopperPopulation population = context.getShopperPopulation();
+		assertEquals(2, population.size());
+		assertEquals(a.getShoppingList(), population.getBasket(a.getUniqueID()));
+		assertEquals(a, population.getShopper(a.getUniqueID()));
+		assertEquals(a.hashCode(), population.getShopper(a.getUniqueID()).hashCode());
+		assertFalse(a.equals(b));
+		assertEquals(1, population.getBasket(a.getUniqueID()).size());
+		assertEquals(0, population.getBasket(b.getUniqueID()).size());
+		assertEquals(ShopperPopulation.NO_STORE, population.getStoreID(b.getUniqueID()));
+		assertFalse(a.isInStore());
+		assertEquals(0, population.countInLine());
+		assertEquals(0, population.getWaitingTime(a.getUniqueID()));
+		assertEquals(3.29, a.getBasketSummary().getSubtotal(), 0.0);
+	}
+
+	@Test (timeout = 1000)
+	public void testGrowth() {
+		SimulationContext context = new SimulationContext();
+		context.run(() -> {
+			for (int i = 0; i < 200; i++) {
+				int[] basket = new int[i % 5];
+				for (int j = 0; j < basket.length; j++) {
+					basket[j] = context.getGroceryCatalog().intern(SampleGrocery.get(j));
+				}
+				new Shopper(basket);
+			}
+		});
+		ShopperPopulation population = context.getShopperPopulation();
+		assertEquals(200, population.size());
+		for (int i = 0; i < 200; i++) {
+			Shopper s = population.getShopper(i);
+			assertEquals(i, s.getUniqueID());
+			assertEquals(i % 5, s.getShoppingList().size());
+			assertEquals(i % 5, s.getBasketSummary().getItemCount());
+			if (i % 5 > 0) {
+				assertEquals(SampleGrocery.get(i % 5 - 1), s.getShoppingList().get(i % 5 - 1));
+			}
+			assertNull(s.getLine());
+			assertFalse(s.isInLine());
+		}
+		assertEquals(0, population.countInLine());
+		assertEquals(200, context.getBigBrother().getNumberOfActiveShoppers());
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testUnknownShopper() {
+		new SimulationContext().getShopperPopulation().getWaitingTime(0);
+	}
+
+}
@@ -0,0 +1,165 @@
+package simulator.store;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import simulator.checkout.CheckoutLineInterface;
+import simulator.checkout.ExpressLine;
+import simulator.checkout.NormalLine;
+import simulator.grocery.Grocery;
+import simulator.grocery.GroceryInterface;
+import simulator.shopper.Shopper;
+
+public class LineIndexTest {
+
+	private List<CheckoutLineInterface> lines;
+	private LineIndex index;
+
+	@Before
+	public void setUp() {
+		lines = new ArrayList<CheckoutLineInterface>();
+		lines.add(new ExpressLine());
+		lines.add(new NormalLine());
+		lines.add(new NormalLine());
+		lines.add(new ExpressLine());
+		index = new LineIndex(lines);
+	}
+
+	private static Shopper shopper(int items) {
+		List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+		for (int i = 0; i < items; i++) {
+			groceries.add(new Grocery("Beef"));
+		}
+		return new Shopper(groceries);
+	}
+
+	private void join(CheckoutLineInterface line, Shopper s) {
+		line.enqueue(s);
+		index.update(line);
+	}
+
+	@Test (timeout = 100)
+	public void testFirstOfShortest() {
+		assertSame(lines.get(0), index.findShortest(shopper(1)));
+		assertSame(lines.get(1), index.findShortest(shopper(100)));
+	}
+
+	@Test (timeout = 100)
+	public void testShortestEligible() {
+		join(lines.get(0), shopper(1));
+		join(lines.get(1), shopper(1));
+		join(lines.get(3), shopper(1));
+		assertSame(lines.get(2), index.findShortest(shopper(1)));
+		join(lines.get(2), shopper(1));
+		join(lines.get(2), shopper(1));
+		assertSame(lines.get(0), index.findShortest(shopper(1)));
+		assertSame(lines.get(1), index.findShortest(shopper(100)));
+	}
+
+	@Test (timeout = 100)
+	public void testDequeue() {
+		join(lines.get(0), shopper(1));
+		join(lines.get(1), shopper(1));
+		join(lines.get(2), shopper(1));
+		join(lines.get(3), shopper(1));
+		lines.get(3).dequeue();
+		index.update(lines.get(3));
+		assertSame(lines.get(3), index.findShortest(shopper(1)));
+	}
+
+	@Test (timeout = 100)
+	public void testMatchesScan() {
+		for (int i = 0; i < 200; i++) {
+			Shopper s = shopper(i * 7 % 31);
+			CheckoutLineInterface expected = null;
+			for (CheckoutLineInterface line : lines) {
+				if (line.canEnterLine(s) && (expected == null || line.size() < expected.size())) {
+					expected = line;
+				}
+			}
+			assertSame(expected, index.findShortest(s));
+			join(expected, s);
+			if (i % 3 == 0) {
+				CheckoutLineInterface longest = lines.get(i % lines.size());
+				if (!longest.isEmpty()) {
+					longest.dequeue();
+					index.update(longest);
+				}
+			}
+		}
+	}
+
+	@Test (timeout = 100)
+	public void testExpressThresholds() {
+		List<CheckoutLineInterface> lines = new ArrayList<CheckoutLineInterface>();
+		lines.add(new ExpressLine(5));
+		lines.add(new ExpressLine(10));
+		lines.add(new NormalLine());
+		LineIndex index = new LineIndex(lines);
+		assertSame(lines.get(0), index.findShortest(shopper(5)));
+		assertSame(lines.get(1), index.findShortest(shopper(8)));
+		lines.get(1).enqueue(shopper(1));
+		index.update(lines.get(1));
+		assertSame(lines.get(2), index.findShortest(shopper(8)));
+		assertSame(lines.get(0), index.findShortest(shopper(2)));
+	}
+
+	@Test (timeout = 100)
+	public void testOneCheckPerClass() {
+		final int[] checks = new int[1];
+		List<CheckoutLineInterface> lines = new ArrayList<CheckoutLineInterface>();
+		for (int i = 0; i < 64; i++) {
+			lines.add(new ExpressLine() {
+				@Override
+				public boolean canEnterLine(Shopper shopper) {
+					checks[0]++;
+					return super.canEnterLine(shopper);
+				}
+			});
+		}
+		lines.add(new NormalLine());
+		LineIndex index = new LineIndex(lines);
+		assertSame(lines.get(64), index.findShortest(shopper(100)));
+		assertEquals(1, checks[0]);
+	}
+
+	@Test (timeout = 100)
+	public void testUnknownEligibility() {
+		List<CheckoutLineInterface> lines = new ArrayList<CheckoutLineInterface>();
+		for (int i = 0; i < 8; i++) {
+			final int maxItems = i;
+			// Lines of one class admitting different shoppers
+			lines.add(new NormalLine() {
+				@Override
+				public boolean canEnterLine(Shopper shopper) {
+					return shopper.getShoppingList().size() <= maxItems;
+				}
+
+				@Override
+				public Object getEligibility() {
+					return null;
+				}
+			});
+		}
+		LineIndex index = new LineIndex(lines);
+		for (int i = 0; i < 8; i++) {
+			CheckoutLineInterface line = lines.get(i);
+			line.enqueue(shopper(0));
+			index.update(line);
+		}
+		assertSame(lines.get(5), index.findShortest(shopper(5)));
+		assertNull(index.findShortest(shopper(8)));
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testUnknownLine() {
+		index.update(new NormalLine());
+	}
+
+}
@@ -0,0 +1,137 @@
+package simulator.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import simulator.checkout.AbstractRegister;
+import simulator.checkout.CheckoutLineInterface;
+import simulator.checkout.NormalLine;
+import simulator.checkout.SampleRegister;
+import simulator.checkout.Transaction;
+
+/**
+ * An {@link AbstractGroceryStore} with one line per {@link SampleRegister},
+ * a {@link NormalLine} unless other lines are given, which serves the first shopper of its line whenever
+ * it is free. The totals are read from the ledger.
+ */
+public class SampleStore extends AbstractGroceryStore {
+
+	private final List<AbstractRegister> registers = new ArrayList<AbstractRegister>();
+	private final List<CheckoutLineInterface> lines = new ArrayList<CheckoutLineInterface>();
+	private int ticks;
+
+	public SampleStore(int registerCount, int speed) {
+		this(normalLines(registerCount), speed);
+	}
+
+	/**
+	 * Creates a store with a register for each of the specified lines.
+	 */
+	public SampleStore(List<CheckoutLineInterface> lines, int speed) {
+		for (CheckoutLineInterface line : lines) {
+			AbstractRegister register = new SampleRegister(speed);
+			register.turnOn();
+			registers.add(register);
+			this.lines.add(line);
+		}
+	}
+
+	private static List<CheckoutLineInterface> normalLines(int count) {
+		List<CheckoutLineInterface> lines = new ArrayList<CheckoutLineInterface>();
+		for (int i = 0; i < count; i++) {
+			lines.add(new NormalLine());
+		}
+		return lines;
+	}
+
+	@Override
+	public void tick() {
+		ticks++;
+		for (int i = 0; i < registers.size(); i++) {
+			AbstractRegister register = registers.get(i);
+			CheckoutLineInterface line = lines.get(i);
+			if (!register.isBusy() && !line.isEmpty()) {
+				processShopper(register, dequeue(line));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of times this store was ticked.
+	 */
+	public int getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Returns every total of this store, its running costs and its rating,
+	 * for comparing simulations.
+	 */
+	public String describe() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(getLedger().getTransactionCount()).append(' ')
+				.append(getLedger().getIrateCount()).append(' ')
+				.append(getLedger().getTotalTimeSteps()).append(' ')
+				.append(getLedger().getTotalWaitingTime()).append(' ')
+				.append(getLedger().getTotalSales()).append(' ')
+				.append(getLedger().getTotalGroceryCost()).append(' ')
+				.append(getContext().getSocialNetwork().getRating(this));
+		for (AbstractRegister register : registers) {
+			sb.append(' ').append(register.getRunningCost());
+		}
+		return sb.toString();
+	}
+
+	public List<AbstractRegister> getRegisters() {
+		return registers;
+	}
+
+	@Override
+	public List<CheckoutLineInterface> getLines() {
+		return lines;
+	}
+
+	@Override
+	public List<Transaction> getTransactions() {
+		List<Transaction> transactions = new ArrayList<Transaction>();
+		for (AbstractRegister register : registers) {
+			transactions.addAll(register.getTransactions());
+		}
+		return transactions;
+	}
+
+	@Override
+	public double getAverageWaitingTime() {
+		return getLedger().getAverageWaitingTime();
+	}
+
+	@Override
+	public double getTotalSales() {
+		return getLedger().getTotalSales();
+	}
+
+	@Override
+	public double getTotalCost() {
+		double cost = getLedger().getTotalGroceryCost();
+		for (AbstractRegister register : registers) {
+			cost += register.getRunningCost();
+		}
+		return cost;
+	}
+
+	@Override
+	public double getTotalProfit() {
+		return getTotalSales() - getTotalCost();
+	}
+
+	@Override
+	public int getNumberOfShoppers() {
+		return (int) getLedger().getTransactionCount();
+	}
+
+	@Override
+	public int getNumberOfIrateShoppers() {
+		return (int) getLedger().getIrateCount();
+	}
+
+}
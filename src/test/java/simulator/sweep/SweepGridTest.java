@@ -0,0 +1,43 @@
+package simulator.sweep;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class SweepGridTest {
+
+	@Test (timeout = 100)
+	public void testCartesianProduct() {
+		SweepGrid grid = new SweepGrid(new int[] {15, 1000}, new int[] {1, 2, 3},
+				new int[] {15}, new int[] {2, 4});
+		assertEquals(12, grid.size());
+
+		List<SweepParameters> cells = grid.getCells();
+		assertEquals(15, cells.get(0).getShopperRate());
+		assertEquals(1, cells.get(0).getNumberOfLines());
+		assertEquals(2, cells.get(0).getNumberOfRegisters());
+		assertEquals(4, cells.get(1).getNumberOfRegisters());
+		assertEquals(2, cells.get(2).getNumberOfLines());
+		assertEquals(1000, cells.get(11).getShopperRate());
+		assertEquals(3, cells.get(11).getNumberOfLines());
+		assertEquals(4, cells.get(11).getNumberOfRegisters());
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testEmptyParameter() {
+		new SweepGrid(new int[] {15}, new int[0], new int[] {15}, new int[] {2});
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testInvalidRate() {
+		new SweepGrid(new int[] {0}, new int[] {1}, new int[] {15}, new int[] {2});
+	}
+
+	@Test (timeout = 100, expected = NullPointerException.class)
+	public void testNull() {
+		new SweepGrid(null, new int[] {1}, new int[] {15}, new int[] {2});
+	}
+
+}
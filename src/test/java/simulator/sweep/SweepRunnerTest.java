@@ -0,0 +1,62 @@
+package simulator.sweep;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import simulator.bigbrother.EngineMode;
+import simulator.checkout.CheckoutLineInterface;
+import simulator.checkout.ExpressLine;
+import simulator.checkout.NormalLine;
+import simulator.random.RandomStreams;
+import simulator.store.SampleStore;
+import simulator.world.SampleWorld;
+
+public class SweepRunnerTest {
+
+	@Test (timeout = 1000)
+	public void testExpressThreshold() {
+		// One express line and one normal line
+		StoreFactory factory = new StoreFactory() {
+			@Override
+			public SampleStore createStore(SweepParameters parameters) {
+				List<CheckoutLineInterface> lines = new ArrayList<CheckoutLineInterface>();
+				lines.add(createExpressLine(parameters));
+				lines.add(new NormalLine());
+				return new SampleStore(lines, 2);
+			}
+		};
+		SweepRunner runner = new SweepRunner(factory, EngineMode.DISCRETE_EVENT,
+				ForkJoinPool.commonPool(), new RandomStreams(RandomStreams.DEFAULT_SEED), 1,
+				SampleWorld::new);
+		SweepTable table = runner.run(new SweepGrid(new int[] {12}, new int[] {2},
+				new int[] {0, 6, 12}, new int[] {2}));
+		List<SweepResult> results = table.getResults();
+		assertEquals(3, results.size());
+		for (SweepResult r : results) {
+			assertTrue(r.getNumberOfShoppers() > 3000);
+		}
+		// Nobody may use an express line for zero items, so the normal line is busier
+		assertTrue(results.get(0).getAverageWaitingTime() > results.get(1).getAverageWaitingTime());
+		assertTrue(results.get(0).getNumberOfIrateShoppers() > results.get(1).getNumberOfIrateShoppers());
+		assertTrue(results.get(0).getTotalCost() != results.get(2).getTotalCost());
+		assertTrue(results.get(1).getAverageWaitingTime() != results.get(2).getAverageWaitingTime());
+	}
+
+	@Test (timeout = 100)
+	public void testDefaultExpressLine() {
+		ExpressLine line = (ExpressLine) new StoreFactory() {
+			@Override
+			public SampleStore createStore(SweepParameters parameters) {
+				throw new UnsupportedOperationException();
+			}
+		}.createExpressLine(new SweepParameters(15, 2, 7, 2));
+		assertEquals(7, line.getMaxItems());
+		assertEquals(ExpressLine.MAX_ITEMS, new ExpressLine().getMaxItems());
+	}
+
+}
@@ -0,0 +1,63 @@
+package simulator.world;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import simulator.bigbrother.CheckpointReader;
+import simulator.bigbrother.CheckpointWriter;
+import simulator.bigbrother.Checkpointable;
+import simulator.grocery.GroceryInterface;
+import simulator.grocery.SampleGrocery;
+import simulator.random.RandomStream;
+import simulator.shopper.Shopper;
+
+/**
+ * A {@link World} creating a {@link Shopper} with a random basket of
+ * {@link SampleGrocery}s at every multiple of its rate, up to a last arrival
+ * time.
+ */
+public class SampleWorld extends World implements Checkpointable {
+
+	private final RandomStream random = getContext().getRandomStreams().forWorld();
+	private final int shopperRate;
+	private final int lastArrival;
+
+	public SampleWorld(int shopperRate) {
+		this(shopperRate, Integer.MAX_VALUE);
+	}
+
+	public SampleWorld(int shopperRate, int lastArrival) {
+		this.shopperRate = shopperRate;
+		this.lastArrival = lastArrival;
+	}
+
+	@Override
+	public void tick() {
+		int time = getContext().getBigBrother().getTime();
+		if (time % shopperRate == 0 && time <= lastArrival) {
+			List<GroceryInterface> groceries = new ArrayList<GroceryInterface>();
+			int size = 1 + random.nextInt(12);
+			for (int i = 0; i < size; i++) {
+				groceries.add(SampleGrocery.get(random.nextInt(SampleGrocery.count())));
+			}
+			new Shopper(groceries);
+		}
+	}
+
+	@Override
+	public int nextArrivalTime(int time) {
+		long next = ((long) time / shopperRate + 1) * shopperRate;
+		return next > lastArrival ? Integer.MAX_VALUE : (int) next;
+	}
+
+	@Override
+	public void writeCheckpoint(CheckpointWriter out) {
+		out.putLong(random.getState());
+	}
+
+	@Override
+	public void readCheckpoint(CheckpointReader in) {
+		random.setState(in.getLong());
+	}
+
+}
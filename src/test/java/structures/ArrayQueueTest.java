@@ -0,0 +1,64 @@
+package structures;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ArrayQueueTest {
+
+	@Test (timeout = 100)
+	public void testWrapAround() {
+		ArrayQueue<Integer> queue = new ArrayQueue<Integer>(4, false);
+		for (int i = 0; i < 100; i++) {
+			queue.enqueue(2 * i).enqueue(2 * i + 1);
+			assertEquals(i, queue.dequeue().intValue());
+		}
+		assertEquals(100, queue.size());
+		assertEquals(100, queue.peek().intValue());
+	}
+
+	@Test (timeout = 100)
+	public void testGrowInOrder() {
+		ArrayQueue<Integer> queue = new ArrayQueue<Integer>(4, false);
+		queue.enqueue(0).enqueue(1).enqueue(2);
+		queue.dequeue();
+		queue.dequeue();
+		for (int i = 3; i < 10; i++) {
+			queue.enqueue(i);
+		}
+		assertEquals(8, queue.capacity());
+		assertEquals("[2, 3, 4, 5, 6, 7, 8, 9]", queue.toString());
+	}
+
+	@Test (timeout = 100)
+	public void testShrink() {
+		ArrayQueue<Integer> queue = new ArrayQueue<Integer>(4, true);
+		for (int i = 0; i < 64; i++) {
+			queue.enqueue(i);
+		}
+		assertEquals(64, queue.capacity());
+		for (int i = 0; i < 63; i++) {
+			assertEquals(i, queue.dequeue().intValue());
+		}
+		assertEquals(4, queue.capacity());
+		assertEquals(63, queue.peek().intValue());
+	}
+
+	@Test (timeout = 100)
+	public void testNoShrink() {
+		ArrayQueue<Integer> queue = new ArrayQueue<Integer>(4, false);
+		for (int i = 0; i < 64; i++) {
+			queue.enqueue(i);
+		}
+		while (!queue.isEmpty()) {
+			queue.dequeue();
+		}
+		assertEquals(64, queue.capacity());
+	}
+
+	@Test (timeout = 100, expected = IllegalArgumentException.class)
+	public void testNoCapacity() {
+		new ArrayQueue<Integer>(0, false);
+	}
+
+}
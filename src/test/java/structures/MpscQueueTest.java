@@ -0,0 +1,80 @@
+package structures;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MpscQueueTest {
+
+	@Test (timeout = 100)
+	public void testFifo() {
+		MpscQueue<String> queue = new MpscQueue<String>();
+		assertTrue(queue.isEmpty());
+		queue.enqueue("One").enqueue("Two").enqueue("Three");
+		assertEquals(3, queue.size());
+		assertEquals("[One, Two, Three]", queue.toString());
+		assertEquals("One", queue.peek());
+		assertEquals("One", queue.dequeue());
+		assertEquals("Two", queue.dequeue());
+		assertEquals("Three", queue.dequeue());
+		assertTrue(queue.isEmpty());
+		assertEquals("[]", queue.toString());
+	}
+
+	@Test (timeout = 100, expected = IllegalStateException.class)
+	public void testDequeueEmpty() {
+		MpscQueue<String> queue = new MpscQueue<String>();
+		queue.enqueue("One");
+		queue.dequeue();
+		queue.dequeue();
+	}
+
+	@Test (timeout = 100, expected = NullPointerException.class)
+	public void testNullPointerException() {
+		new MpscQueue<String>().enqueue(null);
+	}
+
+	@Test (timeout = 5000)
+	public void testManyProducers() throws InterruptedException {
+		final MpscQueue<Integer> queue = new MpscQueue<Integer>();
+		final int producers = 4;
+		final int perProducer = 10000;
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int p = 0; p < producers; p++) {
+			final int id = p;
+			Thread t = new Thread(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					queue.enqueue(id * perProducer + i);
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+
+		// Each producer's elements come out in the order they went in
+		int[] last = new int[producers];
+		Arrays.fill(last, -1);
+		int received = 0;
+		while (received < producers * perProducer) {
+			if (queue.isEmpty()) {
+				Thread.yield();
+				continue;
+			}
+			int value = queue.dequeue();
+			int id = value / perProducer;
+			assertTrue(value % perProducer > last[id]);
+			last[id] = value % perProducer;
+			received++;
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertTrue(queue.isEmpty());
+		assertEquals(0, queue.size());
+	}
+
+}
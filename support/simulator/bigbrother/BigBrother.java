@@ -1,15 +1,20 @@
 package simulator.bigbrother;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import simulator.checkout.AbstractRegister;
+import simulator.checkout.CheckoutLineInterface;
 import simulator.checkout.Transaction;
 import simulator.shopper.Shopper;
+import simulator.shopper.ShopperPopulation;
 import simulator.store.AbstractGroceryStore;
 import simulator.world.World;
 
@@ -24,15 +29,59 @@ import simulator.world.World;
  */
 public final class BigBrother {
 
+  /**
+   * The number of time steps in a day, which is the default horizon.
+   */
+  public static final int DEFAULT_HORIZON = 43200;
+
+  /**
+   * A horizon that never ends the simulation.
+   */
+  public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private final SimulationContext context;
+
   private int time = 0;
 
-  private final Set<AbstractGroceryStore> stores;
+  private int horizon = DEFAULT_HORIZON;
+
+  private World world;
+
+  private final List<AbstractGroceryStore> stores;
 
   private final Set<AbstractRegister> registers;
 
-  private final Set<Shopper> shoppers;
+  // Shoppers are partitioned by lifecycle state so that each tick only
+  // visits the shoppers that can still change. Finished shoppers are only
+  // counted, their state stays in the shopper population.
+  private final List<Shopper> arrivingShoppers;
+
+  private final List<Shopper> inLineShoppers;
+
+  private int finishedShoppers;
+
+  private final List<StoreLedger> ledgers;
+
+  // Ratings are cast after all stores have ticked, store by store in
+  // registration order, so the result does not depend on thread timing
+  private final Map<AbstractGroceryStore, List<Shopper>> ballots;
+
+  private final EventQueue events;
+
+  private final List<PeriodicCallback> callbacks;
+
+  private EngineMode mode = EngineMode.TICK;
+
+  private StorePhase storePhase;
+  private StoreThreads storeThreads;
+
+  private boolean ticking;
+
+  private boolean collectingRatings;
+
+  // The free registers, while the next event time is being computed
+  private List<AbstractRegister> freeRegisters;
 
-  private final Map<AbstractGroceryStore, Set<Transaction>> transMap;
   /**
    * Registers an {@link Shopper} with {@link BigBrother}.
    *
@@ -43,8 +92,11 @@ public final class BigBrother {
     if (s == null) {
       throw new NullPointerException();
     }
-    shoppers.add(s);
-    
+    arrivingShoppers.add(s);
+    // Shoppers created outside of a tick go shopping on the next time step
+    if (!ticking) {
+      wakeUpAt(time + 1);
+    }
   }
 
   /**
@@ -52,12 +104,15 @@ public final class BigBrother {
    *
    * @param register
    *            the {@link AbstractRegister} to register
+   * @return the identifier of the register, which is the number of registers
+   *         registered before it
    */
-  public void registerRegister(final AbstractRegister register) {
+  public int registerRegister(final AbstractRegister register) {
     if (register == null) {
       throw new NullPointerException();
     }
     registers.add(register);
+    return registers.size() - 1;
   }
 
   /**
@@ -65,16 +120,60 @@ public final class BigBrother {
    *
    * @param store
    *            the {@link AbstractGroceryStore} to register
+   * @return the identifier of the store, which is the number of stores
+   *         registered before it
    */
-  public void registerStore(final AbstractGroceryStore store) {
+  public int registerStore(final AbstractGroceryStore store) {
     if (store == null) {
       throw new NullPointerException();
     }
-    if (stores.contains(store)) {
+    if (ballots.containsKey(store)) {
       throw new IllegalArgumentException("Each store should be registered exactly once.");
     }
     stores.add(store);
-    transMap.put(store, new HashSet<Transaction>());
+    ledgers.add(new StoreLedger());
+    ballots.put(store, new ArrayList<Shopper>());
+    return stores.size() - 1;
+  }
+
+  /**
+   * Registers the {@link World} with {@link BigBrother}. Only a single
+   * {@link World} may be registered.
+   *
+   * @param w
+   *            the {@link World} to register
+   */
+  public void registerWorld(final World w) {
+    if (w == null) {
+      throw new NullPointerException();
+    }
+    if (world != null) {
+      throw new BigBrotherIsWatchingYouException(
+          "Multiple Worlds constructed.");
+    }
+    world = w;
+  }
+
+  /**
+   * Returns the registered {@link World}. If no {@link World} has been
+   * constructed an {@link IllegalStateException} will be thrown.
+   *
+   * @return the registered {@link World}
+   */
+  public World getWorld() {
+    if (world == null) {
+      throw new IllegalStateException("No world has been constructed.");
+    }
+    return world;
+  }
+
+  /**
+   * Returns the {@link SimulationContext} this {@link BigBrother} watches.
+   *
+   * @return the {@link SimulationContext} this {@link BigBrother} watches
+   */
+  public SimulationContext getContext() {
+    return context;
   }
 
   /**
@@ -86,64 +185,864 @@ public final class BigBrother {
     return time;
   }
 
+  /**
+   * Returns the last time step of the simulation. Once this time step has
+   * been reached, {@link #tick()} returns {@code true}.
+   *
+   * @return the last time step of the simulation
+   */
+  public int getHorizon() {
+    return horizon;
+  }
+
+  /**
+   * Sets the last time step of the simulation. By default a simulation lasts
+   * {@link #DEFAULT_HORIZON} time steps; {@link #UNBOUNDED} runs for as long
+   * as time can be counted.
+   *
+   * @param horizon
+   *            the last time step of the simulation
+   * @throws IllegalArgumentException
+   *             if {@code horizon} is negative
+   */
+  public void setHorizon(final int horizon) {
+    if (horizon < 0) {
+      throw new IllegalArgumentException("Horizon must be non-negative.");
+    }
+    this.horizon = horizon;
+  }
+
+  /**
+   * Returns the number of {@link Shopper}s that have not yet finished
+   * shopping. That is, {@link Shopper}s that are about to select a store and
+   * {@link Shopper}s that are waiting in a line or being checked out.
+   *
+   * @return the number of {@link Shopper}s that have not yet finished
+   *         shopping
+   */
+  public int getNumberOfActiveShoppers() {
+    return arrivingShoppers.size() + inLineShoppers.size();
+  }
+
+  /**
+   * Returns the number of {@link Shopper}s that have finished shopping.
+   *
+   * @return the number of {@link Shopper}s that have finished shopping
+   */
+  public int getNumberOfFinishedShoppers() {
+    return finishedShoppers;
+  }
+
+  /**
+   * Returns the {@link EngineMode} used to advance time.
+   *
+   * @return the {@link EngineMode} used to advance time
+   */
+  public EngineMode getEngineMode() {
+    return mode;
+  }
+
+  /**
+   * Sets the {@link EngineMode} used to advance time. Both modes produce the
+   * same {@link AbstractGroceryStore} totals; {@link EngineMode#DISCRETE_EVENT}
+   * skips the time steps at which nothing can happen.
+   *
+   * @param mode
+   *            the {@link EngineMode} to use
+   */
+  public void setEngineMode(final EngineMode mode) {
+    if (mode == null) {
+      throw new NullPointerException();
+    }
+    this.mode = mode;
+  }
+
+  /**
+   * Requests that the simulation visits the specified time step. In
+   * {@link EngineMode#TICK} every time step is visited and this method has no
+   * visible effect. In {@link EngineMode#DISCRETE_EVENT} the time step is
+   * added to the event queue so that it will not be skipped.
+   *
+   * @param wakeUpTime
+   *            the time step to visit
+   */
+  public void wakeUpAt(final int wakeUpTime) {
+    if (wakeUpTime > time) {
+      // Registers may request wake ups from several store threads
+      synchronized (events) {
+        events.schedule(wakeUpTime);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of threads used to tick the
+   * {@link AbstractGroceryStore}s.
+   *
+   * @return the number of threads used to tick the
+   *         {@link AbstractGroceryStore}s
+   */
+  public int getStoreThreads() {
+    if (storeThreads != null) {
+      return Math.max(1, stores.size());
+    }
+    return storePhase == null ? 1 : storePhase.getThreads();
+  }
+
+  /**
+   * <p>
+   * Sets the number of threads used to tick the {@link AbstractGroceryStore}
+   * s. With a single thread, stores are ticked one after another. With more
+   * than one thread, stores are split across worker threads which all finish
+   * a time step before the next one begins. Shopper arrivals, store selection
+   * and {@link simulator.shopper.MyFacePagePlus} votes are always performed
+   * on the calling thread in a fixed order, so the results are the same for
+   * any number of threads.
+   * </p>
+   * <p>
+   * Each {@link AbstractGroceryStore} must only use its own lines and
+   * registers in {@link AbstractGroceryStore#tick()}.
+   * </p>
+   * <p>
+   * The worker threads are started by the first time step and stopped once
+   * the horizon is reached or the {@link SimulationContext} is closed.
+   * </p>
+   *
+   * @param threads
+   *            the number of threads used to tick stores
+   * @throws IllegalArgumentException
+   *             if {@code threads} is less than 1
+   */
+  public void setStoreThreads(final int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("At least one thread is required.");
+    }
+    if (storePhase != null) {
+      storePhase.shutdown();
+      storePhase = null;
+    }
+    if (storeThreads != null) {
+      storeThreads.shutdown();
+      storeThreads = null;
+    }
+    if (threads > 1) {
+      storePhase = new StorePhase(context, threads);
+    }
+  }
+
+  /**
+   * <p>
+   * Ticks every {@link AbstractGroceryStore} on a virtual thread of its own.
+   * The store threads and the calling thread are kept in step by a clock
+   * barrier, so a store with a slow {@link AbstractGroceryStore#tick()} does
+   * not hold up the others, and tens of thousands of stores need no more
+   * platform threads than processors. The same rules and guarantees as for
+   * {@link #setStoreThreads(int)} apply.
+   * </p>
+   * <p>
+   * Only {@link AbstractGroceryStore#tick()} runs on the store threads. The
+   * {@link AbstractRegister}s are still ticked on the calling thread before
+   * the stores, since a register is not owned by one store.
+   * </p>
+   * <p>
+   * If the virtual machine does not support virtual threads, the stores are
+   * split across one thread per available processor instead.
+   * </p>
+   *
+   * @return {@code true} if the stores are ticked on virtual threads and
+   *         {@code false} otherwise
+   */
+  public boolean setVirtualStoreThreads() {
+    ThreadFactory factory = StoreThreads.virtualThreadFactory();
+    if (factory == null) {
+      setStoreThreads(Runtime.getRuntime().availableProcessors());
+      return false;
+    }
+    setStoreThreads(factory);
+    return true;
+  }
+
+  /**
+   * Ticks every {@link AbstractGroceryStore} on a thread of its own, made by
+   * the specified {@link ThreadFactory}.
+   *
+   * @param factory
+   *            the factory of the store threads
+   */
+  void setStoreThreads(final ThreadFactory factory) {
+    setStoreThreads(1);
+    storeThreads = new StoreThreads(context, factory);
+  }
+
+  /**
+   * Adds the specified completed {@link Transaction} to the
+   * {@link StoreLedger} of the store its {@link Shopper} visited. This is
+   * called by {@link Shopper#completeTransaction(Transaction)}, exactly once
+   * per {@link Transaction}. A {@link Transaction} of a {@link Shopper} who
+   * never chose a store is not added anywhere. A {@link Transaction}
+   * completed outside of a time step is published right away.
+   *
+   * @param t
+   *            the completed transaction
+   */
+  public void recordTransaction(final Transaction t) {
+    if (t == null) {
+      throw new NullPointerException();
+    }
+    AbstractGroceryStore store = t.getShopper().getStore();
+    if (store != null) {
+      StoreLedger ledger = ledgers.get(store.getStoreID());
+      ledger.add(t);
+      if (!ticking) {
+        ledger.publish();
+      }
+    }
+  }
+
+  /**
+   * Returns the {@link StoreLedger} of the specified store.
+   *
+   * @param store
+   *            the store
+   * @return the running totals of the transactions completed in the store
+   * @throws IllegalArgumentException
+   *             if the store is not registered with this {@link BigBrother}
+   */
+  public StoreLedger getLedger(final AbstractGroceryStore store) {
+    if (store == null) {
+      throw new NullPointerException();
+    }
+    int id = store.getStoreID();
+    if (id >= stores.size() || stores.get(id) != store) {
+      throw new IllegalArgumentException("Unknown store.");
+    }
+    return ledgers.get(id);
+  }
+
+  /**
+   * Defers the rating of the specified {@link Shopper}'s store until every
+   * {@link AbstractGroceryStore} has ticked. Ratings are then cast store by
+   * store in registration order and, within a store, in the order the
+   * {@link Shopper}s were checked out. If ratings are not currently being
+   * collected, {@code false} is returned and the {@link Shopper} should rate
+   * the store right away.
+   *
+   * @param s
+   *            the {@link Shopper} who completed a {@link Transaction}
+   * @return {@code true} if the rating was deferred and {@code false}
+   *         otherwise
+   */
+  public boolean deferRating(final Shopper s) {
+    if (!collectingRatings) {
+      return false;
+    }
+    List<Shopper> ballot = ballots.get(s.getStore());
+    if (ballot == null) {
+      return false;
+    }
+    // Each store's ballot is only ever filled by the thread ticking it
+    ballot.add(s);
+    return true;
+  }
+
+  /**
+   * Registers a callback that is called at every time step that is a
+   * multiple of {@code period}, after the stores have ticked. Both engine
+   * modes visit these time steps.
+   *
+   * @param period
+   *            the number of time steps between calls
+   * @param callback
+   *            the callback to call
+   * @throws IllegalArgumentException
+   *             if {@code period} is less than 1
+   */
+  public void addPeriodicCallback(final int period,
+      final Consumer<BigBrother> callback) {
+    if (callback == null) {
+      throw new NullPointerException();
+    }
+    if (period < 1) {
+      throw new IllegalArgumentException("Period must be greater than 0.");
+    }
+    callbacks.add(new PeriodicCallback(period, callback));
+  }
+
   /**
    * Causes the universe to advance a single time step. The world ticks, all
-   * registers tick, all shoppers tick. If possible, shoppers select a store
+   * registers tick, all shoppers tick. If possible, shoppers select a store.
+   * In {@link EngineMode#DISCRETE_EVENT} the universe instead advances
+   * directly to the next time step at which an event occurs.
    *
    * @return {@code true} if the simulation is over and {@code false}
    *         otherwise.
    */
   public boolean tick() {
-    if (time >= 43200) {
-      return true;
+    return step(horizon);
+  }
+
+  /**
+   * Advances the simulation by the specified number of time steps, or until
+   * the horizon is reached.
+   *
+   * @param steps
+   *            the number of time steps to advance
+   * @return {@code true} if the simulation is over and {@code false}
+   *         otherwise.
+   * @throws IllegalArgumentException
+   *             if {@code steps} is negative
+   */
+  public boolean runFor(final int steps) {
+    if (steps < 0) {
+      throw new IllegalArgumentException("Steps must be non-negative.");
+    }
+    int target = (int) Math.min((long) time + steps, horizon);
+    while (time < target) {
+      step(target);
     }
+    return time >= horizon;
+  }
 
-    time++;
+  /**
+   * Advances the simulation until the specified condition holds or the
+   * horizon is reached. The condition is checked before the first time step
+   * and after every time step that is visited.
+   *
+   * @param condition
+   *            the condition to wait for
+   * @return {@code true} if the simulation is over and {@code false}
+   *         otherwise.
+   */
+  public boolean runUntil(final Predicate<? super BigBrother> condition) {
+    if (condition == null) {
+      throw new NullPointerException();
+    }
+    while (!condition.test(this)) {
+      if (step(horizon)) {
+        return true;
+      }
+    }
+    return time >= horizon;
+  }
 
-    World.getWorld().tick();
+  /**
+   * Advances the simulation until it is quiescent or the horizon is reached.
+   * A simulation is quiescent when no {@link Shopper} is shopping, no
+   * {@link AbstractRegister} is busy and the {@link World} will not create
+   * another {@link Shopper} before the horizon. A {@link World} that may
+   * create {@link Shopper}s at any time step therefore runs until the
+   * horizon.
+   *
+   * @return {@code true} if the simulation is over and {@code false}
+   *         otherwise.
+   * @see #isQuiescent(boolean)
+   */
+  public boolean runUntilQuiescent() {
+    return runUntil(b -> b.isQuiescent(true));
+  }
 
-    List<AbstractGroceryStore> possibleStores = new LinkedList<AbstractGroceryStore>(
-        stores);
+  /**
+   * Returns {@code true} if no {@link Shopper} is shopping and no
+   * {@link AbstractRegister} is busy, regardless of the {@link Shopper}s the
+   * {@link World} may create later.
+   *
+   * @return {@code true} if the simulation is quiescent and {@code false}
+   *         otherwise
+   */
+  public boolean isQuiescent() {
+    return isQuiescent(false);
+  }
 
+  /**
+   * Returns {@code true} if no {@link Shopper} is shopping and no
+   * {@link AbstractRegister} is busy. If {@code includeArrivals} is
+   * {@code true}, the {@link World} must also not create another
+   * {@link Shopper} before the horizon, according to
+   * {@link World#nextArrivalTime(int)}.
+   *
+   * @param includeArrivals
+   *            whether {@link Shopper}s the {@link World} will create are
+   *            taken into account
+   * @return {@code true} if the simulation is quiescent and {@code false}
+   *         otherwise
+   */
+  public boolean isQuiescent(final boolean includeArrivals) {
+    if (getNumberOfActiveShoppers() > 0) {
+      return false;
+    }
     for (AbstractRegister r : registers) {
-      r.tick();
+      if (r.isBusy()) {
+        return false;
+      }
+    }
+    return !includeArrivals || getWorld().nextArrivalTime(time) > horizon;
+  }
+
+  /**
+   * Advances the simulation by one time step, or in
+   * {@link EngineMode#DISCRETE_EVENT} to the next event, but never past
+   * {@code limit}.
+   *
+   * @param limit
+   *            the latest time step to advance to
+   * @return {@code true} if the simulation is over and {@code false}
+   *         otherwise.
+   */
+  private boolean step(final int limit) {
+    if (time >= horizon) {
+      return true;
     }
 
-    for (Shopper s : shoppers) {
-      s.tick(transMap);
-      if (!s.isInStore()) {
-        s.goShopping(possibleStores);
+    // Events in the past are discarded in either mode
+    int scheduled = events.nextAfter(time);
+    int next = mode == EngineMode.TICK ? time + 1
+        : nextEventTime(scheduled, Math.min(limit, horizon));
+    int steps = next - time;
+    time = next;
+
+    // Anything looked up during the tick belongs to this simulation
+    SimulationContext previous = SimulationContext.enter(context);
+    try {
+      tickEverything(steps);
+      for (PeriodicCallback c : callbacks) {
+        c.callIfDue(this, time);
       }
+    } finally {
+      SimulationContext.exit(previous);
     }
 
-    for (AbstractGroceryStore store : stores) {
-      store.tick();
+    if (time >= horizon) {
+      // The simulation is over, the store threads are started again if the
+      // horizon is moved
+      close();
+    }
+    return false;
+  }
+
+  /**
+   * Stops the threads ticking the {@link AbstractGroceryStore}s. They are
+   * started again if the simulation is advanced. This is called by
+   * {@link SimulationContext#close()}.
+   */
+  void close() {
+    if (storePhase != null) {
+      storePhase.shutdown();
+    }
+    if (storeThreads != null) {
+      storeThreads.shutdown();
+      storeThreads = new StoreThreads(context, storeThreads.getFactory());
+    }
+  }
+
+  /**
+   * Ticks the world, the registers, the shoppers and the stores.
+   *
+   * @param steps
+   *            the number of time steps that passed since the last tick
+   */
+  private void tickEverything(final int steps) {
+    ticking = true;
+    try {
+      getWorld().tick();
+
+      for (AbstractRegister r : registers) {
+        r.tick(steps);
+      }
+
+      tickInLineShoppers(steps);
+      tickArrivingShoppers();
+
+      tickStores();
+    } finally {
+      ticking = false;
+      collectingRatings = false;
+    }
+  }
+
+  /**
+   * Ticks every {@link AbstractGroceryStore}, on the store threads if there
+   * is more than one, and then casts the deferred ratings.
+   */
+  private void tickStores() {
+    collectingRatings = true;
+    if (storeThreads != null) {
+      storeThreads.tick(stores);
+    } else if (storePhase == null) {
+      for (AbstractGroceryStore store : stores) {
+        store.runTick();
+      }
+    } else {
+      storePhase.tick(stores);
+    }
+    collectingRatings = false;
+
+    for (List<Shopper> ballot : ballots.values()) {
+      for (Shopper s : ballot) {
+        s.rateStore();
+      }
+      ballot.clear();
+    }
+    for (StoreLedger ledger : ledgers) {
+      ledger.publish();
+    }
+  }
+
+  /**
+   * Ticks every {@link Shopper} in a line. {@link Shopper}s that have left
+   * their line are counted as finished shoppers once {@link BigBrother} has
+   * been notified of their {@link Transaction}. The relative order of the
+   * remaining {@link Shopper}s is preserved.
+   *
+   * @param steps
+   *            the number of time steps to advance
+   */
+  private void tickInLineShoppers(final int steps) {
+    int kept = 0;
+    for (int i = 0; i < inLineShoppers.size(); i++) {
+      Shopper s = inLineShoppers.get(i);
+      s.tick(steps);
+      if (s.isInLine()) {
+        inLineShoppers.set(kept++, s);
+      } else {
+        finishedShoppers++;
+      }
+    }
+    inLineShoppers.subList(kept, inLineShoppers.size()).clear();
+  }
+
+  /**
+   * Sends every arriving {@link Shopper} shopping. {@link Shopper}s that
+   * entered a line join the in line shoppers, all others are finished since
+   * they could not find a line to enter. Each {@link Shopper} draws one of
+   * the registered stores from the ratings of
+   * {@link simulator.shopper.MyFacePagePlus}.
+   */
+  private void tickArrivingShoppers() {
+    for (int i = 0; i < arrivingShoppers.size(); i++) {
+      Shopper s = arrivingShoppers.get(i);
+      if (!s.isInStore() && s.goShopping()) {
+        // The shopper will become irate once their patience runs out
+        wakeUpAt(time + s.getRemainingPatience());
+      }
+      if (s.isInLine()) {
+        inLineShoppers.add(s);
+      } else {
+        finishedShoppers++;
+      }
+    }
+    arrivingShoppers.clear();
+  }
+
+  /**
+   * Returns the next time step at which an event occurs. This is the
+   * earliest of the next {@link Shopper} arrival, any scheduled event, any
+   * periodic callback and the wake up times requested by each
+   * {@link AbstractGroceryStore}, but never later than {@code horizon}.
+   *
+   * @param scheduled
+   *            the earliest event in the event queue
+   * @param horizon
+   *            the last time step of the simulation
+   * @return the next time step at which an event occurs
+   */
+  private int nextEventTime(final int scheduled, final int horizon) {
+    int next = Math.min(horizon, scheduled);
+    next = Math.min(next, getWorld().nextArrivalTime(time));
+    // Stores ask for the free registers, which do not change in between
+    freeRegisters = new ArrayList<AbstractRegister>();
+    try {
+      for (AbstractRegister r : registers) {
+        if (!r.isBusy()) {
+          freeRegisters.add(r);
+        }
+      }
+      for (AbstractGroceryStore store : stores) {
+        next = Math.min(next, store.nextWakeUpTime(time));
+      }
+    } finally {
+      freeRegisters = null;
+    }
+    for (PeriodicCallback c : callbacks) {
+      next = Math.min(next, c.nextCallTime(time));
     }
+    // Never stand still, even if an event was requested for the past
+    return Math.max(next, time + 1);
+  }
 
+  /**
+   * Returns {@code true} if an {@link AbstractRegister} is free to serve the
+   * {@link Shopper}s of the specified store. A register that has only served
+   * the {@link Shopper}s of other stores is not considered, see
+   * {@link AbstractRegister#isFreeFor(AbstractGroceryStore)}.
+   *
+   * @param store
+   *            the store
+   * @return {@code true} if a register may serve the store now and
+   *         {@code false} otherwise
+   */
+  public boolean hasFreeRegister(final AbstractGroceryStore store) {
+    if (store == null) {
+      throw new NullPointerException();
+    }
+    for (AbstractRegister r : freeRegisters == null ? registers : freeRegisters) {
+      if (r.isFreeFor(store)) {
+        return true;
+      }
+    }
     return false;
   }
 
+  /**
+   * Returns the {@link AbstractGroceryStore} with the specified identifier.
+   *
+   * @param storeID
+   *            the identifier of the store
+   * @return the {@link AbstractGroceryStore} with the specified identifier
+   * @throws IndexOutOfBoundsException
+   *             if no store has that identifier
+   */
+  public AbstractGroceryStore getStore(final int storeID) {
+    return stores.get(storeID);
+  }
+
+  /**
+   * Returns the number of registered {@link AbstractGroceryStore}s. Their
+   * identifiers are 0 up to this number.
+   *
+   * @return the number of registered stores
+   */
+  public int getStoreCount() {
+    return stores.size();
+  }
+
+  /**
+   * Writes the state of the simulation to the specified
+   * {@link CheckpointWriter}.
+   *
+   * @param out
+   *            the writer to write to
+   * @throws IllegalStateException
+   *             if the simulation is in the middle of a time step
+   */
+  void writeCheckpoint(final CheckpointWriter out) {
+    if (ticking) {
+      throw new IllegalStateException("Cannot checkpoint in the middle of a tick.");
+    }
+    out.putInt(time);
+    out.putInt(horizon);
+
+    // Shopper identifiers are dense, so shoppers are written in that order
+    ShopperPopulation population = context.getShopperPopulation();
+    out.putInt(population.size());
+    for (int id = 0; id < population.size(); id++) {
+      population.getShopper(id).saveState(out);
+    }
+    for (List<Shopper> partition : lifecycle()) {
+      out.putInt(partition.size());
+      for (Shopper s : partition) {
+        out.putShopper(s);
+      }
+    }
+    out.putInt(finishedShoppers);
+    events.writeCheckpoint(out);
+
+    out.putInt(stores.size());
+    for (AbstractGroceryStore store : stores) {
+      List<CheckoutLineInterface> lines = store.getLines();
+      out.putInt(lines.size());
+      for (CheckoutLineInterface line : lines) {
+        writeLine(out, line);
+      }
+      ledgers.get(store.getStoreID()).writeCheckpoint(out);
+      store.saveState(out);
+    }
+
+    out.putInt(registers.size());
+    for (AbstractRegister r : registers) {
+      r.saveState(out);
+    }
+
+    context.getSocialNetwork().saveState(out);
+
+    if (getWorld() instanceof Checkpointable) {
+      ((Checkpointable) world).writeCheckpoint(out);
+    }
+  }
+
+  /**
+   * Restores the state of the simulation from the specified
+   * {@link CheckpointReader}. The simulation must have been set up like the
+   * one the checkpoint was captured from, but not yet ticked.
+   *
+   * @param in
+   *            the reader to read from
+   * @throws IllegalStateException
+   *             if the simulation has already started or does not match the
+   *             checkpoint
+   */
+  void readCheckpoint(final CheckpointReader in) {
+    if (ticking || time != 0 || getNumberOfActiveShoppers() > 0
+        || finishedShoppers > 0) {
+      throw new IllegalStateException(
+          "A checkpoint can only be restored into a new simulation.");
+    }
+    SimulationContext previous = SimulationContext.enter(context);
+    try {
+      time = in.getInt();
+      setHorizon(in.getInt());
+
+      // Every shopper exists before any state that refers to one is read
+      int shoppers = in.getInt();
+      for (int id = 0; id < shoppers; id++) {
+        if (new Shopper(new int[0]).getUniqueID() != id) {
+          throw new IllegalStateException(
+              "A checkpoint can only be restored into a new simulation.");
+        }
+      }
+      arrivingShoppers.clear();
+      ShopperPopulation population = context.getShopperPopulation();
+      for (int id = 0; id < shoppers; id++) {
+        population.getShopper(id).restoreState(in);
+      }
+      for (List<Shopper> partition : lifecycle()) {
+        int size = in.getInt();
+        for (int i = 0; i < size; i++) {
+          partition.add(in.getShopper());
+        }
+      }
+      finishedShoppers = in.getInt();
+      events.readCheckpoint(in);
+
+      checkShape(in.getInt(), stores.size(), "stores");
+      for (AbstractGroceryStore store : stores) {
+        List<CheckoutLineInterface> lines = store.getLines();
+        checkShape(in.getInt(), lines.size(), "lines");
+        for (CheckoutLineInterface line : lines) {
+          readLine(in, line);
+        }
+        ledgers.get(store.getStoreID()).readCheckpoint(in);
+        store.restoreState(in);
+      }
+
+      checkShape(in.getInt(), registers.size(), "registers");
+      for (AbstractRegister r : registers) {
+        r.restoreState(in);
+      }
+
+      context.getSocialNetwork().restoreState(in);
+
+      if (getWorld() instanceof Checkpointable) {
+        ((Checkpointable) world).readCheckpoint(in);
+      }
+    } finally {
+      SimulationContext.exit(previous);
+    }
+  }
+
+  /**
+   * Returns the partitions of the active shoppers in lifecycle order.
+   *
+   * @return the arriving and in line shoppers
+   */
+  private List<List<Shopper>> lifecycle() {
+    List<List<Shopper>> partitions = new ArrayList<List<Shopper>>(2);
+    partitions.add(arrivingShoppers);
+    partitions.add(inLineShoppers);
+    return partitions;
+  }
+
+  /**
+   * Writes the {@link Shopper}s waiting in the specified line, front first.
+   * The line is rotated once, leaving it as it was.
+   *
+   * @param out
+   *            the writer to write to
+   * @param line
+   *            the line to write
+   */
+  private static void writeLine(final CheckpointWriter out,
+      final CheckoutLineInterface line) {
+    int size = line.size();
+    out.putInt(size);
+    for (int i = 0; i < size; i++) {
+      Shopper s = line.dequeue();
+      out.putShopper(s);
+      line.enqueue(s);
+    }
+  }
+
+  /**
+   * Enqueues the {@link Shopper}s read from the checkpoint into the specified
+   * line, which must be empty.
+   *
+   * @param in
+   *            the reader to read from
+   * @param line
+   *            the line to fill
+   */
+  private static void readLine(final CheckpointReader in,
+      final CheckoutLineInterface line) {
+    if (!line.isEmpty()) {
+      throw new IllegalStateException(
+          "A checkpoint can only be restored into empty lines.");
+    }
+    int size = in.getInt();
+    for (int i = 0; i < size; i++) {
+      line.enqueue(in.getShopper());
+    }
+  }
+
+  /**
+   * Checks that the simulation being restored has as many objects of some
+   * kind as the checkpoint.
+   *
+   * @param saved
+   *            the number in the checkpoint
+   * @param actual
+   *            the number in the simulation
+   * @param kind
+   *            the kind of objects, for the error message
+   */
+  private static void checkShape(final int saved, final int actual,
+      final String kind) {
+    if (saved != actual) {
+      throw new IllegalStateException("The checkpoint has " + saved + " "
+          + kind + " but the simulation has " + actual + ".");
+    }
+  }
+
   /**
    * Returns the {@link BigBrother} object which watches what you're doing.
+   * This is the {@link BigBrother} of the {@link SimulationContext} that is
+   * current on the calling thread.
    *
    * @return the {@link BigBrother} object which watches what you're doing.
    */
   public static BigBrother getBigBrother() {
-    return BIG_BROTHER_INSTANCE;
+    return SimulationContext.current().getBigBrother();
   }
 
-  private static final BigBrother BIG_BROTHER_INSTANCE = new BigBrother();
   /**
-   * Constructs a BigBrother instance.
+   * Constructs a BigBrother instance for the specified
+   * {@link SimulationContext}.
+   *
+   * @param context
+   *            the {@link SimulationContext} to watch
    */
-  private BigBrother() {
-    if (BIG_BROTHER_INSTANCE != null) {
+  BigBrother(final SimulationContext context) {
+    if (context.getBigBrother() != null) {
       throw new BigBrotherIsWatchingYouException("Nice Try!");
     }
-    registers = new HashSet<AbstractRegister>();
-    stores = new HashSet<AbstractGroceryStore>();
-    shoppers = new HashSet<Shopper>();
-    transMap = new HashMap<AbstractGroceryStore, Set<Transaction>>();
+    this.context = context;
+    // Registration order keeps simulations repeatable across instances
+    registers = new LinkedHashSet<AbstractRegister>();
+    stores = new ArrayList<AbstractGroceryStore>();
+    arrivingShoppers = new ArrayList<Shopper>();
+    inLineShoppers = new ArrayList<Shopper>();
+    ledgers = new ArrayList<StoreLedger>();
+    ballots = new LinkedHashMap<AbstractGroceryStore, List<Shopper>>();
+    events = new EventQueue();
+    callbacks = new ArrayList<PeriodicCallback>();
   }
 
 }
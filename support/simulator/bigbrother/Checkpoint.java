@@ -0,0 +1,238 @@
+package simulator.bigbrother;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>
+ * A {@link Checkpoint} is a compact binary copy of the full state of a
+ * simulation between two time steps: the clock and scheduled events of
+ * {@link BigBrother}, every {@link simulator.shopper.Shopper}, the contents of
+ * every line, the state of every {@link simulator.checkout.AbstractRegister},
+ * the ratings of {@link simulator.shopper.MyFacePagePlus} and the state of
+ * every random stream. Objects that keep state of their own take part by
+ * implementing {@link Checkpointable}.
+ * </p>
+ * <p>
+ * A checkpoint is restored into a new {@link SimulationContext} that was set
+ * up by the same code as the one it was captured from, i.e. with the same kind
+ * of {@link simulator.world.World} and the same stores, registers and lines,
+ * constructed in the same order. The restored simulation then continues
+ * exactly as the original would have.
+ * </p>
+ *
+ * <pre>
+ * bigBrother.addPeriodicCallback(3600,
+ *     b -&gt; Checkpoint.capture(b.getContext()).writeInBackground(path));
+ * ...
+ * SimulationContext resumed = new SimulationContext();
+ * resumed.run(() -&gt; setUp());
+ * Checkpoint.read(path).restore(resumed);
+ * </pre>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class Checkpoint {
+
+  private static final int MAGIC = 0x47534350;
+
+  private static final int VERSION = 6;
+
+  private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+  private static final Executor WRITER = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "checkpoint-writer");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final ByteBuffer data;
+
+  /**
+   * Creates a {@link Checkpoint} holding the specified data.
+   *
+   * @param data
+   *            the read only checkpoint data
+   */
+  private Checkpoint(final ByteBuffer data) {
+    this.data = data;
+  }
+
+  /**
+   * Captures the state of the specified simulation. A checkpoint cannot be
+   * captured while the simulation is in the middle of a time step, but may be
+   * captured from a periodic callback.
+   *
+   * @param context
+   *            the simulation to capture
+   * @return a {@link Checkpoint} of the simulation
+   * @throws IllegalStateException
+   *             if the simulation is in the middle of a time step
+   */
+  public static Checkpoint capture(final SimulationContext context) {
+    if (context == null) {
+      throw new NullPointerException();
+    }
+    CheckpointWriter out = new CheckpointWriter();
+    context.getBigBrother().writeCheckpoint(out);
+    return new Checkpoint(out.toByteBuffer());
+  }
+
+  /**
+   * Reads a {@link Checkpoint} from the specified file.
+   *
+   * @param path
+   *            the file to read
+   * @return the {@link Checkpoint} stored in the file
+   * @throws IOException
+   *             if the file cannot be read or is not a checkpoint
+   */
+  public static Checkpoint read(final Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      readFully(channel, header, path);
+      header.flip();
+      if (header.getInt() != MAGIC) {
+        throw new IOException(path + " is not a checkpoint.");
+      }
+      if (header.getInt() != VERSION) {
+        throw new IOException(path + " has an unsupported checkpoint version.");
+      }
+      int length = header.getInt();
+      if (length < 0 || length != channel.size() - HEADER_BYTES) {
+        throw new IOException(path + " is truncated.");
+      }
+      ByteBuffer body = ByteBuffer.allocate(length);
+      readFully(channel, body, path);
+      body.flip();
+      return new Checkpoint(body.asReadOnlyBuffer());
+    }
+  }
+
+  /**
+   * Returns the time step at which this {@link Checkpoint} was captured.
+   *
+   * @return the time step at which this {@link Checkpoint} was captured
+   */
+  public int getTime() {
+    return data.getInt(data.position());
+  }
+
+  /**
+   * Returns the size of this {@link Checkpoint} in bytes, excluding the file
+   * header.
+   *
+   * @return the size of this {@link Checkpoint} in bytes
+   */
+  public int size() {
+    return data.remaining();
+  }
+
+  /**
+   * Restores this {@link Checkpoint} into the specified simulation, which must
+   * have been set up but not yet ticked. The same checkpoint may be restored
+   * any number of times, also from several threads at once.
+   *
+   * @param context
+   *            the simulation to restore into
+   * @throws IllegalStateException
+   *             if the simulation has already started or was not set up
+   *             like the simulation this checkpoint was captured from
+   */
+  public void restore(final SimulationContext context) {
+    if (context == null) {
+      throw new NullPointerException();
+    }
+    BigBrother bigBrother = context.getBigBrother();
+    bigBrother.readCheckpoint(new CheckpointReader(data.duplicate(), bigBrother));
+  }
+
+  /**
+   * Writes this {@link Checkpoint} to the specified file. The data is written
+   * to a temporary file next to it which then replaces the file, so a crash
+   * while writing never leaves a partial checkpoint behind.
+   *
+   * @param path
+   *            the file to write
+   * @throws IOException
+   *             if the file cannot be written
+   */
+  public void write(final Path path) throws IOException {
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC).putInt(VERSION).putInt(data.remaining()).flip();
+    ByteBuffer body = data.duplicate();
+    ByteBuffer[] buffers = {header, body};
+    try (FileChannel channel = FileChannel.open(temporary,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (header.hasRemaining() || body.hasRemaining()) {
+        channel.write(buffers);
+      }
+      channel.force(false);
+    }
+    try {
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Writes this {@link Checkpoint} to the specified file on a background
+   * thread, so the simulation can continue while the file is written.
+   * Checkpoints are written one at a time in the order they were requested.
+   *
+   * @param path
+   *            the file to write
+   * @return a future that completes with {@code path} once the file has been
+   *         written, or exceptionally with an {@link UncheckedIOException}
+   */
+  public CompletableFuture<Path> writeInBackground(final Path path) {
+    if (path == null) {
+      throw new NullPointerException();
+    }
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        write(path);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return path;
+    }, WRITER);
+  }
+
+  /**
+   * Fills the specified buffer from the channel.
+   *
+   * @param channel
+   *            the channel to read from
+   * @param buffer
+   *            the buffer to fill
+   * @param path
+   *            the file being read, for error messages
+   * @throws IOException
+   *             if the channel ends before the buffer is full
+   */
+  private static void readFully(final FileChannel channel,
+      final ByteBuffer buffer, final Path path) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException(path + " is truncated.");
+      }
+    }
+  }
+
+}
@@ -0,0 +1,167 @@
+package simulator.bigbrother;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import simulator.checkout.Transaction;
+import simulator.grocery.GroceryInterface;
+import simulator.shopper.Shopper;
+import simulator.store.AbstractGroceryStore;
+
+/**
+ * A {@link CheckpointReader} reads back what a {@link CheckpointWriter}
+ * wrote, in the same order, while a {@link Checkpoint} is restored.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class CheckpointReader {
+
+  private final ByteBuffer buffer;
+
+  private final BigBrother bigBrother;
+
+  private final List<GroceryInterface> groceries =
+      new ArrayList<GroceryInterface>();
+
+  private final List<Transaction> transactions = new ArrayList<Transaction>();
+
+  /**
+   * Creates a {@link CheckpointReader} restoring into the specified
+   * {@link BigBrother}.
+   *
+   * @param buffer
+   *            the checkpoint data
+   * @param bigBrother
+   *            the {@link BigBrother} being restored
+   */
+  CheckpointReader(final ByteBuffer buffer, final BigBrother bigBrother) {
+    this.buffer = buffer;
+    this.bigBrother = bigBrother;
+  }
+
+  /**
+   * Reads an int.
+   *
+   * @return the value read
+   */
+  public int getInt() {
+    return buffer.getInt();
+  }
+
+  /**
+   * Reads a long.
+   *
+   * @return the value read
+   */
+  public long getLong() {
+    return buffer.getLong();
+  }
+
+  /**
+   * Reads a double.
+   *
+   * @return the value read
+   */
+  public double getDouble() {
+    return buffer.getDouble();
+  }
+
+  /**
+   * Reads a boolean.
+   *
+   * @return the value read
+   */
+  public boolean getBoolean() {
+    return buffer.get() != 0;
+  }
+
+  /**
+   * Reads a {@link String}, which may be {@code null}.
+   *
+   * @return the value read
+   */
+  public String getString() {
+    int length = getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a reference to a {@link Shopper}, which may be {@code null}.
+   *
+   * @return the restored {@link Shopper}
+   */
+  public Shopper getShopper() {
+    int id = getInt();
+    return id < 0 ? null
+        : bigBrother.getContext().getShopperPopulation().getShopper(id);
+  }
+
+  /**
+   * Reads a reference to an {@link AbstractGroceryStore}, which may be
+   * {@code null}.
+   *
+   * @return the {@link AbstractGroceryStore} with the identifier read
+   */
+  public AbstractGroceryStore getStore() {
+    int id = getInt();
+    return id < 0 ? null : bigBrother.getStore(id);
+  }
+
+  /**
+   * Reads a {@link GroceryInterface}. A grocery that was written more than
+   * once is read back as the same object each time.
+   *
+   * @return the restored {@link GroceryInterface}
+   */
+  public GroceryInterface getGrocery() {
+    int index = getInt();
+    if (index < groceries.size()) {
+      return groceries.get(index);
+    }
+    String name = getString();
+    double price = getDouble();
+    double cost = getDouble();
+    double handling = getDouble();
+    GroceryInterface grocery = new RestoredGrocery(name, price, cost, handling);
+    groceries.add(grocery);
+    return grocery;
+  }
+
+  /**
+   * Reads a {@link Transaction}. A transaction that was written more than
+   * once is read back as the same object each time.
+   *
+   * @return the restored {@link Transaction}
+   */
+  public Transaction getTransaction() {
+    int index = getInt();
+    if (index < transactions.size()) {
+      return transactions.get(index);
+    }
+    Shopper shopper = getShopper();
+    int timesteps = getInt();
+    int startTime = getInt();
+    double discount = getDouble();
+    double subtotal = getDouble();
+    double saleValue = getDouble();
+    int items = getInt();
+    List<GroceryInterface> bought = new ArrayList<GroceryInterface>(items);
+    for (int i = 0; i < items; i++) {
+      bought.add(getGrocery());
+    }
+    Transaction transaction = new Transaction(
+        new RestoredReceipt(bought, discount, subtotal, saleValue), shopper,
+        timesteps, startTime);
+    transactions.add(transaction);
+    return transaction;
+  }
+
+}
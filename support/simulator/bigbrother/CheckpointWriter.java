@@ -0,0 +1,213 @@
+package simulator.bigbrother;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import simulator.checkout.AbstractReceipt;
+import simulator.checkout.Transaction;
+import simulator.grocery.GroceryInterface;
+import simulator.shopper.Shopper;
+import simulator.store.AbstractGroceryStore;
+
+/**
+ * A {@link CheckpointWriter} writes the state of a simulation into a binary
+ * {@link Checkpoint}. {@link Shopper}s and {@link AbstractGroceryStore}s are
+ * written as their identifiers. {@link GroceryInterface}s and
+ * {@link Transaction}s are written in full the first time they are seen and as
+ * a reference afterwards, so shared objects are shared again once restored.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class CheckpointWriter {
+
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+  private final Map<GroceryInterface, Integer> groceries =
+      new IdentityHashMap<GroceryInterface, Integer>();
+
+  private final Map<Transaction, Integer> transactions =
+      new IdentityHashMap<Transaction, Integer>();
+
+  /**
+   * Creates an empty {@link CheckpointWriter}.
+   */
+  CheckpointWriter() {
+  }
+
+  /**
+   * Writes an int.
+   *
+   * @param value
+   *            the value to write
+   */
+  public void putInt(final int value) {
+    ensureRemaining(Integer.BYTES);
+    buffer.putInt(value);
+  }
+
+  /**
+   * Writes a long.
+   *
+   * @param value
+   *            the value to write
+   */
+  public void putLong(final long value) {
+    ensureRemaining(Long.BYTES);
+    buffer.putLong(value);
+  }
+
+  /**
+   * Writes a double. The exact bits are written, so the value read back is
+   * identical.
+   *
+   * @param value
+   *            the value to write
+   */
+  public void putDouble(final double value) {
+    ensureRemaining(Double.BYTES);
+    buffer.putDouble(value);
+  }
+
+  /**
+   * Writes a boolean.
+   *
+   * @param value
+   *            the value to write
+   */
+  public void putBoolean(final boolean value) {
+    ensureRemaining(1);
+    buffer.put(value ? (byte) 1 : (byte) 0);
+  }
+
+  /**
+   * Writes a {@link String}, which may be {@code null}.
+   *
+   * @param value
+   *            the value to write
+   */
+  public void putString(final String value) {
+    if (value == null) {
+      putInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    putInt(bytes.length);
+    ensureRemaining(bytes.length);
+    buffer.put(bytes);
+  }
+
+  /**
+   * Writes a reference to a {@link Shopper}, which may be {@code null}.
+   *
+   * @param shopper
+   *            the shopper to write
+   */
+  public void putShopper(final Shopper shopper) {
+    putInt(shopper == null ? -1 : shopper.getUniqueID());
+  }
+
+  /**
+   * Writes a reference to an {@link AbstractGroceryStore}, which may be
+   * {@code null}.
+   *
+   * @param store
+   *            the store to write
+   */
+  public void putStore(final AbstractGroceryStore store) {
+    putInt(store == null ? -1 : store.getStoreID());
+  }
+
+  /**
+   * Writes a {@link GroceryInterface}. Its name, price, cost and handling
+   * rating are written the first time it is seen.
+   *
+   * @param grocery
+   *            the grocery to write
+   */
+  public void putGrocery(final GroceryInterface grocery) {
+    if (grocery == null) {
+      throw new NullPointerException();
+    }
+    Integer index = groceries.get(grocery);
+    if (index != null) {
+      putInt(index);
+      return;
+    }
+    putInt(groceries.size());
+    groceries.put(grocery, groceries.size());
+    putString(grocery.getName());
+    putDouble(grocery.getPrice());
+    putDouble(grocery.getCost());
+    putDouble(grocery.getHandlingRating());
+  }
+
+  /**
+   * Writes a {@link Transaction}. Its {@link Shopper}, time steps, start time
+   * and receipt are written the first time it is seen.
+   *
+   * @param transaction
+   *            the transaction to write
+   */
+  public void putTransaction(final Transaction transaction) {
+    if (transaction == null) {
+      throw new NullPointerException();
+    }
+    Integer index = transactions.get(transaction);
+    if (index != null) {
+      putInt(index);
+      return;
+    }
+    putInt(transactions.size());
+    transactions.put(transaction, transactions.size());
+    putShopper(transaction.getShopper());
+    putInt(transaction.getTimeSteps());
+    putInt(transaction.getStartTime());
+    AbstractReceipt receipt = transaction.getReceipt();
+    putDouble(receipt.getDiscount());
+    putDouble(receipt.getSubtotal());
+    putDouble(receipt.getSaleValue());
+    List<GroceryInterface> items = receipt.getGroceries();
+    putInt(items.size());
+    for (GroceryInterface g : items) {
+      putGrocery(g);
+    }
+  }
+
+  /**
+   * Returns a read only view of everything written so far.
+   *
+   * @return a read only view of everything written so far
+   */
+  ByteBuffer toByteBuffer() {
+    ByteBuffer written = buffer.duplicate();
+    written.flip();
+    return written.asReadOnlyBuffer();
+  }
+
+  /**
+   * Grows the buffer until it can hold {@code bytes} more bytes.
+   *
+   * @param bytes
+   *            the number of bytes about to be written
+   */
+  private void ensureRemaining(final int bytes) {
+    if (buffer.remaining() >= bytes) {
+      return;
+    }
+    int capacity = buffer.capacity();
+    while (capacity - buffer.position() < bytes) {
+      capacity *= 2;
+    }
+    ByteBuffer grown = ByteBuffer.allocate(capacity);
+    buffer.flip();
+    grown.put(buffer);
+    buffer = grown;
+  }
+
+}
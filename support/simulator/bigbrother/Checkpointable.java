@@ -0,0 +1,41 @@
+package simulator.bigbrother;
+
+/**
+ * <p>
+ * A {@link simulator.world.World}, {@link simulator.store.AbstractGroceryStore}
+ * or {@link simulator.checkout.AbstractRegister} that keeps state of its own
+ * implements {@link Checkpointable} so that state is included in a
+ * {@link Checkpoint}.
+ * </p>
+ * <p>
+ * Everything {@link BigBrother} knows about is saved without help: the clock,
+ * every {@link simulator.shopper.Shopper}, the contents of every line, the
+ * state of every register and the ratings of the social network. A
+ * {@link Checkpointable} only writes what it adds on top of that, and must
+ * read back exactly what it wrote, in the same order.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public interface Checkpointable {
+
+  /**
+   * Writes the state of this object to the specified
+   * {@link CheckpointWriter}.
+   *
+   * @param out
+   *            the writer to write to
+   */
+  void writeCheckpoint(CheckpointWriter out);
+
+  /**
+   * Restores the state of this object from the specified
+   * {@link CheckpointReader}.
+   *
+   * @param in
+   *            the reader to read from
+   */
+  void readCheckpoint(CheckpointReader in);
+
+}
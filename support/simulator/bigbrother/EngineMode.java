@@ -0,0 +1,26 @@
+package simulator.bigbrother;
+
+/**
+ * An {@link EngineMode} determines how {@link BigBrother} advances time.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public enum EngineMode {
+
+  /**
+   * Every time step is visited. The world, every register, every shopper and
+   * every store tick once per time step.
+   */
+  TICK,
+
+  /**
+   * Only time steps at which something can happen are visited. These are
+   * {@link simulator.shopper.Shopper} arrivals, completed
+   * {@link simulator.checkout.Transaction}s, irate timeouts and store wake up
+   * times. The time steps in between are skipped, producing the same totals
+   * as {@link EngineMode#TICK}.
+   */
+  DISCRETE_EVENT
+
+}
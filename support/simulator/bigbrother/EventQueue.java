@@ -0,0 +1,118 @@
+package simulator.bigbrother;
+
+import java.util.Arrays;
+
+/**
+ * A time ordered queue of the time steps at which {@link BigBrother} must
+ * wake up when running in {@link EngineMode#DISCRETE_EVENT}. Times are kept
+ * in a binary min-heap of primitive ints so scheduling an event does not
+ * allocate once the heap has grown to its working size.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+final class EventQueue {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] heap = new int[INITIAL_CAPACITY];
+
+  private int size;
+
+  /**
+   * Schedules an event at the specified time.
+   *
+   * @param time
+   *            the time step of the event
+   */
+  void schedule(final int time) {
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    int index = size++;
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (heap[parent] <= time) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index = parent;
+    }
+    heap[index] = time;
+  }
+
+  /**
+   * Returns the earliest time strictly after {@code time}, discarding every
+   * event scheduled at or before {@code time}. If no such event exists,
+   * {@link Integer#MAX_VALUE} is returned.
+   *
+   * @param time
+   *            the current time
+   * @return the earliest scheduled time after {@code time}
+   */
+  int nextAfter(final int time) {
+    while (size > 0 && heap[0] <= time) {
+      removeFirst();
+    }
+    return size == 0 ? Integer.MAX_VALUE : heap[0];
+  }
+
+  /**
+   * Removes every scheduled event.
+   */
+  void clear() {
+    size = 0;
+  }
+
+  /**
+   * Writes every scheduled event to the specified {@link CheckpointWriter}.
+   *
+   * @param out
+   *            the writer to write to
+   */
+  void writeCheckpoint(final CheckpointWriter out) {
+    out.putInt(size);
+    for (int i = 0; i < size; i++) {
+      out.putInt(heap[i]);
+    }
+  }
+
+  /**
+   * Replaces every scheduled event with the events read from the specified
+   * {@link CheckpointReader}.
+   *
+   * @param in
+   *            the reader to read from
+   */
+  void readCheckpoint(final CheckpointReader in) {
+    int count = in.getInt();
+    heap = new int[Math.max(INITIAL_CAPACITY, count)];
+    // The heap was written in heap order, so it is still a heap
+    for (int i = 0; i < count; i++) {
+      heap[i] = in.getInt();
+    }
+    size = count;
+  }
+
+  /**
+   * Removes the earliest event from the heap.
+   */
+  private void removeFirst() {
+    int last = heap[--size];
+    int index = 0;
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      if (child + 1 < size && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (last <= heap[child]) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = last;
+  }
+
+}
@@ -0,0 +1,73 @@
+package simulator.bigbrother;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * A {@link FixedPointAdder} sums amounts of money without locks. Each amount
+ * is rounded to a millionth and added as a {@code long} to a
+ * {@link LongAdder}, whose cells are striped across threads so concurrent
+ * writers do not contend on one variable.
+ * </p>
+ * <p>
+ * Unlike a sum of {@code double}s, the sum does not depend on the order of
+ * the additions, so totals written from several threads are the same on
+ * every run.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class FixedPointAdder {
+
+  private static final double SCALE = 1e6;
+
+  private final LongAdder units = new LongAdder();
+
+  /**
+   * Adds the specified amount.
+   *
+   * @param amount
+   *            the amount to add
+   * @throws IllegalArgumentException
+   *             if {@code amount} is infinite or not a number
+   */
+  public void add(final double amount) {
+    if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+      throw new IllegalArgumentException("Cannot add " + amount + ".");
+    }
+    units.add(Math.round(amount * SCALE));
+  }
+
+  /**
+   * Returns the sum of the added amounts. The sum is only exact if no amount
+   * is being added concurrently.
+   *
+   * @return the sum of the added amounts
+   */
+  public double sum() {
+    return units.sum() / SCALE;
+  }
+
+  /**
+   * Returns the sum in millionths, which is what a checkpoint stores.
+   *
+   * @return the sum in millionths
+   */
+  public long getUnits() {
+    return units.sum();
+  }
+
+  /**
+   * Replaces the sum by the specified number of millionths. This must not
+   * be called while amounts are being added.
+   *
+   * @param sum
+   *            the sum in millionths
+   */
+  public void setUnits(final long sum) {
+    units.reset();
+    units.add(sum);
+  }
+
+}
@@ -0,0 +1,32 @@
+package simulator.bigbrother;
+
+/**
+ * A {@link ForkBranch} is one what-if variant of a {@link SimulationFork}. It
+ * is called with a simulation that has just been restored to the time of the
+ * fork, may change it, for example by turning on more registers, and then runs
+ * it. It is called with the branch's {@link SimulationContext} as the current
+ * context, so anything it constructs registers with the branch.
+ *
+ * @param <T>
+ *            the type of the scenario created by the fork's set up code
+ * @param <R>
+ *            the type of the branch's result
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public interface ForkBranch<T, R> {
+
+  /**
+   * Changes and runs the specified branch.
+   *
+   * @param context
+   *            the branch's simulation, restored to the time of the fork
+   * @param scenario
+   *            what the set up code returned for this branch, such as its
+   *            stores
+   * @return the result of the branch
+   */
+  R run(SimulationContext context, T scenario);
+
+}
@@ -0,0 +1,56 @@
+package simulator.bigbrother;
+
+import java.util.function.Consumer;
+
+/**
+ * A {@link PeriodicCallback} is called by {@link BigBrother} at every time
+ * step that is a multiple of its period.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+final class PeriodicCallback {
+
+  private final int period;
+  private final Consumer<BigBrother> callback;
+
+  /**
+   * Creates a {@link PeriodicCallback}.
+   *
+   * @param period
+   *            the number of time steps between calls
+   * @param callback
+   *            the callback to call
+   */
+  PeriodicCallback(final int period, final Consumer<BigBrother> callback) {
+    this.period = period;
+    this.callback = callback;
+  }
+
+  /**
+   * Returns the first multiple of the period after {@code time}.
+   *
+   * @param time
+   *            the current time
+   * @return the first multiple of the period after {@code time}
+   */
+  int nextCallTime(final int time) {
+    long next = ((long) time / period + 1) * period;
+    return (int) Math.min(next, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Calls the callback if {@code time} is a multiple of the period.
+   *
+   * @param bigBrother
+   *            the {@link BigBrother} that reached {@code time}
+   * @param time
+   *            the current time
+   */
+  void callIfDue(final BigBrother bigBrother, final int time) {
+    if (time % period == 0) {
+      callback.accept(bigBrother);
+    }
+  }
+
+}
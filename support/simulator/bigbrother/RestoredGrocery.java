@@ -0,0 +1,59 @@
+package simulator.bigbrother;
+
+import simulator.grocery.GroceryInterface;
+
+/**
+ * A {@link GroceryInterface} read back from a {@link Checkpoint}. It has the
+ * same name, price, cost and handling rating as the grocery that was written.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+final class RestoredGrocery implements GroceryInterface {
+
+  private final String name;
+  private final double price;
+  private final double cost;
+  private final double handling;
+
+  /**
+   * Creates a {@link RestoredGrocery}.
+   *
+   * @param name
+   *            the name of the grocery
+   * @param price
+   *            the price of the grocery
+   * @param cost
+   *            the cost of the grocery
+   * @param handling
+   *            the handling rating of the grocery
+   */
+  RestoredGrocery(final String name, final double price, final double cost,
+      final double handling) {
+    this.name = name;
+    this.price = price;
+    this.cost = cost;
+    this.handling = handling;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public double getPrice() {
+    return price;
+  }
+
+  @Override
+  public double getCost() {
+    return cost;
+  }
+
+  @Override
+  public double getHandlingRating() {
+    return handling;
+  }
+
+}
@@ -0,0 +1,49 @@
+package simulator.bigbrother;
+
+import java.util.List;
+
+import simulator.checkout.AbstractReceipt;
+import simulator.grocery.GroceryInterface;
+
+/**
+ * An {@link AbstractReceipt} read back from a {@link Checkpoint}. The subtotal
+ * and sale value are the ones the original receipt reported.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+final class RestoredReceipt extends AbstractReceipt {
+
+  private final double subtotal;
+  private final double saleValue;
+
+  /**
+   * Creates a {@link RestoredReceipt}.
+   *
+   * @param groceries
+   *            the groceries on the receipt
+   * @param discount
+   *            the discount of the receipt
+   * @param subtotal
+   *            the subtotal of the receipt
+   * @param saleValue
+   *            the sale value of the receipt
+   */
+  RestoredReceipt(final List<GroceryInterface> groceries, final double discount,
+      final double subtotal, final double saleValue) {
+    super(groceries, discount);
+    this.subtotal = subtotal;
+    this.saleValue = saleValue;
+  }
+
+  @Override
+  public double getSubtotal() {
+    return subtotal;
+  }
+
+  @Override
+  public double getSaleValue() {
+    return saleValue;
+  }
+
+}
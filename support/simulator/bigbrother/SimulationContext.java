@@ -0,0 +1,316 @@
+package simulator.bigbrother;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+import simulator.checkout.TransactionLog;
+import simulator.grocery.GroceryCatalog;
+import simulator.random.RandomStreams;
+import simulator.shopper.MyFacePagePlus;
+import simulator.shopper.ShopperPopulation;
+import simulator.world.World;
+
+/**
+ * <p>
+ * A {@link SimulationContext} owns everything that makes up a single
+ * simulation: the {@link BigBrother} that keeps the clock and the registries,
+ * the {@link World}, the {@link MyFacePagePlus} social network and the
+ * {@link RandomStreams} every random number is drawn from. Any number of
+ * {@link SimulationContext}s may exist in the same process, one after
+ * another or at the same time.
+ * </p>
+ * <p>
+ * {@link simulator.shopper.Shopper}s, {@link simulator.checkout.AbstractRegister}s,
+ * {@link simulator.store.AbstractGroceryStore}s and {@link World}s register
+ * with the context that is current on the constructing thread. Unless
+ * another context has been made current with {@link #run(Runnable)} or
+ * {@link #call(Supplier)}, this is the default context, so a program that only
+ * runs one simulation never needs to create a {@link SimulationContext}.
+ * </p>
+ *
+ * <pre>
+ * SimulationContext context = new SimulationContext();
+ * AbstractGroceryStore store = context.call(() -&gt; {
+ *   new SimpleWorld(15);
+ *   return Configuration.getProfitableStore();
+ * });
+ * while (!context.getBigBrother().tick());
+ * </pre>
+ * <p>
+ * A {@link SimulationContext} running its stores on several threads, or
+ * logging {@link simulator.checkout.Transaction}s to a file, should be
+ * closed once it is no longer advanced. Its results can still be read.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class SimulationContext implements AutoCloseable {
+
+  private static final SimulationContext DEFAULT_CONTEXT = new SimulationContext();
+
+  private static final ThreadLocal<SimulationContext> CURRENT =
+      new ThreadLocal<SimulationContext>();
+
+  private final RandomStreams randomStreams;
+
+  private final BigBrother bigBrother;
+
+  private final MyFacePagePlus socialNetwork;
+
+  private final GroceryCatalog groceryCatalog = new GroceryCatalog();
+
+  private final ShopperPopulation shopperPopulation;
+
+  private TransactionLog transactionLog;
+
+  private volatile boolean transactionLogging;
+
+  private int nextShopperID;
+
+  /**
+   * Constructs a new, empty {@link SimulationContext} with its own
+   * {@link BigBrother} and {@link MyFacePagePlus}, drawing random numbers
+   * from {@link RandomStreams#DEFAULT_SEED}.
+   */
+  public SimulationContext() {
+    this(new RandomStreams(RandomStreams.DEFAULT_SEED));
+  }
+
+  /**
+   * Constructs a new, empty {@link SimulationContext} with its own
+   * {@link BigBrother} and {@link MyFacePagePlus}, drawing random numbers
+   * from the specified {@link RandomStreams}.
+   *
+   * @param randomStreams
+   *            the streams every random number is drawn from
+   */
+  public SimulationContext(final RandomStreams randomStreams) {
+    if (randomStreams == null) {
+      throw new NullPointerException();
+    }
+    this.randomStreams = randomStreams;
+    this.shopperPopulation = new ShopperPopulation(this);
+    this.bigBrother = new BigBrother(this);
+    this.socialNetwork = new MyFacePagePlus(this);
+  }
+
+  /**
+   * Returns the {@link SimulationContext} that is current on the calling
+   * thread.
+   *
+   * @return the {@link SimulationContext} that is current on the calling
+   *         thread
+   */
+  public static SimulationContext current() {
+    SimulationContext context = CURRENT.get();
+    return context == null ? DEFAULT_CONTEXT : context;
+  }
+
+  /**
+   * Makes the specified {@link SimulationContext} current on the calling
+   * thread.
+   *
+   * @param context
+   *            the context to make current
+   * @return the previously current context, to be passed to
+   *         {@link #exit(SimulationContext)}
+   */
+  static SimulationContext enter(final SimulationContext context) {
+    SimulationContext previous = CURRENT.get();
+    CURRENT.set(context);
+    return previous;
+  }
+
+  /**
+   * Restores the {@link SimulationContext} that was current before
+   * {@link #enter(SimulationContext)} was called.
+   *
+   * @param previous
+   *            the value returned by {@link #enter(SimulationContext)}
+   */
+  static void exit(final SimulationContext previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+
+  /**
+   * Runs the specified task with this {@link SimulationContext} as the
+   * current context. Everything constructed by the task registers with this
+   * context.
+   *
+   * @param task
+   *            the task to run
+   */
+  public void run(final Runnable task) {
+    if (task == null) {
+      throw new NullPointerException();
+    }
+    SimulationContext previous = enter(this);
+    try {
+      task.run();
+    } finally {
+      exit(previous);
+    }
+  }
+
+  /**
+   * Runs the specified task with this {@link SimulationContext} as the
+   * current context and returns its result. Everything constructed by the
+   * task registers with this context.
+   *
+   * @param <T>
+   *            the type of the result
+   * @param task
+   *            the task to run
+   * @return the result of the task
+   */
+  public <T> T call(final Supplier<T> task) {
+    if (task == null) {
+      throw new NullPointerException();
+    }
+    SimulationContext previous = enter(this);
+    try {
+      return task.get();
+    } finally {
+      exit(previous);
+    }
+  }
+
+  /**
+   * Returns the {@link BigBrother} watching this simulation.
+   *
+   * @return the {@link BigBrother} watching this simulation
+   */
+  public BigBrother getBigBrother() {
+    return bigBrother;
+  }
+
+  /**
+   * Returns the {@link MyFacePagePlus} social network of this simulation.
+   *
+   * @return the {@link MyFacePagePlus} social network of this simulation
+   */
+  public MyFacePagePlus getSocialNetwork() {
+    return socialNetwork;
+  }
+
+  /**
+   * Returns the {@link World} of this simulation. If no {@link World} has
+   * been constructed an {@link IllegalStateException} will be thrown.
+   *
+   * @return the {@link World} of this simulation
+   */
+  public World getWorld() {
+    return bigBrother.getWorld();
+  }
+
+  /**
+   * Returns the {@link RandomStreams} every random number of this simulation
+   * is drawn from.
+   *
+   * @return the {@link RandomStreams} of this simulation
+   */
+  public RandomStreams getRandomStreams() {
+    return randomStreams;
+  }
+
+  /**
+   * Returns the {@link GroceryCatalog} the baskets of this simulation's
+   * {@link simulator.shopper.Shopper}s refer to.
+   *
+   * @return the {@link GroceryCatalog} of this simulation
+   */
+  public GroceryCatalog getGroceryCatalog() {
+    return groceryCatalog;
+  }
+
+  /**
+   * Returns the {@link ShopperPopulation} holding the state of every
+   * {@link simulator.shopper.Shopper} of this simulation.
+   *
+   * @return the {@link ShopperPopulation} of this simulation
+   */
+  public ShopperPopulation getShopperPopulation() {
+    return shopperPopulation;
+  }
+
+  /**
+   * Returns {@code true} if {@link simulator.checkout.AbstractRegister}s
+   * created from now on keep their {@link simulator.checkout.Transaction}s in
+   * the {@link TransactionLog} and {@code false} if they keep them on the
+   * heap, which is the default.
+   *
+   * @return {@code true} if new registers log their transactions
+   */
+  public boolean isTransactionLogging() {
+    return transactionLogging;
+  }
+
+  /**
+   * Sets whether {@link simulator.checkout.AbstractRegister}s created from now
+   * on keep their {@link simulator.checkout.Transaction}s in the
+   * {@link TransactionLog} instead of on the heap. A logging register takes
+   * constant heap space however many shoppers it serves, but
+   * {@link simulator.checkout.AbstractRegister#getTransactions()} then returns
+   * {@link simulator.checkout.Transaction}s rebuilt from the log rather than
+   * the ones the register created. Registers that already exist are not
+   * affected.
+   *
+   * @param logging
+   *            {@code true} if new registers should log their transactions
+   */
+  public void setTransactionLogging(final boolean logging) {
+    this.transactionLogging = logging;
+  }
+
+  /**
+   * Returns the {@link TransactionLog} the logging
+   * {@link simulator.checkout.AbstractRegister}s of this simulation append
+   * their {@link simulator.checkout.Transaction}s to. The log is created the
+   * first time it is needed.
+   *
+   * @return the {@link TransactionLog} of this simulation
+   */
+  public synchronized TransactionLog getTransactionLog() {
+    if (transactionLog == null) {
+      transactionLog = new TransactionLog(this);
+    }
+    return transactionLog;
+  }
+
+  /**
+   * Stops the threads ticking the stores of this simulation and closes its
+   * {@link TransactionLog}. The simulation can still be read but should not be
+   * advanced any further.
+   *
+   * @throws UncheckedIOException
+   *             if the transaction log could not be closed
+   */
+  @Override
+  public synchronized void close() {
+    bigBrother.close();
+    if (transactionLog != null) {
+      try {
+        transactionLog.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Returns an identifier that no previously created
+   * {@link simulator.shopper.Shopper} of this simulation has.
+   *
+   * @return a new unique shopper identifier
+   */
+  public int nextShopperID() {
+    return nextShopperID++;
+  }
+
+}
@@ -0,0 +1,154 @@
+package simulator.bigbrother;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A {@link SimulationFork} splits a running simulation into independent
+ * what-if branches. The simulation is captured once, at the time the fork is
+ * created, into an immutable {@link Checkpoint} that every branch shares.
+ * Each branch is a new {@link SimulationContext} built by the same set up code
+ * as the original and restored from that checkpoint, so the time before the
+ * fork is simulated only once, however many branches are run.
+ * </p>
+ *
+ * <pre>
+ * SimulationFork&lt;AbstractGroceryStore&gt; fork =
+ *     new SimulationFork&lt;AbstractGroceryStore&gt;(context, setUp);
+ * List&lt;Double&gt; profits = fork.runBranches(Arrays.asList(
+ *     (c, store) -&gt; run(c, store),
+ *     (c, store) -&gt; run(c, openTwoMoreRegisters(store))));
+ * </pre>
+ *
+ * @param <T>
+ *            the type of the scenario created by the set up code
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class SimulationFork<T> {
+
+  private final Checkpoint checkpoint;
+
+  private final Supplier<T> setUp;
+
+  private final SimulationContext source;
+
+  /**
+   * Forks the specified simulation at its current time. The set up code must
+   * build the simulation the same way it was originally built, i.e. create
+   * the same {@link simulator.world.World} and the same stores, registers and
+   * lines in the same order, and returns whatever the branches need to
+   * change and inspect it.
+   *
+   * @param source
+   *            the simulation to fork
+   * @param setUp
+   *            the code that built the simulation
+   * @throws IllegalStateException
+   *             if the simulation is in the middle of a time step
+   */
+  public SimulationFork(final SimulationContext source, final Supplier<T> setUp) {
+    if (source == null || setUp == null) {
+      throw new NullPointerException();
+    }
+    this.source = source;
+    this.setUp = setUp;
+    this.checkpoint = Checkpoint.capture(source);
+  }
+
+  /**
+   * Returns the time step at which the simulation was forked.
+   *
+   * @return the time step at which the simulation was forked
+   */
+  public int getTime() {
+    return checkpoint.getTime();
+  }
+
+  /**
+   * Creates a new branch on the calling thread and runs it.
+   *
+   * @param <R>
+   *            the type of the branch's result
+   * @param branch
+   *            the branch to run
+   * @return the result of the branch
+   */
+  public <R> R runBranch(final ForkBranch<T, R> branch) {
+    if (branch == null) {
+      throw new NullPointerException();
+    }
+    // Shoppers arriving after the fork draw from the same streams
+    final SimulationContext context =
+        new SimulationContext(source.getRandomStreams());
+    try {
+      final T scenario = context.call(setUp);
+      checkpoint.restore(context);
+      return context.call(() -> branch.run(context, scenario));
+    } finally {
+      context.close();
+    }
+  }
+
+  /**
+   * Runs every specified branch on its own thread and waits for all of them
+   * to finish. If a branch throws an exception, it is rethrown on the calling
+   * thread.
+   *
+   * @param <R>
+   *            the type of the branches' results
+   * @param branches
+   *            the branches to run
+   * @return the results of the branches, in the same order as the branches
+   */
+  public <R> List<R> runBranches(final List<? extends ForkBranch<T, R>> branches) {
+    if (branches == null) {
+      throw new NullPointerException();
+    }
+    List<Callable<R>> tasks = new ArrayList<Callable<R>>(branches.size());
+    for (final ForkBranch<T, R> branch : branches) {
+      if (branch == null) {
+        throw new NullPointerException();
+      }
+      tasks.add(() -> runBranch(branch));
+    }
+    if (tasks.isEmpty()) {
+      return new ArrayList<R>();
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), r -> {
+      Thread t = new Thread(r, "fork-branch");
+      t.setDaemon(true);
+      return t;
+    });
+    try {
+      List<R> results = new ArrayList<R>(tasks.size());
+      for (Future<R> f : executor.invokeAll(tasks)) {
+        results.add(f.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while running branches.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,216 @@
+package simulator.bigbrother;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import simulator.checkout.AbstractReceipt;
+import simulator.checkout.Transaction;
+
+/**
+ * <p>
+ * A {@link StoreLedger} keeps running totals of the {@link Transaction}s
+ * completed in one {@link simulator.store.AbstractGroceryStore}. Each
+ * {@link Transaction} is added exactly once, when its
+ * {@link simulator.shopper.Shopper} completes it, so reading a total takes
+ * constant time and no {@link Transaction} is retained.
+ * </p>
+ * <p>
+ * The totals are kept in {@link LongAdder}s and {@link FixedPointAdder}s, so
+ * {@link Transaction}s may be added from any thread without locks and the
+ * totals do not depend on the order they were added in. The getters return
+ * the totals as of the end of the last time step, which {@link BigBrother}
+ * publishes once every store has ticked, so all totals read during a time
+ * step are consistent with each other. A {@link Transaction} completed
+ * outside of a time step, for example by calling
+ * {@link simulator.checkout.AbstractRegister#processShopper(simulator.shopper.Shopper)}
+ * directly, is published as soon as it is added.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class StoreLedger {
+
+  private final LongAdder transactions = new LongAdder();
+  private final LongAdder irate = new LongAdder();
+  private final LongAdder timeSteps = new LongAdder();
+  private final LongAdder waitingTime = new LongAdder();
+  private final FixedPointAdder subtotal = new FixedPointAdder();
+  private final FixedPointAdder sales = new FixedPointAdder();
+  private final FixedPointAdder cost = new FixedPointAdder();
+
+  private volatile Totals totals = new Totals(this);
+
+  /**
+   * Adds the specified {@link Transaction} to the totals. It is visible to
+   * the getters once the totals are published.
+   *
+   * @param t
+   *            the completed transaction
+   */
+  void add(final Transaction t) {
+    AbstractReceipt receipt = t.getReceipt();
+    transactions.increment();
+    if (t.getShopper().isIrate()) {
+      irate.increment();
+    }
+    timeSteps.add(t.getTimeSteps());
+    waitingTime.add(t.getShopper().getWaitingTime());
+    subtotal.add(receipt.getSubtotal());
+    sales.add(receipt.getSaleValue());
+    cost.add(receipt.getBasketSummary().getCost());
+  }
+
+  /**
+   * Makes the current totals visible to the getters. This is called by
+   * {@link BigBrother} at the end of every time step, when no
+   * {@link Transaction} is being added.
+   */
+  void publish() {
+    if (transactions.sum() != totals.transactions) {
+      totals = new Totals(this);
+    }
+  }
+
+  /**
+   * Returns the number of completed {@link Transaction}s.
+   *
+   * @return the number of completed transactions
+   */
+  public long getTransactionCount() {
+    return totals.transactions;
+  }
+
+  /**
+   * Returns the number of completed {@link Transaction}s of
+   * {@link simulator.shopper.Shopper}s who were irate.
+   *
+   * @return the number of irate shoppers served
+   */
+  public long getIrateCount() {
+    return totals.irate;
+  }
+
+  /**
+   * Returns the sum of the time steps of every completed {@link Transaction}.
+   *
+   * @return the total time spent at the registers
+   */
+  public long getTotalTimeSteps() {
+    return totals.timeSteps;
+  }
+
+  /**
+   * Returns the sum of the waiting times the {@link simulator.shopper.Shopper}s
+   * had when they completed their {@link Transaction}.
+   *
+   * @return the total waiting time of the served shoppers
+   */
+  public long getTotalWaitingTime() {
+    return totals.waitingTime;
+  }
+
+  /**
+   * Returns the average waiting time of the served
+   * {@link simulator.shopper.Shopper}s, or 0 if no one was served.
+   *
+   * @return the average waiting time of the served shoppers
+   */
+  public double getAverageWaitingTime() {
+    Totals current = totals;
+    return current.transactions == 0 ? 0
+        : (double) current.waitingTime / current.transactions;
+  }
+
+  /**
+   * Returns the sum of the sub-totals of every completed {@link Transaction}.
+   *
+   * @return the total sub-total
+   */
+  public double getTotalSubtotal() {
+    return totals.subtotal;
+  }
+
+  /**
+   * Returns the sum of the sale values of every completed
+   * {@link Transaction}.
+   *
+   * @return the total sales
+   */
+  public double getTotalSales() {
+    return totals.sales;
+  }
+
+  /**
+   * Returns the sum of the costs of the groceries sold.
+   *
+   * @return the total cost of the groceries sold
+   */
+  public double getTotalGroceryCost() {
+    return totals.cost;
+  }
+
+  /**
+   * Writes the totals to the specified {@link CheckpointWriter}.
+   *
+   * @param out
+   *            the writer to write to
+   */
+  void writeCheckpoint(final CheckpointWriter out) {
+    out.putLong(transactions.sum());
+    out.putLong(irate.sum());
+    out.putLong(timeSteps.sum());
+    out.putLong(waitingTime.sum());
+    out.putLong(subtotal.getUnits());
+    out.putLong(sales.getUnits());
+    out.putLong(cost.getUnits());
+  }
+
+  /**
+   * Restores and publishes the totals from the specified
+   * {@link CheckpointReader}.
+   *
+   * @param in
+   *            the reader to read from
+   */
+  void readCheckpoint(final CheckpointReader in) {
+    set(transactions, in.getLong());
+    set(irate, in.getLong());
+    set(timeSteps, in.getLong());
+    set(waitingTime, in.getLong());
+    subtotal.setUnits(in.getLong());
+    sales.setUnits(in.getLong());
+    cost.setUnits(in.getLong());
+    totals = new Totals(this);
+  }
+
+  private static void set(final LongAdder adder, final long value) {
+    adder.reset();
+    adder.add(value);
+  }
+
+  /**
+   * The totals of a {@link StoreLedger} at the end of a time step.
+   */
+  private static final class Totals {
+
+    private final long transactions;
+    private final long irate;
+    private final long timeSteps;
+    private final long waitingTime;
+    private final double subtotal;
+    private final double sales;
+    private final double cost;
+
+    Totals(final StoreLedger ledger) {
+      this.transactions = ledger.transactions.sum();
+      this.irate = ledger.irate.sum();
+      this.timeSteps = ledger.timeSteps.sum();
+      this.waitingTime = ledger.waitingTime.sum();
+      this.subtotal = ledger.subtotal.sum();
+      this.sales = ledger.sales.sum();
+      this.cost = ledger.cost.sum();
+    }
+
+  }
+
+}
@@ -0,0 +1,125 @@
+package simulator.bigbrother;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import simulator.store.AbstractGroceryStore;
+
+/**
+ * A {@link StorePhase} ticks the {@link AbstractGroceryStore}s of a
+ * simulation on a fixed number of worker threads. Store {@code i} is always
+ * ticked by worker {@code i % threads}, and {@link #tick(List)} does not
+ * return before every worker has finished, acting as a per-tick barrier. The
+ * workers are started by the first tick and stopped by {@link #shutdown()};
+ * a later tick starts them again.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+final class StorePhase {
+
+  private final SimulationContext context;
+  private final int threads;
+  private ExecutorService executor;
+
+  /**
+   * Creates a {@link StorePhase} with the specified number of worker threads.
+   *
+   * @param context
+   *            the {@link SimulationContext} the stores belong to
+   * @param threads
+   *            the number of worker threads
+   */
+  StorePhase(final SimulationContext context, final int threads) {
+    this.context = context;
+    this.threads = threads;
+  }
+
+  /**
+   * Returns the number of worker threads.
+   *
+   * @return the number of worker threads
+   */
+  int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Ticks every specified store and waits for all of them to finish. If a
+   * store throws an exception, it is rethrown on the calling thread.
+   *
+   * @param stores
+   *            the stores to tick, in registration order
+   */
+  void tick(final List<AbstractGroceryStore> stores) {
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(threads);
+    for (int worker = 0; worker < threads && worker < stores.size(); worker++) {
+      final int first = worker;
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          SimulationContext previous = SimulationContext.enter(context);
+          try {
+            for (int i = first; i < stores.size(); i += threads) {
+              stores.get(i).runTick();
+            }
+          } finally {
+            SimulationContext.exit(previous);
+          }
+          return null;
+        }
+      });
+    }
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable r) {
+          Thread t = new Thread(r, "store-phase");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    List<Future<Void>> done;
+    try {
+      done = executor.invokeAll(tasks);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while ticking stores.", e);
+    }
+    for (Future<Void> f : done) {
+      try {
+        f.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while ticking stores.", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+  }
+
+  /**
+   * Stops the worker threads, if they are running.
+   */
+  void shutdown() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+}
@@ -0,0 +1,187 @@
+package simulator.bigbrother;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadFactory;
+
+import simulator.store.AbstractGroceryStore;
+
+/**
+ * <p>
+ * {@link StoreThreads} ticks every {@link AbstractGroceryStore} of a
+ * simulation on a thread of its own, which lives as long as the simulation.
+ * The threads are coordinated by two {@link Phaser}s acting as a clock: the
+ * start clock releases every store thread at the beginning of a tick and the
+ * done clock lets {@link BigBrother} wait until the last store has finished.
+ * A store whose tick is slow only delays the end of the tick, not the other
+ * stores.
+ * </p>
+ * <p>
+ * The threads are virtual threads when the virtual machine supports them, so
+ * tens of thousands of stores do not need as many platform threads. Store
+ * threads arrive on tiers of {@link #TIER_SIZE} stores, since a single
+ * {@link Phaser} is limited to 65535 parties.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+final class StoreThreads {
+
+  /**
+   * The number of store threads that arrive on the same tier of the done
+   * clock.
+   */
+  static final int TIER_SIZE = 1024;
+
+  private final SimulationContext context;
+  private final ThreadFactory factory;
+  private final Phaser start = new Phaser(1);
+  private final Phaser done = new Phaser(1);
+  private final List<Phaser> tiers = new ArrayList<Phaser>();
+  private final List<Thread> threads = new ArrayList<Thread>();
+  private Throwable[] failures = new Throwable[0];
+
+  /**
+   * Creates a {@link StoreThreads} whose store threads are made by the
+   * specified {@link ThreadFactory}.
+   *
+   * @param context
+   *            the {@link SimulationContext} the stores belong to
+   * @param factory
+   *            the factory of the store threads
+   */
+  StoreThreads(final SimulationContext context, final ThreadFactory factory) {
+    if (context == null || factory == null) {
+      throw new NullPointerException();
+    }
+    this.context = context;
+    this.factory = factory;
+  }
+
+  /**
+   * Returns a {@link ThreadFactory} making virtual threads, or {@code null}
+   * if the virtual machine does not support them. The factory is looked up
+   * reflectively so the simulator still runs on older virtual machines.
+   *
+   * @return a factory of virtual threads or {@code null}
+   */
+  static ThreadFactory virtualThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> type = Class.forName("java.lang.Thread$Builder");
+      return (ThreadFactory) type.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the factory of the store threads.
+   *
+   * @return the factory of the store threads
+   */
+  ThreadFactory getFactory() {
+    return factory;
+  }
+
+  /**
+   * Returns the number of store threads.
+   *
+   * @return the number of store threads
+   */
+  int getThreads() {
+    return threads.size();
+  }
+
+  /**
+   * Ticks every specified store on its own thread and waits for all of them
+   * to finish. Threads are started for stores that were registered since
+   * the last tick. If stores throw exceptions, the one of the first such
+   * store is rethrown on the calling thread.
+   *
+   * @param stores
+   *            the stores to tick, in registration order
+   */
+  void tick(final List<AbstractGroceryStore> stores) {
+    while (threads.size() < stores.size()) {
+      startThread(threads.size(), stores.get(threads.size()));
+    }
+    start.arrive();
+    try {
+      done.awaitAdvanceInterruptibly(done.arrive());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while ticking stores.", e);
+    }
+    for (int i = 0; i < failures.length; i++) {
+      Throwable cause = failures[i];
+      if (cause == null) {
+        continue;
+      }
+      failures = new Throwable[failures.length];
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Stops every store thread.
+   */
+  void shutdown() {
+    start.forceTermination();
+    done.forceTermination();
+  }
+
+  /**
+   * Starts the thread of the store with the specified identifier. The
+   * thread waits for the next tick of the start clock.
+   *
+   * @param id
+   *            the identifier of the store
+   * @param store
+   *            the store
+   */
+  private void startThread(final int id, final AbstractGroceryStore store) {
+    if (id % TIER_SIZE == 0) {
+      tiers.add(new Phaser(done, 0));
+    }
+    final Phaser tier = tiers.get(id / TIER_SIZE);
+    tier.register();
+    if (id >= failures.length) {
+      Throwable[] grown = new Throwable[Math.max(id + 1, 2 * failures.length)];
+      System.arraycopy(failures, 0, grown, 0, failures.length);
+      failures = grown;
+    }
+    final int first = start.getPhase();
+    Thread t = factory.newThread(new Runnable() {
+      @Override
+      public void run() {
+        SimulationContext previous = SimulationContext.enter(context);
+        try {
+          int phase = first;
+          while ((phase = start.awaitAdvance(phase)) >= 0) {
+            try {
+              store.runTick();
+            } catch (Throwable e) {
+              failures[id] = e;
+            }
+            tier.arrive();
+          }
+        } finally {
+          SimulationContext.exit(previous);
+        }
+      }
+    });
+    t.setName("store-" + id);
+    threads.add(t);
+    t.start();
+  }
+
+}
@@ -1,9 +1,11 @@
 package simulator.checkout;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
+import simulator.grocery.Basket;
+import simulator.grocery.BasketSummary;
 import simulator.grocery.GroceryInterface;
 
 /**
@@ -16,12 +18,14 @@ import simulator.grocery.GroceryInterface;
 public abstract class AbstractReceipt {
 
   private final List<GroceryInterface> groceries;
+  private volatile BasketSummary summary;
   private final double discount;
 
   /**
    * Creates a {@link AbstractReceipt} with the specified grocery list, and
    * discount. The discount given to a {@link Shopper} is a value in the range
-   * [0, 1] where 0 is no discount and 1 is a 100% discount.
+   * [0, 1] where 0 is no discount and 1 is a 100% discount. A
+   * {@link Basket} is shared, any other list is copied.
    *
    * @param groceries
    *            the {@link List} of {@link GroceryInterface} items purchased
@@ -40,15 +44,22 @@ public abstract class AbstractReceipt {
       throw new IllegalArgumentException(
           "Discount must be in the range [0, 1].");
     }
-    this.groceries = Collections.unmodifiableList(new LinkedList<GroceryInterface>(
-        groceries));
+    if (groceries instanceof Basket) {
+      // A Basket is immutable, so it is shared along with its summary
+      this.groceries = groceries;
+    } else {
+      this.groceries = Collections.unmodifiableList(Arrays.asList(
+          groceries.toArray(new GroceryInterface[groceries.size()])));
+    }
     this.discount = discount;
   }
 
   /**
    * Returns an immutable {@link List} of {@link GroceryInterface} items on this
    * {@link AbstractReceipt}. Any attempt to modify the list will result in an
-   * exception being thrown.
+   * exception being thrown. The items of a receipt made from a {@link Basket}
+   * are the interned items of the basket, as described by
+   * {@link simulator.shopper.Shopper#getShoppingList()}.
    *
    * @return an immutable {@link List} of {@link GroceryInterface} items on this
    *         {@link AbstractReceipt}.
@@ -57,6 +68,27 @@ public abstract class AbstractReceipt {
     return groceries;
   }
 
+  /**
+   * Returns the {@link BasketSummary} of the {@link GroceryInterface} items on
+   * this {@link AbstractReceipt}. Its sub-total and cost are computed once,
+   * the first time they are needed, or taken from the {@link Basket} the
+   * {@link AbstractReceipt} was created from.
+   *
+   * @return the {@link BasketSummary} of this {@link AbstractReceipt}
+   * @throws NullPointerException
+   *             if an item on this receipt is {@code null}
+   */
+  public final BasketSummary getBasketSummary() {
+    BasketSummary s = summary;
+    if (s == null) {
+      // Racing threads compute equal summaries, so either may be kept
+      s = groceries instanceof Basket ? ((Basket) groceries).getSummary()
+          : BasketSummary.of(groceries);
+      summary = s;
+    }
+    return s;
+  }
+
   /**
    * Returns the discount given to a {@link Shopper}. This is a value in the
    * range [0, 1] where 0 is no discount and 1 is a 100% discount.
@@ -1,13 +1,21 @@
 package simulator.checkout;
 
+import java.util.AbstractSequentialList;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
 
 import simulator.bigbrother.BigBrother;
 import simulator.bigbrother.BigBrotherIsWatchingYouException;
-import simulator.grocery.GroceryInterface;
+import simulator.bigbrother.CheckpointReader;
+import simulator.bigbrother.CheckpointWriter;
+import simulator.bigbrother.Checkpointable;
+import simulator.bigbrother.FixedPointAdder;
+import simulator.bigbrother.SimulationContext;
 import simulator.shopper.Shopper;
+import simulator.store.AbstractGroceryStore;
 
 /**
  * <p>
@@ -29,20 +37,51 @@ import simulator.shopper.Shopper;
  */
 public abstract class AbstractRegister {
 
-  private final List<Transaction> transactions = new LinkedList<Transaction>();
+  private static final double COST_PER_TICK = 0.15;
+
+  // The store of the shoppers served so far, if they all visited one store
+  private static final int ANY_STORE = -1;
+  private static final int SHARED = -2;
+
+  private final SimulationContext context;
+  private final int registerID;
+  // The transactions, or null if they are kept in the transaction log
+  private final List<Transaction> transactions;
+  private int firstRecord = TransactionLog.NO_RECORD;
+  private int lastRecord = TransactionLog.NO_RECORD;
+  private int transactionCount;
   private int transactionEndTime;
-  private double runningCost = 0;
+  private final FixedPointAdder runningCost = new FixedPointAdder();
+  private long runningTicks;
   private boolean running;
+  // Whether this register was given a shopper in a RegisterBatch
+  private boolean reserved;
+  private int storeID = ANY_STORE;
   /**
    * Constructs an {@link Abstract} and
-   * connects it to {@link BigBrother}.
+   * connects it to the {@link BigBrother} of the current
+   * {@link SimulationContext}.
    */
   protected AbstractRegister() {
     // Big Brother knows about all Registers
-    BigBrother.getBigBrother().registerRegister(this);
+    context = SimulationContext.current();
+    registerID = context.getBigBrother().registerRegister(this);
+    transactions = context.isTransactionLogging() ? null
+        : new ArrayList<Transaction>();
     running = false;
   }
 
+  /**
+   * Returns the {@link SimulationContext} this {@link AbstractRegister}
+   * belongs to.
+   *
+   * @return the {@link SimulationContext} this {@link AbstractRegister}
+   *         belongs to
+   */
+  protected final SimulationContext getContext() {
+    return context;
+  }
+
   /**
    * Processes a {@link Shopper} producing a {@link Transaction}. In addition
    * to processing the {@link Shopper} the running cost is increased relative
@@ -54,6 +93,25 @@ public abstract class AbstractRegister {
    * @return a {@link Transaction} for this customer
    */
   public final Transaction processShopper(final Shopper s) {
+    if (reserved) {
+      throw new BigBrotherIsWatchingYouException(
+          "This register is already being used.");
+    }
+    Transaction t = prepare(s);
+    commit(s, t);
+    return t;
+  }
+
+  /**
+   * Checks that this {@link AbstractRegister} may process the specified
+   * {@link Shopper} and creates their {@link Transaction}. Nothing is
+   * changed, so registers may prepare {@link Transaction}s concurrently.
+   *
+   * @param s
+   *            the shopper to process
+   * @return a {@link Transaction} for this customer
+   */
+  final Transaction prepare(final Shopper s) {
     if (!running) {
       throw new BigBrotherIsWatchingYouException(
           "You cannot process a shopper on a register that is turned off.");
@@ -62,27 +120,59 @@ public abstract class AbstractRegister {
       throw new NullPointerException();
     }
 
-    if (isBusy()) {
+    // A reserved register is only busy because of the shopper it prepares
+    if (context.getBigBrother().getTime() < transactionEndTime) {
       throw new BigBrotherIsWatchingYouException(
           "This register is already being used.");
     }
 
-    Transaction t = createTransaction(s);
-    double difficulty = 0.0;
+    return createTransaction(s);
+  }
 
-    for (GroceryInterface g : t.getReceipt().getGroceries()) {
-      difficulty += g.getHandlingRating();
-    }
+  /**
+   * Returns {@code true} if this {@link AbstractRegister} is turned on.
+   *
+   * @return {@code true} if this {@link AbstractRegister} is turned on
+   */
+  final boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Sets whether this {@link AbstractRegister} was given a {@link Shopper} in
+   * a {@link RegisterBatch}. A reserved register is busy.
+   *
+   * @param reserved
+   *            {@code true} if the register is reserved
+   */
+  final void setReserved(final boolean reserved) {
+    this.reserved = reserved;
+  }
+
+  /**
+   * Charges the running cost of the specified prepared {@link Transaction},
+   * keeps this {@link AbstractRegister} busy until it ends, logs it and
+   * completes it for the {@link Shopper}.
+   *
+   * @param s
+   *            the shopper being processed
+   * @param t
+   *            the transaction returned by {@link #prepare(Shopper)}
+   */
+  final void commit(final Shopper s, final Transaction t) {
+    double difficulty = t.getReceipt().getBasketSummary().getHandling();
 
     // The faster the processing is completed, the more expensive
     // it is to run the register
-    runningCost += (difficulty * 5000)
-        / (t.getTimeSteps() * t.getTimeSteps());
-    transactionEndTime = BigBrother.getBigBrother().getTime()
+    runningCost.add((difficulty * 5000)
+        / (t.getTimeSteps() * t.getTimeSteps()));
+    transactionEndTime = context.getBigBrother().getTime()
         + t.getTimeSteps();
-    transactions.add(t);
+    // The register becomes free again when the transaction completes
+    context.getBigBrother().wakeUpAt(transactionEndTime);
+    servedStore(s.getStore());
+    log(t);
     s.completeTransaction(t);
-    return t;
   }
 
   /**
@@ -91,7 +181,7 @@ public abstract class AbstractRegister {
    * @return the total running cost of this {@link AbstractRegister}
    */
   public final double getRunningCost() {
-    return runningCost;
+    return runningCost.sum() + COST_PER_TICK * runningTicks;
   }
 
   /**
@@ -99,34 +189,88 @@ public abstract class AbstractRegister {
    * This is called by {@link BigBrother} every time step.
    */
   public final void tick() {
+    tick(1);
+  }
+
+  /**
+   * Advances this {@link AbstractRegister} by the specified number of time
+   * steps. This is equivalent to calling {@link #tick()} {@code steps} times
+   * and is used by {@link BigBrother} to skip time steps in which nothing
+   * happens.
+   *
+   * @param steps
+   *            the number of time steps to advance
+   */
+  public final void tick(final int steps) {
     if (running) {
-      runningCost += 0.15;
+      runningTicks += steps;
     }
   }
 
   /**
    * Returns a {@link List} containing all transactions processed by this
-   * {@link AbstractRegister}. The returned list is an immutable view.
+   * {@link AbstractRegister}. The returned list is an immutable view. If the
+   * {@link SimulationContext} was logging transactions when this register
+   * was created, it is a view of the {@link TransactionLog} and each
+   * {@link Transaction} is rebuilt from the log when it is read, see
+   * {@link SimulationContext#setTransactionLogging(boolean)}.
    *
    * @return a {@link List} containing all transactions processed by this
    *         {@link AbstractRegister}.
    */
   public final List<Transaction> getTransactions() {
-    return Collections.unmodifiableList(transactions);
+    if (transactions != null) {
+      return Collections.unmodifiableList(transactions);
+    }
+    return new LoggedTransactions();
+  }
+
+  /**
+   * Returns the identifier of this {@link AbstractRegister}, which is the
+   * number of registers created before it in the same
+   * {@link SimulationContext}.
+   *
+   * @return the identifier of this {@link AbstractRegister}
+   */
+  public final int getRegisterID() {
+    return registerID;
   }
 
   /**
    * Returns {@code true} if this {@link AbstractRegister} is busy and
-   * {@code false} otherwise.
+   * {@code false} otherwise. A register that was given a {@link Shopper} in a
+   * {@link RegisterBatch} is busy from then on.
    *
    * @return {@code true} if this {@link AbstractRegister} is busy and
    *         {@code false} otherwise.
    */
   public final boolean isBusy() {
-    int time = BigBrother.getBigBrother().getTime();
+    if (reserved) {
+      return true;
+    }
+    int time = context.getBigBrother().getTime();
     return time < transactionEndTime;
   }
 
+  /**
+   * Returns {@code true} if this {@link AbstractRegister} is turned on, is
+   * not busy and may serve the {@link Shopper}s of the specified store. A
+   * register is assumed to serve the store of the {@link Shopper}s it has
+   * served so far, or any store if it has served none yet or served several
+   * stores.
+   *
+   * @param store
+   *            the store
+   * @return {@code true} if this register is free to serve the store and
+   *         {@code false} otherwise
+   */
+  public final boolean isFreeFor(final AbstractGroceryStore store) {
+    if (!running || isBusy()) {
+      return false;
+    }
+    return storeID < 0 || storeID == store.getStoreID();
+  }
+
   /**
    * Turns this {@link AbstractRegister} on. There is a starting cost of 10.
    */
@@ -134,7 +278,7 @@ public abstract class AbstractRegister {
     if (running) {
       return;
     }
-    runningCost += 10;
+    runningCost.add(10);
     running = true;
   }
 
@@ -151,6 +295,57 @@ public abstract class AbstractRegister {
     running = false;
   }
 
+  /**
+   * Writes the state of this {@link AbstractRegister} to the specified
+   * {@link CheckpointWriter}. A register that keeps state of its own should
+   * implement {@link Checkpointable}. This is called by {@link BigBrother}.
+   *
+   * @param out
+   *            the writer to write to
+   */
+  public final void saveState(final CheckpointWriter out) {
+    out.putLong(runningCost.getUnits());
+    out.putLong(runningTicks);
+    out.putInt(transactionEndTime);
+    out.putBoolean(running);
+    List<Transaction> processed = getTransactions();
+    out.putInt(processed.size());
+    for (Transaction t : processed) {
+      out.putTransaction(t);
+    }
+    if (this instanceof Checkpointable) {
+      ((Checkpointable) this).writeCheckpoint(out);
+    }
+  }
+
+  /**
+   * Restores the state of this {@link AbstractRegister} from the specified
+   * {@link CheckpointReader}. This is called by {@link BigBrother}.
+   *
+   * @param in
+   *            the reader to read from
+   */
+  public final void restoreState(final CheckpointReader in) {
+    runningCost.setUnits(in.getLong());
+    runningTicks = in.getLong();
+    transactionEndTime = in.getInt();
+    running = in.getBoolean();
+    if (transactions != null) {
+      transactions.clear();
+    }
+    // Records logged before the checkpoint was restored are dropped
+    firstRecord = TransactionLog.NO_RECORD;
+    lastRecord = TransactionLog.NO_RECORD;
+    transactionCount = 0;
+    int size = in.getInt();
+    for (int i = 0; i < size; i++) {
+      log(in.getTransaction());
+    }
+    if (this instanceof Checkpointable) {
+      ((Checkpointable) this).readCheckpoint(in);
+    }
+  }
+
   /**
    * This method creates a {@link Transaction} for the given {@link Shopper}.
    *
@@ -160,4 +355,145 @@ public abstract class AbstractRegister {
    */
   protected abstract Transaction createTransaction(Shopper s);
 
+  /**
+   * Remembers that this {@link AbstractRegister} served a {@link Shopper} of
+   * the specified store.
+   *
+   * @param store
+   *            the store of the shopper, or {@code null}
+   */
+  private void servedStore(final AbstractGroceryStore store) {
+    int id = store == null ? SHARED : store.getStoreID();
+    if (storeID == ANY_STORE) {
+      storeID = id;
+    } else if (storeID != id) {
+      storeID = SHARED;
+    }
+  }
+
+  /**
+   * Keeps the specified {@link Transaction}, on the heap or by appending it
+   * to the {@link TransactionLog}.
+   *
+   * @param t
+   *            the transaction processed by this register
+   */
+  private void log(final Transaction t) {
+    if (transactions != null) {
+      transactions.add(t);
+      return;
+    }
+    lastRecord = context.getTransactionLog().append(registerID, t, lastRecord);
+    if (firstRecord == TransactionLog.NO_RECORD) {
+      firstRecord = lastRecord;
+    }
+    transactionCount++;
+  }
+
+  /**
+   * An immutable view of the transactions of this {@link AbstractRegister}
+   * kept in the {@link TransactionLog}, following the links between its
+   * records.
+   */
+  private final class LoggedTransactions extends AbstractSequentialList<Transaction> {
+
+    @Override
+    public ListIterator<Transaction> listIterator(final int index) {
+      if (index < 0 || index > transactionCount) {
+        throw new IndexOutOfBoundsException("Index: " + index);
+      }
+      return new LoggedIterator(index);
+    }
+
+    @Override
+    public int size() {
+      return transactionCount;
+    }
+
+  }
+
+  /**
+   * A {@link ListIterator} over the records of this {@link AbstractRegister}.
+   */
+  private final class LoggedIterator implements ListIterator<Transaction> {
+
+    private final TransactionLog log = context.getTransactionLog();
+    // The record before the cursor
+    private int before = TransactionLog.NO_RECORD;
+    private int index;
+
+    LoggedIterator(final int index) {
+      // Walk from whichever end is closer
+      if (index <= transactionCount / 2) {
+        for (int i = 0; i < index; i++) {
+          before = i == 0 ? firstRecord : log.getNext(before);
+        }
+      } else if (index > 0) {
+        before = lastRecord;
+        for (int i = transactionCount; i > index; i--) {
+          before = log.getPrevious(before);
+        }
+      }
+      this.index = index;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < transactionCount;
+    }
+
+    @Override
+    public Transaction next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      before = before == TransactionLog.NO_RECORD ? firstRecord
+          : log.getNext(before);
+      index++;
+      return log.get(before);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+      return index > 0;
+    }
+
+    @Override
+    public Transaction previous() {
+      if (!hasPrevious()) {
+        throw new NoSuchElementException();
+      }
+      int record = before;
+      before = log.getPrevious(record);
+      index--;
+      return log.get(record);
+    }
+
+    @Override
+    public int nextIndex() {
+      return index;
+    }
+
+    @Override
+    public int previousIndex() {
+      return index - 1;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void set(final Transaction t) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(final Transaction t) {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
 }
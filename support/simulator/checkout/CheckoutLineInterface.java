@@ -24,6 +24,20 @@ public interface CheckoutLineInterface extends QueueInterface<Shopper> {
    */
   boolean canEnterLine(Shopper shopper);
 
+  /**
+   * Returns a key describing which {@link Shopper}s may enter this line.
+   * Lines with equal keys must admit exactly the same {@link Shopper}s, which
+   * lets {@link simulator.store.LineIndex} check a single line per key. By
+   * default, this returns {@code null}, meaning that the line's eligibility
+   * is unknown and the line must always be checked on its own.
+   *
+   * @return a key describing which shoppers may enter this line, or
+   *         {@code null}
+   */
+  default Object getEligibility() {
+    return null;
+  }
+
   /**
    * Adds {@code shopper} to the end of this {@link CheckoutLineInterace}.
    * This operation should execute in constant time. That is, it should be
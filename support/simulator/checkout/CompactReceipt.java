@@ -0,0 +1,53 @@
+package simulator.checkout;
+
+import java.util.List;
+
+import simulator.grocery.GroceryInterface;
+
+/**
+ * A {@link CompactReceipt} is an {@link AbstractReceipt} whose sub-total and
+ * sale value are computed once, when it is created. Created from a
+ * {@link simulator.shopper.Shopper}'s shopping list, it shares the
+ * {@link simulator.grocery.Basket} and its totals instead of copying and
+ * summing the groceries, so reading the totals of a {@link CompactReceipt}
+ * takes constant time.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class CompactReceipt extends AbstractReceipt {
+
+  private final double subtotal;
+  private final double saleValue;
+
+  /**
+   * Creates a {@link CompactReceipt} with the specified grocery list and
+   * discount.
+   *
+   * @param groceries
+   *            the {@link List} of {@link GroceryInterface} items purchased
+   * @param discount
+   *            any discount given to the {@link simulator.shopper.Shopper}
+   * @throws NullPointerException
+   *             if {@code groceries} is {@code null}
+   * @throws IllegalArgumentException
+   *             if discount is less than 0 or greater than 1.
+   */
+  public CompactReceipt(final List<GroceryInterface> groceries,
+      final double discount) {
+    super(groceries, discount);
+    this.subtotal = getBasketSummary().getSubtotal();
+    this.saleValue = subtotal - subtotal * discount;
+  }
+
+  @Override
+  public double getSubtotal() {
+    return subtotal;
+  }
+
+  @Override
+  public double getSaleValue() {
+    return saleValue;
+  }
+
+}
@@ -0,0 +1,162 @@
+package simulator.checkout;
+
+import simulator.shopper.Shopper;
+import structures.QueueInterface;
+
+/**
+ * <p>
+ * An {@link IntrusiveQueue} is a {@link CheckoutLineInterface} that links
+ * {@link Shopper}s through their {@link LineLinks} instead of wrapping each
+ * of them in a node. Enqueuing and dequeuing only swap links and never
+ * allocate, and a {@link Shopper} can be removed from anywhere in the line in
+ * constant time with {@link #remove(Shopper)}.
+ * </p>
+ * <p>
+ * Because a {@link Shopper} has a single place in the {@link LineLinks} of
+ * their simulation, they can wait in at most one {@link IntrusiveQueue} at a
+ * time, and an {@link IntrusiveQueue} only holds the {@link Shopper}s of one
+ * simulation. Since a {@link Shopper} is linked by their unique ID, the
+ * {@link Shopper} returned by {@link #dequeue()} is a handle equal to, but not
+ * necessarily the same object as, the one that was enqueued. Subclasses decide who may
+ * enter the line by implementing
+ * {@link CheckoutLineInterface#canEnterLine(Shopper)}.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public abstract class IntrusiveQueue implements CheckoutLineInterface {
+
+  private LineLinks links;
+  private int first = LineLinks.NONE;
+  private int last = LineLinks.NONE;
+  private int size;
+
+  @Override
+  public final Shopper dequeue() {
+    Shopper shopper = peek();
+    unlink(first);
+    return shopper;
+  }
+
+  @Override
+  public final Shopper peek() {
+    if (first == LineLinks.NONE) {
+      throw new IllegalStateException("The line is empty.");
+    }
+    return links.getShopper(first);
+  }
+
+  /**
+   * Adds {@code shopper} to the end of this line.
+   *
+   * @param shopper
+   *            the shopper to be added
+   * @return this line
+   * @throws NullPointerException
+   *             if {@code shopper} is {@code null}
+   * @throws IllegalArgumentException
+   *             if {@code shopper} cannot enter the line as specified by
+   *             {@link CheckoutLineInterface#canEnterLine(Shopper)}, is
+   *             already waiting in an {@link IntrusiveQueue} or belongs to
+   *             another simulation than the {@link Shopper}s in this line
+   */
+  @Override
+  public final QueueInterface<Shopper> enqueue(final Shopper shopper) {
+    if (!canEnterLine(shopper)) {
+      throw new IllegalArgumentException("The shopper cannot enter this line.");
+    }
+    LineLinks shopperLinks =
+        shopper.getContext().getShopperPopulation().getLineLinks();
+    if (links == null) {
+      links = shopperLinks;
+    } else if (links != shopperLinks) {
+      throw new IllegalArgumentException(
+          "The shopper belongs to another simulation.");
+    }
+    int id = shopper.getUniqueID();
+    if (links.getLine(id) != null) {
+      throw new IllegalArgumentException("The shopper is already in a line.");
+    }
+    links.setLine(id, this);
+    links.setPrevious(id, last);
+    links.setNext(id, LineLinks.NONE);
+    if (last == LineLinks.NONE) {
+      first = id;
+    } else {
+      links.setNext(last, id);
+    }
+    last = id;
+    size++;
+    return this;
+  }
+
+  /**
+   * Removes {@code shopper} from this line, wherever they are waiting in it.
+   * This operation executes in constant time.
+   *
+   * @param shopper
+   *            the shopper to remove
+   * @return {@code true} if {@code shopper} was waiting in this line and
+   *         {@code false} otherwise
+   * @throws NullPointerException
+   *             if {@code shopper} is {@code null}
+   */
+  public final boolean remove(final Shopper shopper) {
+    int id = shopper.getUniqueID();
+    if (links == null
+        || links != shopper.getContext().getShopperPopulation().getLineLinks()
+        || links.getLine(id) != this) {
+      return false;
+    }
+    unlink(id);
+    return true;
+  }
+
+  @Override
+  public final boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public final int size() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    result.append("[");
+    for (int id = first; id != LineLinks.NONE; id = links.next(id)) {
+      if (id != first) {
+        result.append(", ");
+      }
+      result.append(links.getShopper(id));
+    }
+    return result.append("]").toString();
+  }
+
+  /**
+   * Removes the {@link Shopper} with the specified ID from this line.
+   *
+   * @param id
+   *            the unique ID of a shopper in this line
+   */
+  private void unlink(final int id) {
+    int previous = links.previous(id);
+    int next = links.next(id);
+    if (previous == LineLinks.NONE) {
+      first = next;
+    } else {
+      links.setNext(previous, next);
+    }
+    if (next == LineLinks.NONE) {
+      last = previous;
+    } else {
+      links.setPrevious(next, previous);
+    }
+    links.setLine(id, null);
+    size--;
+  }
+
+}
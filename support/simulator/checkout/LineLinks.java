@@ -0,0 +1,101 @@
+package simulator.checkout;
+
+import java.util.Arrays;
+
+import simulator.shopper.Shopper;
+import simulator.shopper.ShopperPopulation;
+
+/**
+ * {@link LineLinks} hold the place every {@link Shopper} of a
+ * {@link ShopperPopulation} takes up in an {@link IntrusiveQueue}: the line
+ * they are waiting in and the unique IDs of their neighbours in it, in
+ * arrays indexed by their unique ID. A {@link Shopper} can therefore be added
+ * to and removed from a line without allocating anything, and the links of a
+ * {@link Shopper} who is not in line take no object of their own.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class LineLinks {
+
+  /**
+   * The link of the first or last {@link Shopper} in a line.
+   */
+  static final int NONE = -1;
+
+  private final ShopperPopulation population;
+  private IntrusiveQueue[] lines;
+  private int[] previous;
+  private int[] next;
+
+  /**
+   * Creates the {@link LineLinks} of the specified {@link ShopperPopulation}.
+   *
+   * @param population
+   *            the population whose shoppers are linked
+   * @param capacity
+   *            the number of shoppers to make room for
+   */
+  public LineLinks(final ShopperPopulation population, final int capacity) {
+    if (population == null) {
+      throw new NullPointerException();
+    }
+    this.population = population;
+    this.lines = new IntrusiveQueue[capacity];
+    this.previous = new int[capacity];
+    this.next = new int[capacity];
+  }
+
+  /**
+   * Makes room for the links of the specified number of {@link Shopper}s.
+   * This is called by the {@link ShopperPopulation} as it grows, never while
+   * a store is being ticked.
+   *
+   * @param capacity
+   *            the number of shoppers to make room for
+   */
+  public void ensureCapacity(final int capacity) {
+    if (capacity > lines.length) {
+      lines = Arrays.copyOf(lines, capacity);
+      previous = Arrays.copyOf(previous, capacity);
+      next = Arrays.copyOf(next, capacity);
+    }
+  }
+
+  /**
+   * Returns the {@link IntrusiveQueue} the {@link Shopper} with the specified
+   * ID is waiting in, or {@code null} if they are not waiting in one.
+   *
+   * @param id
+   *            the unique ID of the shopper
+   * @return the line the shopper is waiting in
+   */
+  public IntrusiveQueue getLine(final int id) {
+    return lines[id];
+  }
+
+  Shopper getShopper(final int id) {
+    return population.getShopper(id);
+  }
+
+  void setLine(final int id, final IntrusiveQueue line) {
+    lines[id] = line;
+  }
+
+  int previous(final int id) {
+    return previous[id];
+  }
+
+  void setPrevious(final int id, final int link) {
+    previous[id] = link;
+  }
+
+  int next(final int id) {
+    return next[id];
+  }
+
+  void setNext(final int id, final int link) {
+    next[id] = link;
+  }
+
+}
@@ -0,0 +1,49 @@
+package simulator.checkout;
+
+import java.util.List;
+
+import simulator.grocery.GroceryInterface;
+
+/**
+ * An {@link AbstractReceipt} rebuilt from a record of a
+ * {@link TransactionLog}. The sub-total and sale value are the ones the
+ * original receipt reported.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+final class LoggedReceipt extends AbstractReceipt {
+
+  private final double subtotal;
+  private final double saleValue;
+
+  /**
+   * Creates a {@link LoggedReceipt}.
+   *
+   * @param groceries
+   *            the groceries on the receipt
+   * @param discount
+   *            the discount of the receipt
+   * @param subtotal
+   *            the sub-total of the receipt
+   * @param saleValue
+   *            the sale value of the receipt
+   */
+  LoggedReceipt(final List<GroceryInterface> groceries, final double discount,
+      final double subtotal, final double saleValue) {
+    super(groceries, discount);
+    this.subtotal = subtotal;
+    this.saleValue = saleValue;
+  }
+
+  @Override
+  public double getSubtotal() {
+    return subtotal;
+  }
+
+  @Override
+  public double getSaleValue() {
+    return saleValue;
+  }
+
+}
@@ -0,0 +1,184 @@
+package simulator.checkout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import simulator.bigbrother.BigBrotherIsWatchingYouException;
+import simulator.shopper.Shopper;
+
+/**
+ * <p>
+ * A {@link RegisterBatch} lets the free {@link AbstractRegister}s of a store
+ * process their next {@link Shopper}s in parallel. During a tick, the store
+ * {@link #add(AbstractRegister, Shopper) adds} each free register with the
+ * shopper it serves and then calls {@link #process()}. The
+ * {@link Transaction}s are created concurrently, and then committed one after
+ * another in the order they were added: the running cost is charged, the
+ * {@link Transaction} is logged and the {@link Shopper} completes it, which
+ * may vote on {@link simulator.shopper.MyFacePagePlus}. Once
+ * {@link #process()} returns, the results are the same as calling
+ * {@link AbstractRegister#processShopper(Shopper)} for each pair in that
+ * order.
+ * </p>
+ * <p>
+ * An added register is busy right away, as it would be after
+ * {@link AbstractRegister#processShopper(Shopper)}. Its running cost and
+ * {@link Transaction}s, the {@link Shopper}'s waiting time and the totals of
+ * the store only change when the batch is processed, so a store must not rely
+ * on them until then.
+ * </p>
+ * <p>
+ * Stores usually do not use a {@link RegisterBatch} directly. They turn on
+ * {@link simulator.store.AbstractGroceryStore#setParallelRegisters(boolean)}
+ * and serve their shoppers with
+ * {@link simulator.store.AbstractGroceryStore#processShopper(AbstractRegister, Shopper)}
+ * , which processes the batch at the end of the tick.
+ * </p>
+ * <p>
+ * {@link AbstractRegister#createTransaction(Shopper)} must not change any
+ * state shared with other registers for this to be safe. A
+ * {@link RegisterBatch} can be reused from tick to tick but must only be used
+ * by one thread.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class RegisterBatch {
+
+  private final List<AbstractRegister> registers = new ArrayList<AbstractRegister>();
+  private final List<Shopper> shoppers = new ArrayList<Shopper>();
+  // The unique identifiers of the shoppers
+  private final Set<Integer> shopperIDs = new HashSet<Integer>();
+
+  /**
+   * Adds a {@link Shopper} to be processed by the specified
+   * {@link AbstractRegister}. The register is busy from now on, so a store
+   * looking for free registers skips it for the rest of the tick.
+   *
+   * @param register
+   *            the register processing the shopper
+   * @param s
+   *            the shopper to process
+   * @throws BigBrotherIsWatchingYouException
+   *             if the register is turned off, busy or already in this
+   *             batch, or if the shopper is already in this batch
+   */
+  public void add(final AbstractRegister register, final Shopper s) {
+    if (register == null || s == null) {
+      throw new NullPointerException();
+    }
+    if (!register.isRunning()) {
+      throw new BigBrotherIsWatchingYouException(
+          "You cannot process a shopper on a register that is turned off.");
+    }
+    // A register already in this batch is busy
+    if (register.isBusy()) {
+      throw new BigBrotherIsWatchingYouException(
+          "This register is already being used.");
+    }
+    if (!shopperIDs.add(s.getUniqueID())) {
+      throw new BigBrotherIsWatchingYouException(
+          "This shopper is already being processed.");
+    }
+    register.setReserved(true);
+    registers.add(register);
+    shoppers.add(s);
+  }
+
+  /**
+   * Returns the number of {@link Shopper}s waiting to be processed.
+   *
+   * @return the number of shoppers in this batch
+   */
+  public int size() {
+    return registers.size();
+  }
+
+  /**
+   * Removes every added {@link Shopper} without processing them. Their
+   * registers are no longer busy.
+   */
+  public void clear() {
+    for (AbstractRegister register : registers) {
+      register.setReserved(false);
+    }
+    registers.clear();
+    shoppers.clear();
+    shopperIDs.clear();
+  }
+
+  /**
+   * Processes every added {@link Shopper} and empties this
+   * {@link RegisterBatch}. If a register throws an exception, the one of the
+   * first such register is rethrown and no {@link Transaction} is committed.
+   *
+   * @return the {@link Transaction}s, in the order they were added
+   */
+  public List<Transaction> process() {
+    try {
+      List<Transaction> prepared = prepare();
+      for (int i = 0; i < prepared.size(); i++) {
+        AbstractRegister register = registers.get(i);
+        // The register is now busy until its transaction ends
+        register.setReserved(false);
+        register.commit(shoppers.get(i), prepared.get(i));
+      }
+      return prepared;
+    } finally {
+      clear();
+    }
+  }
+
+  /**
+   * Creates the {@link Transaction} of every pair, on the common
+   * {@link ForkJoinPool} if there is more than one.
+   */
+  private List<Transaction> prepare() {
+    if (registers.size() < 2) {
+      List<Transaction> prepared = new ArrayList<Transaction>(registers.size());
+      for (int i = 0; i < registers.size(); i++) {
+        prepared.add(registers.get(i).prepare(shoppers.get(i)));
+      }
+      return prepared;
+    }
+    List<Callable<Transaction>> tasks = new ArrayList<Callable<Transaction>>(registers.size());
+    for (int i = 0; i < registers.size(); i++) {
+      final AbstractRegister register = registers.get(i);
+      final Shopper s = shoppers.get(i);
+      tasks.add(new Callable<Transaction>() {
+        @Override
+        public Transaction call() {
+          return register.getContext().call(() -> register.prepare(s));
+        }
+      });
+    }
+    List<Future<Transaction>> done = ForkJoinPool.commonPool().invokeAll(tasks);
+    List<Transaction> prepared = new ArrayList<Transaction>(done.size());
+    for (Future<Transaction> f : done) {
+      try {
+        prepared.add(f.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while processing shoppers.", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+    return prepared;
+  }
+
+}
@@ -1,6 +1,5 @@
 package simulator.checkout;
 
-import simulator.bigbrother.BigBrother;
 import simulator.shopper.Shopper;
 
 /**
@@ -29,6 +28,23 @@ public final class Transaction {
    * @throws IllegalArgumentException if {@code timesteps} is less than 1
    */
   public Transaction(final AbstractReceipt receipt, final Shopper shopper, int timesteps) {
+    this(receipt, shopper, timesteps, shopper == null ? 0
+        : shopper.getContext().getBigBrother().getTime());
+  }
+
+  /**
+   * Creates a {@link Transaction} that started at the specified time step.
+   * This is used to restore a {@link Transaction} from a
+   * {@link simulator.bigbrother.Checkpoint}.
+   * @param receipt the receipt associated with this {@link Transaction}
+   * @param shopper the shopper associated with this {@link Transaction}
+   * @param timesteps the number of time steps to complete this transaction.
+   * @param startTime the time step at which this transaction started
+   * @throws NullPointerException if {@code receipt} of {@code shopper} are {@code null}
+   * @throws IllegalArgumentException if {@code timesteps} is less than 1
+   */
+  public Transaction(final AbstractReceipt receipt, final Shopper shopper, int timesteps,
+      int startTime) {
     if (receipt == null || shopper == null) {
       throw new NullPointerException(
           "Receipt and Shopper must be non-null");
@@ -39,7 +55,7 @@ public final class Transaction {
     }
     this.receipt = receipt;
     this.shopper = shopper;
-    this.startTime = BigBrother.getBigBrother().getTime();
+    this.startTime = startTime;
     this.timesteps = timesteps;
   }
 
@@ -0,0 +1,363 @@
+package simulator.checkout;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import simulator.bigbrother.SimulationContext;
+import simulator.grocery.Basket;
+import simulator.grocery.GroceryCatalog;
+import simulator.grocery.GroceryInterface;
+import simulator.shopper.Shopper;
+import simulator.shopper.ShopperPopulation;
+
+/**
+ * <p>
+ * A {@link TransactionLog} is an append only log of every {@link Transaction}
+ * processed in a {@link SimulationContext}. Each {@link Transaction} is
+ * written as a fixed width record to a memory-mapped temporary file, so the
+ * transactions of a long run take no space on the heap. A record holds the
+ * register identifier, the shopper identifier, the start time, the number of
+ * time steps, the number of items and the offset of their SKU ids, the
+ * sub-total, the sale value, the discount and the previous and next records
+ * of the same register, so the records of a register form a linked list that
+ * takes no space on the heap either. The SKU ids of the items on each
+ * receipt are written to a second memory-mapped temporary file.
+ * </p>
+ * <p>
+ * Registers only keep their {@link Transaction}s in the log if
+ * {@link SimulationContext#setTransactionLogging(boolean)} was enabled
+ * before they were created.
+ * </p>
+ * <p>
+ * A {@link Transaction} read back from the log is rebuilt from its record,
+ * as a new object with a receipt of its own class and a new handle onto its
+ * {@link Shopper}, so neither its identity nor the class of its receipt are
+ * those of the logged one. The items of its receipt are read back from their
+ * SKU ids, so they are the items interned by the
+ * {@link simulator.grocery.GroceryCatalog}, which are equal to the logged
+ * items if the item classes compare by value.
+ * </p>
+ * <p>
+ * A {@link TransactionLog} is thread-safe. The file is deleted when the log is
+ * closed, or when the virtual machine exits.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class TransactionLog implements Closeable {
+
+  /**
+   * The number of bytes of a record.
+   */
+  static final int RECORD_SIZE = 56;
+
+  /**
+   * The record number that stands for no record, such as the one before the
+   * first record of a register.
+   */
+  public static final int NO_RECORD = -1;
+
+  private static final int SEGMENT_RECORDS = 1 << 16;
+  private static final long SEGMENT_SIZE = (long) SEGMENT_RECORDS * RECORD_SIZE;
+
+  private static final int REGISTER = 0;
+  private static final int SHOPPER = 4;
+  private static final int START_TIME = 8;
+  private static final int TIME_STEPS = 12;
+  private static final int ITEMS = 16;
+  private static final int SKUS = 20;
+  private static final int SUBTOTAL = 24;
+  private static final int SALE_VALUE = 32;
+  private static final int DISCOUNT = 40;
+  private static final int PREVIOUS = 48;
+  private static final int NEXT = 52;
+
+  private static final int SKU_SEGMENT_SKUS = 1 << 20;
+  private static final long SKU_SEGMENT_SIZE = (long) SKU_SEGMENT_SKUS * 4;
+
+  private final ShopperPopulation population;
+  private final GroceryCatalog catalog;
+  private final FileChannel channel;
+  private final FileChannel skuChannel;
+  private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+  private final List<MappedByteBuffer> skuSegments =
+      new ArrayList<MappedByteBuffer>();
+  private int size;
+  private int skuCount;
+
+  /**
+   * Creates an empty {@link TransactionLog} for the {@link Shopper}s of the
+   * specified {@link SimulationContext}, backed by a new temporary file.
+   *
+   * @param context
+   *            the context whose transactions are logged
+   * @throws UncheckedIOException
+   *             if the files could not be created
+   */
+  public TransactionLog(final SimulationContext context) {
+    if (context == null) {
+      throw new NullPointerException();
+    }
+    this.population = context.getShopperPopulation();
+    this.catalog = context.getGroceryCatalog();
+    FileChannel records = open("transactions");
+    try {
+      this.skuChannel = open("skus");
+    } catch (UncheckedIOException e) {
+      try {
+        records.close();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    this.channel = records;
+  }
+
+  /**
+   * Opens a new temporary file that is deleted when it is closed.
+   *
+   * @param prefix
+   *            the prefix of the file name
+   * @return the channel of the file
+   * @throws UncheckedIOException
+   *             if the file could not be created
+   */
+  private static FileChannel open(final String prefix) {
+    try {
+      Path file = Files.createTempFile(prefix, ".log");
+      return FileChannel.open(file, StandardOpenOption.READ,
+          StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Appends the specified {@link Transaction} and returns its record number.
+   *
+   * @param registerID
+   *            the identifier of the register that processed the transaction
+   * @param t
+   *            the transaction
+   * @return the record number of the transaction
+   * @throws UncheckedIOException
+   *             if the log could not grow
+   */
+  public int append(final int registerID, final Transaction t) {
+    return append(registerID, t, NO_RECORD);
+  }
+
+  /**
+   * Appends the specified {@link Transaction} after the specified record of
+   * the same register and returns its record number.
+   *
+   * @param registerID
+   *            the identifier of the register that processed the transaction
+   * @param t
+   *            the transaction
+   * @param previous
+   *            the last record of the register, or {@link #NO_RECORD}
+   * @return the record number of the transaction
+   * @throws IllegalArgumentException
+   *             if {@code previous} is neither a record nor
+   *             {@link #NO_RECORD}
+   * @throws UncheckedIOException
+   *             if the log could not grow
+   */
+  public synchronized int append(final int registerID, final Transaction t,
+      final int previous) {
+    if (t == null) {
+      throw new NullPointerException();
+    }
+    int previousOffset = previous == NO_RECORD ? 0 : offset(previous);
+    int record = size;
+    if (record % SEGMENT_RECORDS == 0) {
+      try {
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+            (record / SEGMENT_RECORDS) * SEGMENT_SIZE, SEGMENT_SIZE));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    AbstractReceipt receipt = t.getReceipt();
+    List<GroceryInterface> groceries = receipt.getGroceries();
+    int skus = appendSkus(groceries);
+    MappedByteBuffer segment = segments.get(record / SEGMENT_RECORDS);
+    int offset = (record % SEGMENT_RECORDS) * RECORD_SIZE;
+    segment.putInt(offset + REGISTER, registerID);
+    segment.putInt(offset + SHOPPER, t.getShopper().getUniqueID());
+    segment.putInt(offset + START_TIME, t.getStartTime());
+    segment.putInt(offset + TIME_STEPS, t.getTimeSteps());
+    segment.putInt(offset + ITEMS, groceries.size());
+    segment.putInt(offset + SKUS, skus);
+    segment.putDouble(offset + SUBTOTAL, receipt.getSubtotal());
+    segment.putDouble(offset + SALE_VALUE, receipt.getSaleValue());
+    segment.putDouble(offset + DISCOUNT, receipt.getDiscount());
+    segment.putInt(offset + PREVIOUS, previous);
+    segment.putInt(offset + NEXT, NO_RECORD);
+    if (previous != NO_RECORD) {
+      segments.get(previous / SEGMENT_RECORDS).putInt(previousOffset + NEXT, record);
+    }
+    size++;
+    return record;
+  }
+
+  /**
+   * Appends the SKU ids of the specified items to the SKU file and returns
+   * the index of the first one. The items of a {@link Basket} are not
+   * interned again.
+   *
+   * @param groceries
+   *            the items
+   * @return the index of the SKU id of the first item
+   * @throws UncheckedIOException
+   *             if the SKU file could not grow
+   */
+  private int appendSkus(final List<GroceryInterface> groceries) {
+    int first = skuCount;
+    Basket basket = groceries instanceof Basket ? (Basket) groceries : null;
+    int i = 0;
+    for (GroceryInterface g : groceries) {
+      int sku = basket == null ? catalog.intern(g) : basket.getSku(i);
+      if (skuCount % SKU_SEGMENT_SKUS == 0) {
+        try {
+          skuSegments.add(skuChannel.map(FileChannel.MapMode.READ_WRITE,
+              (skuCount / SKU_SEGMENT_SKUS) * SKU_SEGMENT_SIZE,
+              SKU_SEGMENT_SIZE));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      skuSegments.get(skuCount / SKU_SEGMENT_SKUS).putInt(
+          (skuCount % SKU_SEGMENT_SKUS) * 4, sku);
+      skuCount++;
+      i++;
+    }
+    return first;
+  }
+
+  /**
+   * Returns the number of records in this {@link TransactionLog}.
+   *
+   * @return the number of records
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Rebuilds the {@link Transaction} with the specified record number.
+   *
+   * @param record
+   *            the record number
+   * @return the transaction
+   * @throws IllegalArgumentException
+   *             if there is no such record
+   */
+  public synchronized Transaction get(final int record) {
+    int offset = offset(record);
+    MappedByteBuffer segment = segments.get(record / SEGMENT_RECORDS);
+    Shopper shopper = population.getShopper(segment.getInt(offset + SHOPPER));
+    int first = segment.getInt(offset + SKUS);
+    int[] skus = new int[segment.getInt(offset + ITEMS)];
+    for (int i = 0; i < skus.length; i++) {
+      int index = first + i;
+      skus[i] = skuSegments.get(index / SKU_SEGMENT_SKUS).getInt(
+          (index % SKU_SEGMENT_SKUS) * 4);
+    }
+    AbstractReceipt receipt = new LoggedReceipt(catalog.basket(skus),
+        segment.getDouble(offset + DISCOUNT),
+        segment.getDouble(offset + SUBTOTAL),
+        segment.getDouble(offset + SALE_VALUE));
+    return new Transaction(receipt, shopper,
+        segment.getInt(offset + TIME_STEPS), segment.getInt(offset + START_TIME));
+  }
+
+  /**
+   * Returns the identifier of the register of the specified record.
+   *
+   * @param record
+   *            the record number
+   * @return the identifier of the register
+   * @throws IllegalArgumentException
+   *             if there is no such record
+   */
+  public synchronized int getRegisterID(final int record) {
+    return segments.get(record / SEGMENT_RECORDS).getInt(offset(record) + REGISTER);
+  }
+
+  /**
+   * Returns the record of the same register that was appended before the
+   * specified record.
+   *
+   * @param record
+   *            the record number
+   * @return the previous record, or {@link #NO_RECORD} if there is none
+   * @throws IllegalArgumentException
+   *             if there is no such record
+   */
+  public synchronized int getPrevious(final int record) {
+    return segments.get(record / SEGMENT_RECORDS).getInt(offset(record) + PREVIOUS);
+  }
+
+  /**
+   * Returns the record of the same register that was appended after the
+   * specified record.
+   *
+   * @param record
+   *            the record number
+   * @return the next record, or {@link #NO_RECORD} if there is none
+   * @throws IllegalArgumentException
+   *             if there is no such record
+   */
+  public synchronized int getNext(final int record) {
+    return segments.get(record / SEGMENT_RECORDS).getInt(offset(record) + NEXT);
+  }
+
+  /**
+   * Returns the sale value of the specified record.
+   *
+   * @param record
+   *            the record number
+   * @return the sale value
+   * @throws IllegalArgumentException
+   *             if there is no such record
+   */
+  public synchronized double getSaleValue(final int record) {
+    return segments.get(record / SEGMENT_RECORDS).getDouble(offset(record) + SALE_VALUE);
+  }
+
+  /**
+   * Closes the files backing this {@link TransactionLog} and deletes them.
+   * Records that were already mapped can still be read.
+   *
+   * @throws IOException
+   *             if a file could not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      channel.close();
+    } finally {
+      skuChannel.close();
+    }
+  }
+
+  private int offset(final int record) {
+    if (record < 0 || record >= size) {
+      throw new IllegalArgumentException("Unknown record " + record + ".");
+    }
+    return (record % SEGMENT_RECORDS) * RECORD_SIZE;
+  }
+
+}
@@ -0,0 +1,123 @@
+package simulator.grocery;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A {@link Basket} is an immutable, array-backed {@link java.util.List} of
+ * {@link GroceryInterface} items. The items are kept as SKU ids of a
+ * {@link GroceryCatalog}, and the {@link BasketSummary} of the items is
+ * computed once, the first time it is needed. Because a {@link Basket}
+ * never changes it can be shared by a {@link simulator.shopper.Shopper} and
+ * every {@link simulator.checkout.AbstractReceipt} made for them without
+ * being copied. {@link Basket}s are created by {@link GroceryCatalog}, or
+ * read from a {@link SkuArea} as a view of a range of its SKU ids.
+ * Since items are interned by value, {@link #get(int)} returns the first
+ * item interned with the same values, which may be another object than the
+ * one the {@link Basket} was created from.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class Basket extends AbstractList<GroceryInterface>
+    implements RandomAccess {
+
+  /**
+   * A {@link Basket} with no items.
+   */
+  public static final Basket EMPTY = new Basket(null, new int[0], 0, 0,
+      BasketSummary.EMPTY);
+
+  private final GroceryCatalog catalog;
+  private final int[] skus;
+  private final int offset;
+  private final int size;
+  private volatile BasketSummary summary;
+
+  /**
+   * Creates a {@link Basket} of a range of the specified array. The array is
+   * not copied, so the range must never change.
+   *
+   * @param catalog
+   *            the catalog the SKU ids belong to
+   * @param skus
+   *            the SKU ids of the items
+   * @param offset
+   *            the index of the first item in {@code skus}
+   * @param size
+   *            the number of items
+   * @param summary
+   *            the summary of the items, or {@code null} to compute it when
+   *            it is first needed
+   */
+  Basket(final GroceryCatalog catalog, final int[] skus, final int offset,
+      final int size, final BasketSummary summary) {
+    this.catalog = catalog;
+    this.skus = skus;
+    this.offset = offset;
+    this.size = size;
+    this.summary = summary;
+  }
+
+  /**
+   * Returns the item at the specified position.
+   *
+   * @param index
+   *            the position of the item
+   * @return the item at {@code index}
+   */
+  @Override
+  public GroceryInterface get(final int index) {
+    return catalog.get(getSku(index));
+  }
+
+  /**
+   * Returns the number of items in this {@link Basket}.
+   *
+   * @return the number of items in this {@link Basket}
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the SKU id of the item at the specified position.
+   *
+   * @param index
+   *            the position of the item
+   * @return the SKU id of the item at {@code index}
+   */
+  public int getSku(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return skus[offset + index];
+  }
+
+  /**
+   * Returns a copy of the SKU ids of the items in this {@link Basket}.
+   *
+   * @return the SKU ids of the items in this {@link Basket}
+   */
+  public int[] toSkuArray() {
+    return Arrays.copyOfRange(skus, offset, offset + size);
+  }
+
+  /**
+   * Returns the {@link BasketSummary} of the items in this {@link Basket}.
+   *
+   * @return the {@link BasketSummary} of this {@link Basket}
+   */
+  public BasketSummary getSummary() {
+    BasketSummary s = summary;
+    if (s == null) {
+      // Racing threads compute equal summaries, so either may be kept
+      s = catalog.summarize(skus, offset, size);
+      summary = s;
+    }
+    return s;
+  }
+
+}
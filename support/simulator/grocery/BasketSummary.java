@@ -0,0 +1,201 @@
+package simulator.grocery;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@link BasketSummary} holds the aggregates of a basket of
+ * {@link GroceryInterface} items: the number of items, the total handling
+ * rating, the sub-total, the cost and how many of each item there are. The
+ * totals are computed once when the {@link BasketSummary} is created, so
+ * reading them takes constant time no matter how large the basket is. The
+ * counts of the items of a {@link Basket} are only computed when they are
+ * asked for. A {@link BasketSummary} is immutable.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class BasketSummary {
+
+  /**
+   * The {@link BasketSummary} of an empty basket.
+   */
+  public static final BasketSummary EMPTY = new BasketSummary(0, 0.0, 0.0, 0.0,
+      Collections.<String, Integer>emptyMap());
+
+  private final int itemCount;
+  private final double handling;
+  private final double subtotal;
+  private final double cost;
+  // The items of a Basket, which are counted when first needed
+  private final GroceryCatalog catalog;
+  private final int[] skus;
+  private final int offset;
+  private volatile Map<String, Integer> histogram;
+
+  private BasketSummary(final int itemCount, final double handling,
+      final double subtotal, final double cost,
+      final Map<String, Integer> histogram) {
+    this.itemCount = itemCount;
+    this.handling = handling;
+    this.subtotal = subtotal;
+    this.cost = cost;
+    this.catalog = null;
+    this.skus = null;
+    this.offset = 0;
+    this.histogram = histogram;
+  }
+
+  /**
+   * Creates the {@link BasketSummary} of the items of a {@link Basket}, which
+   * are the {@code itemCount} SKU ids from {@code offset}. The array is not
+   * copied.
+   */
+  BasketSummary(final int itemCount, final double handling,
+      final double subtotal, final double cost, final GroceryCatalog catalog,
+      final int[] skus, final int offset) {
+    this.itemCount = itemCount;
+    this.handling = handling;
+    this.subtotal = subtotal;
+    this.cost = cost;
+    this.catalog = catalog;
+    this.skus = skus;
+    this.offset = offset;
+  }
+
+  /**
+   * Computes the {@link BasketSummary} of the specified basket. The items are
+   * summed in list order.
+   *
+   * @param groceries
+   *            the items in the basket
+   * @return the {@link BasketSummary} of {@code groceries}
+   * @throws NullPointerException
+   *             if {@code groceries} is {@code null} or contains {@code null}
+   */
+  public static BasketSummary of(final List<? extends GroceryInterface> groceries) {
+    if (groceries == null) {
+      throw new NullPointerException();
+    }
+    if (groceries.isEmpty()) {
+      return EMPTY;
+    }
+    double handling = 0.0;
+    double subtotal = 0.0;
+    double cost = 0.0;
+    Map<String, Integer> histogram = new LinkedHashMap<String, Integer>();
+    for (GroceryInterface g : groceries) {
+      if (g == null) {
+        throw new NullPointerException("A basket cannot contain null.");
+      }
+      handling += g.getHandlingRating();
+      subtotal += g.getPrice();
+      cost += g.getCost();
+      Integer count = histogram.get(g.getName());
+      histogram.put(g.getName(), count == null ? 1 : count + 1);
+    }
+    return new BasketSummary(groceries.size(), handling, subtotal, cost,
+        Collections.unmodifiableMap(histogram));
+  }
+
+  /**
+   * Returns the number of items in the basket.
+   *
+   * @return the number of items in the basket
+   */
+  public int getItemCount() {
+    return itemCount;
+  }
+
+  /**
+   * Returns {@code true} if the basket has no items and {@code false}
+   * otherwise.
+   *
+   * @return {@code true} if the basket has no items and {@code false}
+   *         otherwise
+   */
+  public boolean isEmpty() {
+    return itemCount == 0;
+  }
+
+  /**
+   * Returns the sum of the handling ratings of every item in the basket.
+   *
+   * @return the total handling rating of the basket
+   */
+  public double getHandling() {
+    return handling;
+  }
+
+  /**
+   * Returns the sum of the prices of every item in the basket.
+   *
+   * @return the sub-total of the basket
+   */
+  public double getSubtotal() {
+    return subtotal;
+  }
+
+  /**
+   * Returns the sum of the costs of every item in the basket.
+   *
+   * @return the cost of the basket
+   */
+  public double getCost() {
+    return cost;
+  }
+
+  /**
+   * Returns how many items with the specified name are in the basket.
+   *
+   * @param name
+   *            the name of the item
+   * @return the number of items named {@code name} in the basket
+   */
+  public int getCount(final String name) {
+    Map<String, Integer> h = histogram;
+    if (h == null) {
+      int count = 0;
+      for (int i = offset; i < offset + itemCount; i++) {
+        if (Objects.equals(catalog.getName(skus[i]), name)) {
+          count++;
+        }
+      }
+      return count;
+    }
+    Integer count = h.get(name);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Returns an immutable {@link Map} from item name to the number of items
+   * with that name in the basket, in the order the names first appear.
+   *
+   * @return the histogram of the basket
+   */
+  public Map<String, Integer> getHistogram() {
+    Map<String, Integer> h = histogram;
+    if (h == null) {
+      Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+      for (int i = offset; i < offset + itemCount; i++) {
+        String name = catalog.getName(skus[i]);
+        Integer count = counts.get(name);
+        counts.put(name, count == null ? 1 : count + 1);
+      }
+      // Racing threads count equal histograms, so either may be kept
+      h = Collections.unmodifiableMap(counts);
+      histogram = h;
+    }
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    return "BasketSummary[items=" + itemCount + ", subtotal=" + subtotal
+        + ", cost=" + cost + ", handling=" + handling + "]";
+  }
+
+}
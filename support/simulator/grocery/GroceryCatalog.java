@@ -0,0 +1,336 @@
+package simulator.grocery;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A {@link GroceryCatalog} interns {@link GroceryInterface} items and gives
+ * each of them a dense {@code int} SKU id, starting at 0. The name, price,
+ * cost and handling rating of every SKU are held in primitive arrays, so a
+ * {@link Basket} stores its items as an {@code int[]} of SKU ids instead of a
+ * list of objects.
+ * </p>
+ * <p>
+ * Items are interned by value: items with the same name, price, cost and
+ * handling rating share one SKU id, however many objects describe them, and
+ * {@link #get(int)} returns the first of those objects that was interned.
+ * The SKU ids are kept in an open-addressing table of {@code int}s, so
+ * interning an item that is already known allocates nothing. A {@code null} item
+ * has the SKU id {@link #NO_SKU}, so a shopping list may hold {@code null}s
+ * until its totals are needed.
+ * </p>
+ * <p>
+ * Each {@link simulator.bigbrother.SimulationContext} has its own
+ * {@link GroceryCatalog}. It is not thread-safe; items are interned by the
+ * thread that runs the simulation.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class GroceryCatalog {
+
+  /**
+   * The SKU id of a {@code null} item.
+   */
+  public static final int NO_SKU = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  // SKU id + 1 of the items by hash of their values, 0 for a free slot
+  private int[] table = new int[2 * INITIAL_CAPACITY];
+  private GroceryInterface[] items = new GroceryInterface[INITIAL_CAPACITY];
+  private String[] names = new String[INITIAL_CAPACITY];
+  private double[] prices = new double[INITIAL_CAPACITY];
+  private double[] costs = new double[INITIAL_CAPACITY];
+  private double[] handling = new double[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Returns the SKU id of the specified item, interning it if this is the
+   * first time it is seen.
+   *
+   * @param g
+   *            the item to intern
+   * @return the SKU id of {@code g}, or {@link #NO_SKU} if it is {@code null}
+   */
+  public int intern(final GroceryInterface g) {
+    if (g == null) {
+      return NO_SKU;
+    }
+    String name = g.getName();
+    double price = g.getPrice();
+    double cost = g.getCost();
+    double handlingRating = g.getHandlingRating();
+    int mask = table.length - 1;
+    int slot = hash(name, price, cost, handlingRating) & mask;
+    for (int id = table[slot]; id != 0; id = table[slot]) {
+      int sku = id - 1;
+      if (Objects.equals(names[sku], name)
+          && Double.compare(prices[sku], price) == 0
+          && Double.compare(costs[sku], cost) == 0
+          && Double.compare(handling[sku], handlingRating) == 0) {
+        return sku;
+      }
+      slot = (slot + 1) & mask;
+    }
+    if (size == items.length) {
+      int capacity = size * 2;
+      items = Arrays.copyOf(items, capacity);
+      names = Arrays.copyOf(names, capacity);
+      prices = Arrays.copyOf(prices, capacity);
+      costs = Arrays.copyOf(costs, capacity);
+      handling = Arrays.copyOf(handling, capacity);
+    }
+    int sku = size++;
+    items[sku] = g;
+    names[sku] = name;
+    prices[sku] = price;
+    costs[sku] = cost;
+    handling[sku] = handlingRating;
+    if (2 * size > table.length) {
+      rehash();
+    } else {
+      table[slot] = sku + 1;
+    }
+    return sku;
+  }
+
+  /**
+   * Doubles the table of SKU ids and inserts every SKU again.
+   */
+  private void rehash() {
+    table = new int[2 * table.length];
+    int mask = table.length - 1;
+    for (int sku = 0; sku < size; sku++) {
+      int slot = hash(names[sku], prices[sku], costs[sku], handling[sku]) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = sku + 1;
+    }
+  }
+
+  private static int hash(final String name, final double price,
+      final double cost, final double handlingRating) {
+    int h = Objects.hashCode(name);
+    h = 31 * h + Double.hashCode(price);
+    h = 31 * h + Double.hashCode(cost);
+    h = 31 * h + Double.hashCode(handlingRating);
+    // Spread the high bits, since only the low bits pick a slot
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Interns every item in the specified list and returns their SKU ids in
+   * list order.
+   *
+   * @param groceries
+   *            the items to intern
+   * @return the SKU ids of {@code groceries}
+   * @throws NullPointerException
+   *             if {@code groceries} is {@code null}
+   */
+  public int[] intern(final List<? extends GroceryInterface> groceries) {
+    if (groceries == null) {
+      throw new NullPointerException();
+    }
+    int[] skus = new int[groceries.size()];
+    int i = 0;
+    for (GroceryInterface g : groceries) {
+      skus[i++] = intern(g);
+    }
+    return skus;
+  }
+
+  /**
+   * Returns the number of SKUs in this {@link GroceryCatalog}.
+   *
+   * @return the number of SKUs in this {@link GroceryCatalog}
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns {@code true} if the specified SKU id belongs to this
+   * {@link GroceryCatalog} and {@code false} otherwise.
+   *
+   * @param sku
+   *            the SKU id to check
+   * @return {@code true} if {@code sku} is in this {@link GroceryCatalog}
+   */
+  public boolean contains(final int sku) {
+    return sku >= 0 && sku < size;
+  }
+
+  /**
+   * Returns the item with the specified SKU id.
+   *
+   * @param sku
+   *            the SKU id
+   * @return the item with SKU id {@code sku}, or {@code null} if it is
+   *         {@link #NO_SKU}
+   * @throws IllegalArgumentException
+   *             if {@code sku} is not in this {@link GroceryCatalog}
+   */
+  public GroceryInterface get(final int sku) {
+    if (sku == NO_SKU) {
+      return null;
+    }
+    check(sku);
+    return items[sku];
+  }
+
+  /**
+   * Returns the name of the item with the specified SKU id.
+   *
+   * @param sku
+   *            the SKU id
+   * @return the name of the item with SKU id {@code sku}
+   * @throws IllegalArgumentException
+   *             if {@code sku} is not in this {@link GroceryCatalog}
+   */
+  public String getName(final int sku) {
+    check(sku);
+    return names[sku];
+  }
+
+  /**
+   * Returns the price of the item with the specified SKU id.
+   *
+   * @param sku
+   *            the SKU id
+   * @return the price of the item with SKU id {@code sku}
+   * @throws IllegalArgumentException
+   *             if {@code sku} is not in this {@link GroceryCatalog}
+   */
+  public double getPrice(final int sku) {
+    check(sku);
+    return prices[sku];
+  }
+
+  /**
+   * Returns the cost of the item with the specified SKU id.
+   *
+   * @param sku
+   *            the SKU id
+   * @return the cost of the item with SKU id {@code sku}
+   * @throws IllegalArgumentException
+   *             if {@code sku} is not in this {@link GroceryCatalog}
+   */
+  public double getCost(final int sku) {
+    check(sku);
+    return costs[sku];
+  }
+
+  /**
+   * Returns the handling rating of the item with the specified SKU id.
+   *
+   * @param sku
+   *            the SKU id
+   * @return the handling rating of the item with SKU id {@code sku}
+   * @throws IllegalArgumentException
+   *             if {@code sku} is not in this {@link GroceryCatalog}
+   */
+  public double getHandlingRating(final int sku) {
+    check(sku);
+    return handling[sku];
+  }
+
+  /**
+   * Creates a {@link Basket} of the specified SKU ids. The array is copied.
+   *
+   * @param skus
+   *            the SKU ids of the items
+   * @return a {@link Basket} of the items
+   * @throws NullPointerException
+   *             if {@code skus} is {@code null}
+   * @throws IllegalArgumentException
+   *             if a SKU id is neither in this {@link GroceryCatalog} nor
+   *             {@link #NO_SKU}
+   */
+  public Basket basket(final int[] skus) {
+    if (skus == null) {
+      throw new NullPointerException();
+    }
+    return wrap(skus.clone());
+  }
+
+  /**
+   * Interns every item in the specified list and creates a {@link Basket} of
+   * them, in list order.
+   *
+   * @param groceries
+   *            the items
+   * @return a {@link Basket} of the items
+   * @throws NullPointerException
+   *             if {@code groceries} is {@code null}
+   */
+  public Basket basket(final List<? extends GroceryInterface> groceries) {
+    return wrap(intern(groceries));
+  }
+
+  /**
+   * Creates a {@link Basket} that takes ownership of the specified array.
+   * Its {@link BasketSummary} is computed when it is first needed.
+   *
+   * @param skus
+   *            the SKU ids of the items
+   * @return a {@link Basket} of the items
+   * @throws IllegalArgumentException
+   *             if a SKU id is neither in this {@link GroceryCatalog} nor
+   *             {@link #NO_SKU}
+   */
+  private Basket wrap(final int[] skus) {
+    if (skus.length == 0) {
+      return Basket.EMPTY;
+    }
+    for (int sku : skus) {
+      if (sku != NO_SKU) {
+        check(sku);
+      }
+    }
+    return new Basket(this, skus, 0, skus.length, null);
+  }
+
+  /**
+   * Computes the {@link BasketSummary} of a range of the specified SKU ids,
+   * summing the items in basket order. The array is not copied.
+   *
+   * @param skus
+   *            the SKU ids of the items
+   * @param offset
+   *            the index of the first item in {@code skus}
+   * @param count
+   *            the number of items
+   * @return the {@link BasketSummary} of the items
+   * @throws NullPointerException
+   *             if an item is {@code null}
+   */
+  BasketSummary summarize(final int[] skus, final int offset, final int count) {
+    double h = 0.0;
+    double subtotal = 0.0;
+    double cost = 0.0;
+    for (int i = offset; i < offset + count; i++) {
+      int sku = skus[i];
+      if (sku == NO_SKU) {
+        throw new NullPointerException("A basket cannot contain null.");
+      }
+      h += handling[sku];
+      subtotal += prices[sku];
+      cost += costs[sku];
+    }
+    // The histogram is only counted if it is asked for
+    return new BasketSummary(count, h, subtotal, cost, this, skus, offset);
+  }
+
+  void check(final int sku) {
+    if (!contains(sku)) {
+      throw new IllegalArgumentException("Unknown SKU " + sku + ".");
+    }
+  }
+
+}
@@ -0,0 +1,144 @@
+package simulator.grocery;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A {@link SkuArea} is an append-only {@code int[]} of SKU ids of a
+ * {@link GroceryCatalog}. A basket is appended once and read back by its
+ * offset and size as a {@link Basket} that views the area, so millions of
+ * baskets take four bytes per item and no object each. SKU ids are never
+ * changed once appended, so a {@link Basket} read from a {@link SkuArea}
+ * stays valid when the area grows.
+ * </p>
+ * <p>
+ * A {@link SkuArea} is not thread-safe for appending; baskets may be read by
+ * several threads once they have been appended.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class SkuArea {
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final GroceryCatalog catalog;
+  private int[] skus = new int[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Creates an empty {@link SkuArea} for the SKU ids of the specified
+   * {@link GroceryCatalog}.
+   *
+   * @param catalog
+   *            the catalog the SKU ids belong to
+   */
+  public SkuArea(final GroceryCatalog catalog) {
+    if (catalog == null) {
+      throw new NullPointerException();
+    }
+    this.catalog = catalog;
+  }
+
+  /**
+   * Appends the specified SKU ids and returns the offset of the first one.
+   * The array is copied.
+   *
+   * @param items
+   *            the SKU ids to append
+   * @return the offset of the first appended SKU id
+   * @throws NullPointerException
+   *             if {@code items} is {@code null}
+   * @throws IllegalArgumentException
+   *             if a SKU id is neither in the {@link GroceryCatalog} nor
+   *             {@link GroceryCatalog#NO_SKU}
+   */
+  public int append(final int[] items) {
+    for (int sku : items) {
+      if (sku != GroceryCatalog.NO_SKU) {
+        catalog.check(sku);
+      }
+    }
+    ensureCapacity(items.length);
+    int offset = size;
+    System.arraycopy(items, 0, skus, offset, items.length);
+    size += items.length;
+    return offset;
+  }
+
+  /**
+   * Appends the SKU ids of the items of the specified {@link Basket} and
+   * returns the offset of the first one.
+   *
+   * @param basket
+   *            the basket to append
+   * @return the offset of the first appended SKU id
+   * @throws NullPointerException
+   *             if {@code basket} is {@code null}
+   */
+  public int append(final Basket basket) {
+    int n = basket.size();
+    ensureCapacity(n);
+    int offset = size;
+    for (int i = 0; i < n; i++) {
+      skus[size++] = basket.getSku(i);
+    }
+    return offset;
+  }
+
+  /**
+   * Returns the SKU id at the specified offset.
+   *
+   * @param offset
+   *            the offset of the SKU id
+   * @return the SKU id at {@code offset}
+   * @throws IndexOutOfBoundsException
+   *             if nothing was appended at {@code offset}
+   */
+  public int getSku(final int offset) {
+    if (offset < 0 || offset >= size) {
+      throw new IndexOutOfBoundsException("Offset: " + offset);
+    }
+    return skus[offset];
+  }
+
+  /**
+   * Returns a {@link Basket} of the specified number of SKU ids from the
+   * specified offset. The SKU ids are not copied.
+   *
+   * @param offset
+   *            the offset of the first item
+   * @param count
+   *            the number of items
+   * @return a {@link Basket} of the items
+   * @throws IndexOutOfBoundsException
+   *             if the range was not appended
+   */
+  public Basket basket(final int offset, final int count) {
+    if (offset < 0 || count < 0 || offset > size - count) {
+      throw new IndexOutOfBoundsException("Range: " + offset + "+" + count);
+    }
+    if (count == 0) {
+      return Basket.EMPTY;
+    }
+    return new Basket(catalog, skus, offset, count, null);
+  }
+
+  /**
+   * Returns the number of SKU ids appended to this {@link SkuArea}.
+   *
+   * @return the number of SKU ids appended
+   */
+  public int size() {
+    return size;
+  }
+
+  private void ensureCapacity(final int extra) {
+    if (extra > skus.length - size) {
+      skus = Arrays.copyOf(skus,
+          Math.max(2 * skus.length, size + extra));
+    }
+  }
+
+}
@@ -0,0 +1,121 @@
+package simulator.random;
+
+/**
+ * <p>
+ * A {@link RandomStream} is a sequence of pseudorandom numbers produced by
+ * the SplitMix64 algorithm, the same algorithm used by
+ * {@link java.util.SplittableRandom}. Unlike {@link java.util.Random}, a
+ * {@link RandomStream} does not synchronize, and unlike
+ * {@link java.util.SplittableRandom} its entire state is a single
+ * {@code long} that can be read with {@link #getState()} and restored with
+ * {@link #RandomStream(long)}.
+ * </p>
+ * <p>
+ * A {@link RandomStream} is not safe for use by multiple threads. Each
+ * thread, or each simulated entity, should use its own stream obtained from
+ * {@link RandomStreams}.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class RandomStream {
+
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+  private long state;
+
+  /**
+   * Creates a {@link RandomStream} starting at the specified state.
+   *
+   * @param state
+   *            the initial state
+   */
+  public RandomStream(final long state) {
+    this.state = state;
+  }
+
+  /**
+   * Returns the current state of this {@link RandomStream}. A stream created
+   * with this state produces the same numbers as this stream from now on.
+   *
+   * @return the current state of this {@link RandomStream}
+   */
+  public long getState() {
+    return state;
+  }
+
+  /**
+   * Sets the internal state of this stream, as returned by
+   * {@link #getState()}. The stream then continues exactly where the stream
+   * the state was read from left off.
+   *
+   * @param state
+   *            the state to continue from
+   */
+  public void setState(final long state) {
+    this.state = state;
+  }
+
+  /**
+   * Returns the next pseudorandom {@code long}.
+   *
+   * @return the next pseudorandom {@code long}
+   */
+  public long nextLong() {
+    state += GOLDEN_GAMMA;
+    return mix64(state);
+  }
+
+  /**
+   * Returns a pseudorandom {@code int} in the range [0, bound).
+   *
+   * @param bound
+   *            the upper bound, exclusive
+   * @return a pseudorandom {@code int} in the range [0, bound)
+   * @throws IllegalArgumentException
+   *             if {@code bound} is not positive
+   */
+  public int nextInt(final int bound) {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("Bound must be positive.");
+    }
+    int r = (int) (nextLong() >>> 33);
+    int m = bound - 1;
+    if ((bound & m) == 0) {
+      return (int) ((bound * (long) r) >> 31);
+    }
+    // Reject values from the incomplete range at the top to avoid bias
+    for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) {
+      continue;
+    }
+    return r;
+  }
+
+  /**
+   * Returns a pseudorandom {@code double} in the range [0, 1).
+   *
+   * @return a pseudorandom {@code double} in the range [0, 1)
+   */
+  public double nextDouble() {
+    return (nextLong() >>> 11) * DOUBLE_UNIT;
+  }
+
+  /**
+   * Scrambles the bits of the specified value. This is the finalizer of the
+   * SplitMix64 algorithm.
+   *
+   * @param value
+   *            the value to scramble
+   * @return the scrambled value
+   */
+  static long mix64(final long value) {
+    long z = value;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+}
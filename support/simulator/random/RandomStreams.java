@@ -0,0 +1,136 @@
+package simulator.random;
+
+/**
+ * <p>
+ * A {@link RandomStreams} derives an independent {@link RandomStream} for
+ * each entity of a simulation from a single master seed. The stream of an
+ * entity only depends on the master seed and the entity's identity, never on
+ * the order in which entities draw numbers. This keeps simulations
+ * reproducible when entities are processed on several threads or in a
+ * different order.
+ * </p>
+ * <p>
+ * A {@link RandomStreams} is immutable and may be shared between threads.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class RandomStreams {
+
+  /**
+   * The master seed used when none is specified.
+   */
+  public static final long DEFAULT_SEED = 1984L;
+
+  private static final long WORLD = 1L;
+  private static final long SHOPPER = 2L;
+  private static final long STORE = 3L;
+  private static final long SOCIAL_NETWORK = 4L;
+  private static final long REPLICATION = 5L;
+  private static final long LINE_SELECTION = 6L;
+
+  private final long masterSeed;
+
+  /**
+   * Creates a {@link RandomStreams} with the specified master seed.
+   *
+   * @param masterSeed
+   *            the seed every stream is derived from
+   */
+  public RandomStreams(final long masterSeed) {
+    this.masterSeed = masterSeed;
+  }
+
+  /**
+   * Returns the master seed every stream is derived from.
+   *
+   * @return the master seed every stream is derived from
+   */
+  public long getMasterSeed() {
+    return masterSeed;
+  }
+
+  /**
+   * Returns a new stream for the {@link simulator.world.World}.
+   *
+   * @return a new stream for the {@link simulator.world.World}
+   */
+  public RandomStream forWorld() {
+    return new RandomStream(seed(WORLD, 0));
+  }
+
+  /**
+   * Returns a new stream for the {@link simulator.shopper.Shopper} with the
+   * specified unique ID.
+   *
+   * @param shopperID
+   *            the unique ID of the shopper
+   * @return a new stream for the shopper
+   */
+  public RandomStream forShopper(final int shopperID) {
+    return new RandomStream(seed(SHOPPER, shopperID));
+  }
+
+  /**
+   * Returns a new stream the {@link simulator.shopper.Shopper} with the
+   * specified unique ID uses to choose a line. It is independent of
+   * {@link #forShopper(int)}, so how a line is chosen does not change any
+   * other decision of the shopper.
+   *
+   * @param shopperID
+   *            the unique ID of the shopper
+   * @return a new line selection stream for the shopper
+   */
+  public RandomStream forLineSelection(final int shopperID) {
+    return new RandomStream(seed(LINE_SELECTION, shopperID));
+  }
+
+  /**
+   * Returns a new stream for the {@link simulator.store.AbstractGroceryStore}
+   * with the specified store ID.
+   *
+   * @param storeID
+   *            the ID of the store
+   * @return a new stream for the store
+   */
+  public RandomStream forStore(final int storeID) {
+    return new RandomStream(seed(STORE, storeID));
+  }
+
+  /**
+   * Returns a new stream for the {@link simulator.shopper.MyFacePagePlus}
+   * social network.
+   *
+   * @return a new stream for the social network
+   */
+  public RandomStream forSocialNetwork() {
+    return new RandomStream(seed(SOCIAL_NETWORK, 0));
+  }
+
+  /**
+   * Returns the {@link RandomStreams} of the specified replication. Every
+   * replication of a simulation draws from different, independent streams.
+   *
+   * @param replication
+   *            the replication number
+   * @return the {@link RandomStreams} of the specified replication
+   */
+  public RandomStreams forReplication(final int replication) {
+    return new RandomStreams(seed(REPLICATION, replication));
+  }
+
+  /**
+   * Derives the seed of the stream with the specified kind and identity.
+   *
+   * @param kind
+   *            the kind of entity
+   * @param id
+   *            the identity of the entity
+   * @return the seed of the stream
+   */
+  private long seed(final long kind, final long id) {
+    return RandomStream.mix64(RandomStream.mix64(masterSeed + kind) + id);
+  }
+
+}
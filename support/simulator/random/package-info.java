@@ -0,0 +1,6 @@
+/**
+ * Contains classes that provide deterministic,
+ * independent streams of random numbers.
+ **/
+
+package simulator.random;
@@ -0,0 +1,162 @@
+package simulator.shopper;
+
+import java.util.Arrays;
+import java.util.List;
+
+import simulator.checkout.CheckoutLineInterface;
+import simulator.random.RandomStream;
+
+/**
+ * <p>
+ * A {@link LineSelectionDrift} wraps a {@link LineSelectionPolicy} and
+ * reports how far its choices drift from those of the
+ * {@link ShortestLinePolicy}. For every choice it records how many more
+ * {@link Shopper}s were waiting in the chosen line than in the shortest line
+ * the {@link Shopper} could have entered, and the distribution of both
+ * lengths. Measuring this looks at every line, so it is meant for
+ * calibration runs only.
+ * </p>
+ *
+ * <pre>
+ * LineSelectionDrift drift =
+ *     new LineSelectionDrift(new SampledLinePolicy(2));
+ * store.setLineSelectionPolicy(drift);
+ * ...
+ * System.out.println(drift);
+ * </pre>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class LineSelectionDrift implements LineSelectionPolicy {
+
+  private static final int INITIAL_LENGTHS = 16;
+
+  private final LineSelectionPolicy policy;
+  private long decisions;
+  private long optimal;
+  private long excess;
+  private int maxExcess;
+  private long[] chosenLengths = new long[INITIAL_LENGTHS];
+  private long[] shortestLengths = new long[INITIAL_LENGTHS];
+
+  /**
+   * Creates a {@link LineSelectionDrift} measuring the specified policy.
+   *
+   * @param policy
+   *            the policy to measure
+   */
+  public LineSelectionDrift(final LineSelectionPolicy policy) {
+    if (policy == null) {
+      throw new NullPointerException();
+    }
+    this.policy = policy;
+  }
+
+  @Override
+  public CheckoutLineInterface selectLine(final Shopper shopper,
+      final List<CheckoutLineInterface> lines, final RandomStream random) {
+    CheckoutLineInterface chosen = policy.selectLine(shopper, lines, random);
+    CheckoutLineInterface shortest =
+        ShortestLinePolicy.findShortest(shopper, lines);
+    if (chosen != null && shortest != null) {
+      record(chosen.size(), shortest.size());
+    }
+    return chosen;
+  }
+
+  /**
+   * Returns the number of choices measured.
+   *
+   * @return the number of choices measured
+   */
+  public long getDecisions() {
+    return decisions;
+  }
+
+  /**
+   * Returns the fraction of choices that joined a shortest line.
+   *
+   * @return the fraction of choices that joined a shortest line
+   */
+  public double getOptimalFraction() {
+    return decisions == 0 ? 1.0 : (double) optimal / decisions;
+  }
+
+  /**
+   * Returns the average number of extra {@link Shopper}s in the chosen line
+   * compared to the shortest line.
+   *
+   * @return the average excess length of the chosen lines
+   */
+  public double getMeanExcessLength() {
+    return decisions == 0 ? 0.0 : (double) excess / decisions;
+  }
+
+  /**
+   * Returns the largest number of extra {@link Shopper}s in a chosen line
+   * compared to the shortest line.
+   *
+   * @return the largest excess length of a chosen line
+   */
+  public int getMaxExcessLength() {
+    return maxExcess;
+  }
+
+  /**
+   * Returns the total variation distance between the distribution of the
+   * lengths of the chosen lines and that of the shortest lines. It is 0 if
+   * both distributions are the same and 1 if they do not overlap at all.
+   *
+   * @return the distance between the two length distributions
+   */
+  public double getLengthDistributionDistance() {
+    if (decisions == 0) {
+      return 0.0;
+    }
+    long difference = 0;
+    for (int length = 0; length < chosenLengths.length; length++) {
+      difference += Math.abs(chosenLengths[length] - shortestLengths[length]);
+    }
+    return difference / (2.0 * decisions);
+  }
+
+  /**
+   * Returns a one line summary of the measured drift.
+   *
+   * @return a summary of the measured drift
+   */
+  @Override
+  public String toString() {
+    return String.format("decisions %d, optimal %.4f, mean excess %.4f, "
+        + "max excess %d, length distance %.4f", decisions,
+        getOptimalFraction(), getMeanExcessLength(), maxExcess,
+        getLengthDistributionDistance());
+  }
+
+  /**
+   * Records a single choice.
+   *
+   * @param chosen
+   *            the length of the chosen line
+   * @param shortest
+   *            the length of the shortest line
+   */
+  private void record(final int chosen, final int shortest) {
+    decisions++;
+    int extra = chosen - shortest;
+    if (extra == 0) {
+      optimal++;
+    }
+    excess += extra;
+    maxExcess = Math.max(maxExcess, extra);
+    if (chosen >= chosenLengths.length) {
+      int capacity = Integer.highestOneBit(chosen) * 2;
+      chosenLengths = Arrays.copyOf(chosenLengths, capacity);
+      shortestLengths = Arrays.copyOf(shortestLengths, capacity);
+    }
+    chosenLengths[chosen]++;
+    shortestLengths[shortest]++;
+  }
+
+}
@@ -0,0 +1,34 @@
+package simulator.shopper;
+
+import java.util.List;
+
+import simulator.checkout.CheckoutLineInterface;
+import simulator.random.RandomStream;
+
+/**
+ * A {@link LineSelectionPolicy} decides which line of a store a
+ * {@link Shopper} joins. The default, {@link ShortestLinePolicy}, looks at
+ * every line. Stores with hundreds of lines can trade a little fidelity for
+ * speed with a {@link SampledLinePolicy}.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public interface LineSelectionPolicy {
+
+  /**
+   * Returns the line the specified {@link Shopper} should join, or
+   * {@code null} if they cannot enter any of the lines.
+   *
+   * @param shopper
+   *            the shopper choosing a line
+   * @param lines
+   *            the lines of the store
+   * @param random
+   *            the stream the shopper chooses lines with
+   * @return the line to join, or {@code null}
+   */
+  CheckoutLineInterface selectLine(Shopper shopper,
+      List<CheckoutLineInterface> lines, RandomStream random);
+
+}
@@ -1,11 +1,13 @@
 package simulator.shopper;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
 
+import simulator.bigbrother.BigBrother;
 import simulator.bigbrother.BigBrotherIsWatchingYouException;
+import simulator.bigbrother.CheckpointReader;
+import simulator.bigbrother.CheckpointWriter;
+import simulator.bigbrother.SimulationContext;
+import simulator.random.RandomStream;
 import simulator.store.AbstractGroceryStore;
 
 /**
@@ -18,9 +20,16 @@ import simulator.store.AbstractGroceryStore;
  */
 public final class MyFacePagePlus {
 
-  private final Random rand = new Random(42);
+  private static final double MAX_RATING = 1.0;
 
-  private final Map<AbstractGroceryStore, Double> ratings;
+  private static final double MIN_RATING = 0.10;
+
+  private final SimulationContext context;
+
+  private final RandomStream rand;
+
+  // Indexed by store identifier
+  private final RatingTree ratings = new RatingTree(MAX_RATING);
 
   private int votes;
 
@@ -38,12 +47,7 @@ public final class MyFacePagePlus {
     if (store == null) {
       throw new NullPointerException();
     }
-    Double rating = ratings.get(store);
-    if (rating == null) {
-      rating = 1.0;
-      ratings.put(store, rating);
-    }
-    return rating;
+    return ratings.get(store.getStoreID());
   }
 
   /**
@@ -57,8 +61,8 @@ public final class MyFacePagePlus {
    *            the store to upvote
    */
   public void upvote(final AbstractGroceryStore store) {
-    double rating = Math.min(1.0, getRating(store) * 1.05);
-    ratings.put(store, rating);
+    double rating = Math.min(MAX_RATING, getRating(store) * 1.05);
+    ratings.set(store.getStoreID(), rating);
     this.votes++;
   }
 
@@ -73,11 +77,37 @@ public final class MyFacePagePlus {
    *            the store to downvote
    */
   public void downvote(final AbstractGroceryStore store) {
-    double rating = Math.max(0.10, getRating(store) * 0.75);
-    ratings.put(store, rating);
+    double rating = Math.max(MIN_RATING, getRating(store) * 0.75);
+    ratings.set(store.getStoreID(), rating);
     this.votes++;
   }
 
+  /**
+   * Selects one of the {@link AbstractGroceryStore}s registered with
+   * {@link BigBrother} with a probability proportional to its rating, using
+   * the specified {@link RandomStream}. This is the same distribution as
+   * {@link #selectStore(List, RandomStream)} over every store, but it takes a
+   * single draw and O(log n) time however low the ratings are.
+   *
+   * @param random
+   *            the stream to draw random numbers from
+   * @return a {@link AbstractGroceryStore}
+   * @throws IllegalArgumentException
+   *             if no store is registered
+   */
+  public AbstractGroceryStore selectStore(final RandomStream random) {
+    if (random == null) {
+      throw new NullPointerException();
+    }
+    BigBrother bigBrother = context.getBigBrother();
+    int stores = bigBrother.getStoreCount();
+    if (stores < 1) {
+      throw new IllegalArgumentException();
+    }
+    ratings.ensureSize(stores);
+    return bigBrother.getStore(ratings.find(random.nextDouble() * ratings.total()));
+  }
+
   /**
    * Given a {@link List} of {@link AbstractGroceryStore}s, selects one based
    * purely on their ratings. The higher a stores rating, the more likely it
@@ -88,21 +118,41 @@ public final class MyFacePagePlus {
    * @return a {@link AbstractGroceryStore}
    */
   public AbstractGroceryStore selectStore(final List<AbstractGroceryStore> stores) {
-    if (stores == null) {
+    return selectStore(stores, rand);
+  }
+
+  /**
+   * Given a {@link List} of {@link AbstractGroceryStore}s, selects one based
+   * purely on their ratings using the specified {@link RandomStream}. The
+   * higher a stores rating, the more likely it is to be chosen. A store is
+   * drawn uniformly and accepted with a probability equal to its rating until
+   * one is accepted. Since no rating is below 0.10, this takes at most ten
+   * draws on average.
+   *
+   * @param stores
+   *            the stores to choose from
+   * @param random
+   *            the stream to draw random numbers from
+   * @return a {@link AbstractGroceryStore}
+   */
+  public AbstractGroceryStore selectStore(final List<AbstractGroceryStore> stores,
+      final RandomStream random) {
+    if (stores == null || random == null) {
       throw new NullPointerException();
     }
     if (stores.size() < 1) {
       throw new IllegalArgumentException();
     }
 
-    int storeIndex = rand.nextInt(stores.size());
-    AbstractGroceryStore store = stores.get(storeIndex);
-    double chance = rand.nextDouble();
-    double rating = getRating(store);
-    if (chance <= rating) {
-      return store;
+    while (true) {
+      int storeIndex = random.nextInt(stores.size());
+      AbstractGroceryStore store = stores.get(storeIndex);
+      double chance = random.nextDouble();
+      double rating = getRating(store);
+      if (chance <= rating) {
+        return store;
+      }
     }
-    return selectStore(stores);
   }
 
   /**
@@ -114,24 +164,65 @@ public final class MyFacePagePlus {
   }
 
   /**
-   * Returns the {@link MyFacePagePlus} social networking site.
+   * Writes the ratings, the number of votes and the random state of this
+   * {@link MyFacePagePlus} to the specified {@link CheckpointWriter}. This is
+   * called by {@link simulator.bigbrother.BigBrother}.
+   *
+   * @param out
+   *            the writer to write to
+   */
+  public void saveState(final CheckpointWriter out) {
+    out.putLong(rand.getState());
+    out.putInt(votes);
+    out.putInt(ratings.size());
+    for (int i = 0; i < ratings.size(); i++) {
+      out.putDouble(ratings.get(i));
+    }
+  }
+
+  /**
+   * Restores the ratings, the number of votes and the random state of this
+   * {@link MyFacePagePlus} from the specified {@link CheckpointReader}. This
+   * is called by {@link simulator.bigbrother.BigBrother}.
+   *
+   * @param in
+   *            the reader to read from
+   */
+  public void restoreState(final CheckpointReader in) {
+    rand.setState(in.getLong());
+    votes = in.getInt();
+    double[] restored = new double[in.getInt()];
+    for (int i = 0; i < restored.length; i++) {
+      restored[i] = in.getDouble();
+    }
+    ratings.reset(restored);
+  }
+
+  /**
+   * Returns the {@link MyFacePagePlus} social networking site of the
+   * {@link SimulationContext} that is current on the calling thread.
    *
    * @return the {@link MyFacePagePlus} social networking site.
    */
   public static MyFacePagePlus getSocialNetwork() {
-    return MY_FACE_PAGE_PLUS_INSTANCE;
+    return SimulationContext.current().getSocialNetwork();
   }
 
-  private static final MyFacePagePlus MY_FACE_PAGE_PLUS_INSTANCE = new MyFacePagePlus();
   /**
-   * Constructs a MyFacePagePlus instance.
+   * Constructs a MyFacePagePlus instance for the specified
+   * {@link SimulationContext}. Each {@link SimulationContext} constructs its
+   * own social network.
+   *
+   * @param context
+   *            the {@link SimulationContext} this social network belongs to
    */
-  private MyFacePagePlus() {
-    if (MY_FACE_PAGE_PLUS_INSTANCE != null) {
+  public MyFacePagePlus(final SimulationContext context) {
+    if (context.getSocialNetwork() != null) {
       throw new BigBrotherIsWatchingYouException(
           "There can be only one social network!");
     }
-    this.ratings = new HashMap<AbstractGroceryStore, Double>();
+    this.context = context;
+    this.rand = context.getRandomStreams().forSocialNetwork();
   }
 
 }
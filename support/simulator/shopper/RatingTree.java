@@ -0,0 +1,163 @@
+package simulator.shopper;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A {@link RatingTree} holds the rating of every store, indexed by store
+ * identifier, in the leaves of a complete binary sum tree. Changing a rating
+ * and drawing a store with a probability proportional to its rating both take
+ * O(log n) time. Stores that were never rated have a rating of
+ * {@code initial}.
+ * </p>
+ * <p>
+ * Every inner node is recomputed as the sum of its two children rather than
+ * adjusted by the change of a leaf, so the tree only depends on the current
+ * ratings. Rounding errors do not build up over many votes, and a tree
+ * rebuilt from a checkpoint draws exactly the same stores as the original.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+final class RatingTree {
+
+  private final double initial;
+
+  // tree[1] is the root, the leaves start at tree[capacity]
+  private double[] tree = new double[2];
+  private int capacity = 1;
+  private int size;
+
+  /**
+   * Creates an empty {@link RatingTree}.
+   *
+   * @param initial
+   *            the rating of a store that was never rated
+   */
+  RatingTree(final double initial) {
+    this.initial = initial;
+  }
+
+  /**
+   * Returns the number of stores in this {@link RatingTree}.
+   *
+   * @return the number of stores
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the rating of the specified store.
+   *
+   * @param id
+   *            the identifier of the store
+   * @return the rating of the store
+   */
+  double get(final int id) {
+    return id < size ? tree[capacity + id] : initial;
+  }
+
+  /**
+   * Sets the rating of the specified store, adding every store up to it if
+   * needed.
+   *
+   * @param id
+   *            the identifier of the store
+   * @param rating
+   *            the new rating
+   */
+  void set(final int id, final double rating) {
+    ensureSize(id + 1);
+    int node = capacity + id;
+    tree[node] = rating;
+    for (node >>= 1; node > 0; node >>= 1) {
+      tree[node] = tree[2 * node] + tree[2 * node + 1];
+    }
+  }
+
+  /**
+   * Makes sure this {@link RatingTree} holds at least the specified number of
+   * stores. Added stores have the initial rating.
+   *
+   * @param n
+   *            the number of stores
+   */
+  void ensureSize(final int n) {
+    if (n <= size) {
+      return;
+    }
+    if (n > capacity) {
+      int grown = capacity;
+      while (grown < n) {
+        grown *= 2;
+      }
+      double[] leaves = Arrays.copyOfRange(tree, capacity, capacity + size);
+      tree = new double[2 * grown];
+      capacity = grown;
+      System.arraycopy(leaves, 0, tree, capacity, leaves.length);
+      Arrays.fill(tree, capacity + size, capacity + n, initial);
+      size = n;
+      for (int node = capacity - 1; node > 0; node--) {
+        tree[node] = tree[2 * node] + tree[2 * node + 1];
+      }
+      return;
+    }
+    while (size < n) {
+      set(size++, initial);
+    }
+  }
+
+  /**
+   * Returns the sum of all ratings.
+   *
+   * @return the sum of all ratings
+   */
+  double total() {
+    return tree[1];
+  }
+
+  /**
+   * Returns the store whose share of the total rating contains the specified
+   * point, that is, a store drawn with a probability proportional to its
+   * rating if {@code point} is uniform in [0, {@link #total()}).
+   *
+   * @param point
+   *            a point in [0, {@link #total()})
+   * @return the identifier of the store
+   */
+  int find(final double point) {
+    double remaining = point;
+    int node = 1;
+    while (node < capacity) {
+      double left = tree[2 * node];
+      if (remaining < left) {
+        node = 2 * node;
+      } else {
+        remaining -= left;
+        node = 2 * node + 1;
+      }
+    }
+    // Rounding may walk past the last store into the empty leaves
+    return Math.min(node - capacity, size - 1);
+  }
+
+  /**
+   * Replaces every rating. The ratings of stores beyond the array are
+   * dropped.
+   *
+   * @param ratings
+   *            the ratings indexed by store identifier
+   */
+  void reset(final double[] ratings) {
+    size = 0;
+    Arrays.fill(tree, 0);
+    ensureSize(ratings.length);
+    System.arraycopy(ratings, 0, tree, capacity, ratings.length);
+    for (int node = capacity - 1; node > 0; node--) {
+      tree[node] = tree[2 * node] + tree[2 * node + 1];
+    }
+  }
+
+}
@@ -0,0 +1,86 @@
+package simulator.shopper;
+
+import java.util.List;
+
+import simulator.checkout.CheckoutLineInterface;
+import simulator.random.RandomStream;
+
+/**
+ * <p>
+ * The {@link SampledLinePolicy} implements the power of d choices: a
+ * {@link Shopper} looks at {@code d} lines they can enter, picked at random,
+ * and joins the shortest of them. Choosing a line then takes constant time
+ * however many lines a store has, while queue lengths stay close to those of
+ * the {@link ShortestLinePolicy} even for {@code d = 2}.
+ * </p>
+ * <p>
+ * Lines are sampled with replacement. A line the {@link Shopper} cannot enter
+ * is skipped; if no line they can enter turns up after {@code 4 * d} draws,
+ * every line is looked at instead.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class SampledLinePolicy implements LineSelectionPolicy {
+
+  private static final int ATTEMPTS_PER_CHOICE = 4;
+
+  private final int choices;
+
+  /**
+   * Creates a {@link SampledLinePolicy} that looks at the specified number of
+   * lines.
+   *
+   * @param choices
+   *            the number of lines to look at, {@code d}
+   * @throws IllegalArgumentException
+   *             if {@code choices} is less than 1
+   */
+  public SampledLinePolicy(final int choices) {
+    if (choices < 1) {
+      throw new IllegalArgumentException("Choices must be greater than 0.");
+    }
+    this.choices = choices;
+  }
+
+  /**
+   * Returns the number of lines looked at.
+   *
+   * @return the number of lines looked at
+   */
+  public int getChoices() {
+    return choices;
+  }
+
+  @Override
+  public CheckoutLineInterface selectLine(final Shopper shopper,
+      final List<CheckoutLineInterface> lines, final RandomStream random) {
+    if (lines.isEmpty()) {
+      return null;
+    }
+    CheckoutLineInterface shortest = null;
+    int shortestIndex = -1;
+    int found = 0;
+    for (int attempt = 0; attempt < ATTEMPTS_PER_CHOICE * choices
+        && found < choices; attempt++) {
+      int index = random.nextInt(lines.size());
+      CheckoutLineInterface line = lines.get(index);
+      if (!line.canEnterLine(shopper)) {
+        continue;
+      }
+      found++;
+      // Ties go to the line that comes first, as with a full scan
+      if (shortest == null || line.size() < shortest.size()
+          || line.size() == shortest.size() && index < shortestIndex) {
+        shortest = line;
+        shortestIndex = index;
+      }
+    }
+    if (shortest == null) {
+      return ShortestLinePolicy.findShortest(shopper, lines);
+    }
+    return shortest;
+  }
+
+}
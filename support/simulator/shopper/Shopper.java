@@ -1,45 +1,46 @@
 package simulator.shopper;
 
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
-import java.util.Set;
 
 import simulator.bigbrother.BigBrother;
 import simulator.bigbrother.BigBrotherIsWatchingYouException;
+import simulator.bigbrother.CheckpointReader;
+import simulator.bigbrother.CheckpointWriter;
+import simulator.bigbrother.SimulationContext;
 import simulator.checkout.CheckoutLineInterface;
+import simulator.checkout.IntrusiveQueue;
 import simulator.checkout.Transaction;
+import simulator.grocery.BasketSummary;
+import simulator.grocery.GroceryCatalog;
 import simulator.grocery.GroceryInterface;
+import simulator.random.RandomStream;
 import simulator.store.AbstractGroceryStore;
+import simulator.store.LineIndex;
 
 /**
  * A {@link Shopper} contains a list of {@link GroceryInterface} items that they
- * wish to purchase from a store.
+ * wish to purchase from a store. The list is kept as an {@code int[]} of SKU
+ * ids in the {@link GroceryCatalog} of the {@link SimulationContext} the
+ * {@link Shopper} belongs to. All of the state of a {@link Shopper} is held
+ * by the {@link ShopperPopulation} of that {@link SimulationContext}; a
+ * {@link Shopper} is a handle made of their unique ID, and any two handles
+ * onto the same {@link Shopper} are equal.
  *
  * @author jcollard, jddevaug
  *
  */
 public class Shopper {
 
-  private static Random rand = new Random(1984);
-  private static int nextID;
-  private int waitingTime;
+  private static final int PATIENCE = 300;
+  private final ShopperPopulation population;
   private final int uniqueID;
-  private final List<GroceryInterface> groceries;
-  private final Set<Transaction> pastTransactions;
-  private boolean inline;
-  private boolean irate;
-  private boolean notifyBigBrother;
-  private AbstractGroceryStore store;
 
   /**
    * Creates a new {@link Shopper} that has a unique ID that no previously
-   * created {@link Shopper} has. The created {@link Shopper}'s shopping list
-   * will be a copy of the list specified.
+   * created {@link Shopper} of the current {@link SimulationContext} has. The
+   * created {@link Shopper}'s shopping list will be a copy of the list
+   * specified.
    *
    * @param groceries
    *            the shoppers grocery list
@@ -47,14 +48,61 @@ public class Shopper {
    *             if {@code groceries} is {@code null}
    */
   public Shopper(final List<GroceryInterface> groceries) {
+    this(SimulationContext.current().getShopperPopulation(), skus(groceries));
+  }
+
+  /**
+   * Creates a new {@link Shopper} that has a unique ID that no previously
+   * created {@link Shopper} of the current {@link SimulationContext} has. The
+   * created {@link Shopper}'s shopping list will be a copy of the specified
+   * SKU ids, which must belong to the {@link GroceryCatalog} of the current
+   * {@link SimulationContext}.
+   *
+   * @param basket
+   *            the SKU ids of the shoppers grocery list
+   * @throws NullPointerException
+   *             if {@code basket} is {@code null}
+   * @throws IllegalArgumentException
+   *             if a SKU id is not in the {@link GroceryCatalog}
+   */
+  public Shopper(final int[] basket) {
+    this(SimulationContext.current().getShopperPopulation(), basket);
+  }
+
+  private Shopper(final ShopperPopulation population, final int[] basket) {
+    this.population = population;
+    this.uniqueID = population.add(basket);
+    getContext().getBigBrother().registerShopper(this);
+  }
+
+  /**
+   * Creates a handle onto the existing {@link Shopper} with the specified
+   * unique ID. This is used by {@link ShopperPopulation#getShopper(int)}.
+   *
+   * @param population
+   *            the population holding the state of the shopper
+   * @param uniqueID
+   *            the unique ID of the shopper
+   */
+  Shopper(final ShopperPopulation population, final int uniqueID) {
+    this.population = population;
+    this.uniqueID = uniqueID;
+  }
+
+  private static int[] skus(final List<GroceryInterface> groceries) {
     if (groceries == null) {
       throw new NullPointerException();
     }
-    this.uniqueID = nextID++;
-    this.groceries = new LinkedList<GroceryInterface>(groceries);
-    this.inline = false;
-    this.pastTransactions = new HashSet<Transaction>();
-    BigBrother.getBigBrother().registerShopper(this);
+    return SimulationContext.current().getGroceryCatalog().intern(groceries);
+  }
+
+  /**
+   * Returns the {@link SimulationContext} this {@link Shopper} belongs to.
+   *
+   * @return the {@link SimulationContext} this {@link Shopper} belongs to
+   */
+  public final SimulationContext getContext() {
+    return population.getContext();
   }
 
   /**
@@ -66,15 +114,76 @@ public class Shopper {
     return uniqueID;
   }
 
+  /**
+   * Returns the {@link IntrusiveQueue} this {@link Shopper} is waiting in, or
+   * {@code null} if they are not waiting in one.
+   *
+   * @return the {@link IntrusiveQueue} this {@link Shopper} is waiting in
+   */
+  public final IntrusiveQueue getLine() {
+    return population.getLineLinks().getLine(uniqueID);
+  }
+
+  /**
+   * Removes this {@link Shopper} from the
+   * {@link simulator.checkout.IntrusiveQueue} they are waiting in, in constant
+   * time. A {@link Shopper} that left their line without being served is
+   * finished and will not be served by any store.
+   *
+   * @return {@code true} if this {@link Shopper} left an
+   *         {@link simulator.checkout.IntrusiveQueue} and {@code false}
+   *         otherwise
+   */
+  public final boolean leaveLine() {
+    IntrusiveQueue line = getLine();
+    if (line == null || !line.remove(this)) {
+      return false;
+    }
+    population.set(uniqueID, ShopperPopulation.IN_LINE, false);
+    return true;
+  }
+
   /**
    * Returns an immutable {@link List} containing this {@link Shopper}'s
-   * grocery items.
+   * grocery items. The list is a {@link simulator.grocery.Basket} viewing the
+   * SKU ids kept by the {@link ShopperPopulation}, so an
+   * {@link simulator.checkout.AbstractReceipt} made from it shares them
+   * instead of copying them. Each call returns a new view.
+   * <p>
+   * The items are interned by value in the
+   * {@link simulator.grocery.GroceryCatalog}, so each item is the first
+   * object with the same name, price, cost and handling rating, which is
+   * not necessarily the object given to the constructor. The list is
+   * therefore only equal to the original list, and only contains an original
+   * item, if the item classes compare by value.
+   * </p>
    *
    * @return an immutable {@link List} containing this {@link Shopper}'s
    *         grocery items
    */
   public final List<GroceryInterface> getShoppingList() {
-    return Collections.unmodifiableList(groceries);
+    return population.basket(uniqueID);
+  }
+
+  /**
+   * Returns the SKU ids of this {@link Shopper}'s grocery items in the
+   * {@link GroceryCatalog} of their {@link SimulationContext}. Modifying the
+   * returned array has no effect on this {@link Shopper}.
+   *
+   * @return the SKU ids of this {@link Shopper}'s grocery items
+   */
+  public final int[] getBasket() {
+    return population.basket(uniqueID).toSkuArray();
+  }
+
+  /**
+   * Returns the {@link BasketSummary} of this {@link Shopper}'s grocery items.
+   * It is {@link BasketSummary#EMPTY} once they put their groceries back.
+   *
+   * @return the {@link BasketSummary} of this {@link Shopper}'s grocery items
+   */
+  public final BasketSummary getBasketSummary() {
+    return population.basket(uniqueID).getSummary();
   }
 
   /**
@@ -85,7 +194,7 @@ public class Shopper {
    *         otherwise.
    */
   public final boolean isIrate() {
-    return irate;
+    return population.has(uniqueID, ShopperPopulation.IRATE);
   }
 
   /**
@@ -111,51 +220,67 @@ public class Shopper {
       throw new BigBrotherIsWatchingYouException(
           "You must give the shopper a valid transaction.");
     }
-    if (pastTransactions.contains(t)) {
-      throw new BigBrotherIsWatchingYouException(
-          "This is an old transaction.");
-    }
 
-    waitingTime += t.getTimeSteps();
-    notifyBigBrother = true;
-    inline = false;
-    rateStore(t);
+    population.setWaitingTime(uniqueID,
+        population.waitingTime(uniqueID) + t.getTimeSteps());
+    population.set(uniqueID, ShopperPopulation.IN_LINE, false);
+    population.setUnratedDiscount(uniqueID, t.getReceipt().getDiscount());
+    population.set(uniqueID, ShopperPopulation.UNRATED, true);
+    BigBrother bigBrother = getContext().getBigBrother();
+    bigBrother.recordTransaction(t);
+    if (!bigBrother.deferRating(this)) {
+      rateStore();
+    }
   }
+
   /**
-   * Rates the store given a {@link Transaction}.
-   * @param t
-   *          the {@link Transaction} for the {@link Shopper}'s visit
+   * Rates the store given the last completed {@link Transaction}. A
+   * {@link Shopper} rates each {@link Transaction} exactly once, so calling
+   * this method again has no effect. A {@link Shopper} who was checked out
+   * without choosing a store has no store to rate. This method is called by
+   * {@link BigBrother} once every store has been ticked.
    */
-  private void rateStore(final Transaction t) {
+  public final void rateStore() {
+    if (!population.has(uniqueID, ShopperPopulation.UNRATED)) {
+      return;
+    }
+    population.set(uniqueID, ShopperPopulation.UNRATED, false);
+    double discount = population.unratedDiscount(uniqueID);
+    AbstractGroceryStore store = getStore();
+    if (store == null) {
+      return;
+    }
+    MyFacePagePlus socialNetwork = getContext().getSocialNetwork();
 
     // If the customer left the store, they will give a down vote
-    if (irate) {
-      MyFacePagePlus.getSocialNetwork().downvote(store);
+    if (isIrate()) {
+      socialNetwork.downvote(store);
       return;
     }
 
     // If the customer gets a 50% discount, they will give an upvote
-    if (t.getReceipt().getDiscount() >= 0.50) {
-      MyFacePagePlus.getSocialNetwork().upvote(store);
+    if (discount >= 0.50) {
+      socialNetwork.upvote(store);
       return;
     }
 
     // Otherwise, calculate the chance for a downvote
-    int numberOfItems = groceries.size();
-    double discount = t.getReceipt().getDiscount();
+    int numberOfItems = population.basketSize(uniqueID);
 
     // Probability of a down vote
-    double prob = (waitingTime / (100.0 * numberOfItems)) * (1 - discount);
+    double prob = (getWaitingTime() / (100.0 * numberOfItems)) * (1 - discount);
 
     // Roll the magic die!
-    double chance = rand.nextDouble();
+    RandomStream random = new RandomStream(population.randomState(uniqueID));
+    double chance = random.nextDouble();
+    population.setRandomState(uniqueID, random.getState());
 
     if (chance < prob) {
-      MyFacePagePlus.getSocialNetwork().downvote(store);
+      socialNetwork.downvote(store);
       return;
     }
 
-    MyFacePagePlus.getSocialNetwork().upvote(store);
+    socialNetwork.upvote(store);
 
   }
 
@@ -164,35 +289,90 @@ public class Shopper {
    * they have been waiting for 300 or more ticks, they will put all of their
    * groceries back and become irate. An irate customer will always downvote
    * the {@link AbstractGroceryStore} they visited.
-   * @param transactions
-   *                    a {@link Set} of {@link Transaction}s to pass to {@link BigBrother}
    */
-  public void tick(final Map<AbstractGroceryStore, Set<Transaction>> transactions) {
-    notifyBigBrother(transactions);
-
-    if (inline) {
-      waitingTime++;
-      if (waitingTime >= 300) {
-        groceries.clear();
-        irate = true;
+  public void tick() {
+    tick(1);
+  }
+
+  /**
+   * Advances this {@link Shopper} by the specified number of time steps. This
+   * is equivalent to calling {@link #tick()} {@code steps} times and is
+   * used by {@link BigBrother} to skip time steps in which nothing happens.
+   * @param steps
+   *                    the number of time steps to advance
+   */
+  public void tick(final int steps) {
+    if (population.has(uniqueID, ShopperPopulation.IN_LINE)) {
+      int waitingTime = population.waitingTime(uniqueID) + steps;
+      population.setWaitingTime(uniqueID, waitingTime);
+      if (waitingTime >= PATIENCE) {
+        population.clearBasket(uniqueID);
+        population.set(uniqueID, ShopperPopulation.IRATE, true);
       }
     }
   }
 
+  /**
+   * Returns the number of time steps this {@link Shopper} is willing to wait
+   * in line before becoming irate. An irate {@link Shopper} has no patience
+   * left.
+   *
+   * @return the number of time steps this {@link Shopper} is willing to wait
+   *         in line before becoming irate
+   */
+  public final int getRemainingPatience() {
+    return Math.max(0, PATIENCE - getWaitingTime());
+  }
+
 
   /**
-   * Notifies {@link BigBrother} of a new {@link Transaction}.
-   * @param transMap
-   *                a {@link Map} of {@link AbstractGroceryStore}s
-   *                and their {@link Transaction}s
+   * Writes the state of this {@link Shopper} to the specified
+   * {@link CheckpointWriter}. This is called by {@link BigBrother} between
+   * time steps.
+   *
+   * @param out
+   *            the writer to write to
+   */
+  public final void saveState(final CheckpointWriter out) {
+    if (population.has(uniqueID, ShopperPopulation.UNRATED)) {
+      throw new IllegalStateException("Cannot checkpoint an unrated shopper.");
+    }
+    out.putInt(getWaitingTime());
+    out.putBoolean(isInLine());
+    out.putBoolean(isIrate());
+    out.putStore(getStore());
+    out.putLong(population.randomState(uniqueID));
+    out.putLong(population.lineRandomState(uniqueID));
+    List<GroceryInterface> basket = getShoppingList();
+    out.putInt(basket.size());
+    for (GroceryInterface g : basket) {
+      out.putGrocery(g);
+    }
+  }
+
+  /**
+   * Restores the state of this {@link Shopper} from the specified
+   * {@link CheckpointReader}. This is called by {@link BigBrother}.
+   *
+   * @param in
+   *            the reader to read from
    */
-  private void notifyBigBrother(
-     final Map<AbstractGroceryStore, Set<Transaction>> transMap) {
-    if (notifyBigBrother) {
-      notifyBigBrother = false;
-      Set<Transaction> trans = transMap.get(store); 
-      trans.addAll(pastTransactions);
+  public final void restoreState(final CheckpointReader in) {
+    population.setWaitingTime(uniqueID, in.getInt());
+    population.set(uniqueID, ShopperPopulation.IN_LINE, in.getBoolean());
+    population.set(uniqueID, ShopperPopulation.IRATE, in.getBoolean());
+    AbstractGroceryStore store = in.getStore();
+    population.setStore(uniqueID, store == null
+        ? ShopperPopulation.NO_STORE : store.getStoreID());
+    population.setRandomState(uniqueID, in.getLong());
+    population.setLineRandomState(uniqueID, in.getLong());
+    GroceryCatalog catalog = getContext().getGroceryCatalog();
+    int items = in.getInt();
+    int[] skus = new int[items];
+    for (int i = 0; i < items; i++) {
+      skus[i] = catalog.intern(in.getGrocery());
     }
+    population.setBasket(uniqueID, skus);
   }
 
   /**
@@ -204,7 +384,18 @@ public class Shopper {
    *         {@link AbstractGroceryStore} and {@code false} otherwise.
    */
   public boolean isInStore() {
-    return store != null;
+    return population.store(uniqueID) != ShopperPopulation.NO_STORE;
+  }
+
+  /**
+   * Returns {@code true} if this {@link Shopper} is waiting in a line and
+   * {@code false} otherwise.
+   *
+   * @return {@code true} if this {@link Shopper} is waiting in a line and
+   *         {@code false} otherwise.
+   */
+  public final boolean isInLine() {
+    return population.has(uniqueID, ShopperPopulation.IN_LINE);
   }
 
   /**
@@ -215,7 +406,7 @@ public class Shopper {
    *         an {@link AbstractGroceryStore}
    */
   public final int getWaitingTime() {
-    return waitingTime;
+    return population.waitingTime(uniqueID);
   }
 
   /**
@@ -223,7 +414,9 @@ public class Shopper {
    * @return the {@link AbstractGroceryStore} this {@link Shopper} visited.
    */
   public AbstractGroceryStore getStore() {
-    return store;
+    int storeID = population.store(uniqueID);
+    return storeID == ShopperPopulation.NO_STORE ? null
+        : getContext().getBigBrother().getStore(storeID);
   }
 
   /**
@@ -238,60 +431,89 @@ public class Shopper {
    *         {@code false} otherwise.
    */
   public final boolean selectLine(final List<CheckoutLineInterface> lines) {
-    // If this shopper is already in a line, don't select a new line
-    if (inline) {
-      return false;
-    }
+    return selectLine(lines, ShortestLinePolicy.INSTANCE);
+  }
 
-    // Find the shortest line possible
-    CheckoutLineInterface shortest = findShortest(lines);
+  /**
+   * Given a {@link List} of {@link CheckoutLineInterface}s, this
+   * {@link Shopper} will enter the line chosen by the specified
+   * {@link LineSelectionPolicy}. If they entered a line, this method returns
+   * {@code true} and {@code false} otherwise.
+   *
+   * @param lines
+   *            the list of lines to try
+   * @param policy
+   *            the policy choosing the line
+   * @return {@code true} if this {@link Shopper} entered a line and
+   *         {@code false} otherwise.
+   */
+  public final boolean selectLine(final List<CheckoutLineInterface> lines,
+      final LineSelectionPolicy policy) {
+    return joinLine(lines, policy) != null;
+  }
 
-    // If the shopper was not able to join any lines,
-    // return false
+  /**
+   * Given the {@link LineIndex} of a store, this {@link Shopper} will find the
+   * shortest line that they can enter, choosing the same line as
+   * {@link #selectLine(List)} would. If they entered a line, this method
+   * returns {@code true} and {@code false} otherwise.
+   *
+   * @param index
+   *            the indexed lines of a store
+   * @return {@code true} if this {@link Shopper} entered a line and
+   *         {@code false} otherwise.
+   */
+  public final boolean selectLine(final LineIndex index) {
+    if (isInLine()) {
+      return false;
+    }
+    CheckoutLineInterface shortest = index.findShortest(this);
     if (shortest == null) {
       return false;
     }
-
-    // Otherwise, this shopper is in the shortest line
     shortest.enqueue(this);
-    inline = true;
-
+    index.update(shortest);
+    population.set(uniqueID, ShopperPopulation.IN_LINE, true);
     return true;
   }
 
   /**
-   * Finds the shortest line that can be entered.
+   * Enters the line chosen by the specified {@link LineSelectionPolicy}.
+   *
    * @param lines
-   *              the list of {@link CheckoutlineInterface}s associated
-   *              with the {@link AbstractGrocery} the {@link Shopper}
-   *              is in.
-   * @return
-   *          the {@link CheckoutLineInterface} with the fewest number
-   *          of {@link Shopper}s
+   *            the list of lines to try
+   * @param policy
+   *            the policy choosing the line
+   * @return the line this {@link Shopper} entered, or {@code null} if they
+   *         did not enter a line
    */
-  private CheckoutLineInterface findShortest(
-      final List<CheckoutLineInterface> lines) {
-    CheckoutLineInterface shortest = null;
-    for (CheckoutLineInterface line : lines) {
-      // If the line cannot be entered, check the next line.
-      if (!line.canEnterLine(this)) {
-        continue;
-      }
+  private CheckoutLineInterface joinLine(
+      final List<CheckoutLineInterface> lines, final LineSelectionPolicy policy) {
+    if (lines == null || policy == null) {
+      throw new NullPointerException();
+    }
+    // If this shopper is already in a line, don't select a new line
+    if (isInLine()) {
+      return null;
+    }
 
-      // If this is the first line that can be entered, it must be the
-      // shortest line
-      if (shortest == null) {
-        shortest = line;
-      }
+    // Let the policy find a line, usually the shortest line possible
+    RandomStream lineRandom =
+        new RandomStream(population.lineRandomState(uniqueID));
+    CheckoutLineInterface chosen = policy.selectLine(this, lines, lineRandom);
+    population.setLineRandomState(uniqueID, lineRandom.getState());
 
-      // If this line is shorter than the previously found shortest line,
-      // it must be the shortest line
-      if (shortest.size() > line.size()) {
-        shortest = line;
-      }
+    // If the shopper was not able to join any lines,
+    // return null
+    if (chosen == null) {
+      return null;
     }
-    // Returns the shortest line or null if one could not be found
-    return shortest;
+
+    // Otherwise, this shopper is in the chosen line
+    chosen.enqueue(this);
+    population.set(uniqueID, ShopperPopulation.IN_LINE, true);
+
+    return chosen;
   }
 
   /**
@@ -309,13 +531,90 @@ public class Shopper {
     if (stores == null || stores.size() < 1) {
       throw new IllegalArgumentException();
     }
-    if (store != null) {
+    if (isInStore()) {
+      return false;
+    }
+    RandomStream random = new RandomStream(population.randomState(uniqueID));
+    AbstractGroceryStore store =
+        getContext().getSocialNetwork().selectStore(stores, random);
+    population.setRandomState(uniqueID, random.getState());
+    return enterStore(store);
+  }
+
+  /**
+   * This {@link Shopper} uses the social networking site
+   * {@link MyFacePagePlus} to select one of the stores registered with
+   * {@link simulator.bigbrother.BigBrother}, with one weighted draw. Once a
+   * store has been chosen, the {@link Shopper} will try to find a line they
+   * can enter.
+   *
+   * @return {@code true} if the {@link Shopper} entered a line and
+   *         {@code false} otherwise.
+   * @throws IllegalArgumentException
+   *             if no store is registered
+   */
+  public boolean goShopping() {
+    if (isInStore()) {
       return false;
     }
+    RandomStream random = new RandomStream(population.randomState(uniqueID));
+    AbstractGroceryStore store =
+        getContext().getSocialNetwork().selectStore(random);
+    population.setRandomState(uniqueID, random.getState());
+    return enterStore(store);
+  }
 
-    store = MyFacePagePlus.getSocialNetwork().selectStore(stores);
+  /**
+   * Tries to find a line to enter in the specified store.
+   *
+   * @param store
+   *            the store chosen by this {@link Shopper}
+   * @return {@code true} if the {@link Shopper} entered a line and
+   *         {@code false} otherwise.
+   */
+  private boolean enterStore(final AbstractGroceryStore store) {
+    population.setStore(uniqueID, store.getStoreID());
+
+    LineIndex index = store.getLineIndex();
+    LineSelectionPolicy policy = store.getLineSelectionPolicy();
+    if (policy == null) {
+      if (index != null) {
+        return selectLine(index);
+      }
+      policy = ShortestLinePolicy.INSTANCE;
+    }
+    CheckoutLineInterface joined = joinLine(store.getLines(), policy);
+    if (joined != null && index != null) {
+      index.update(joined);
+    }
+    return joined != null;
+  }
+
+  /**
+   * Returns {@code true} if the specified object is a handle onto the same
+   * {@link Shopper} as this one and {@code false} otherwise.
+   *
+   * @param obj
+   *            the object to compare with
+   * @return {@code true} if {@code obj} is the same {@link Shopper}
+   */
+  @Override
+  public boolean equals(final Object obj) {
+    if (!(obj instanceof Shopper)) {
+      return false;
+    }
+    Shopper other = (Shopper) obj;
+    return population == other.population && uniqueID == other.uniqueID;
+  }
+
+  @Override
+  public int hashCode() {
+    return uniqueID;
+  }
 
-    return selectLine(store.getLines());
+  @Override
+  public String toString() {
+    return "Shopper[" + uniqueID + "]";
   }
 
 }
@@ -0,0 +1,352 @@
+package simulator.shopper;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import simulator.bigbrother.SimulationContext;
+import simulator.checkout.LineLinks;
+import simulator.grocery.Basket;
+import simulator.grocery.SkuArea;
+import simulator.random.RandomStreams;
+
+/**
+ * <p>
+ * A {@link ShopperPopulation} holds the state of every {@link Shopper} of a
+ * {@link SimulationContext} in parallel arrays indexed by the unique ID of
+ * the {@link Shopper}: the waiting time, whether they are in line or irate,
+ * the identifier of the store they visited, the state of their random
+ * streams, their place in line and the offset and size of their basket in a
+ * shared {@link SkuArea}. A {@link Shopper} is only a handle made of their
+ * unique ID and this {@link ShopperPopulation}, so the state of a run with
+ * millions of shoppers takes a few dozen bytes per shopper, scanning it does
+ * not chase pointers, and no {@link Shopper} object needs to be kept once
+ * nothing refers to it. {@link #getShopper(int)} makes a new handle from an
+ * ID.
+ * </p>
+ * <p>
+ * The flags of the {@link Shopper}s are kept in bit sets that are updated
+ * atomically, since two stores ticked on different threads may change the
+ * flags of {@link Shopper}s sharing a word. Everything else is only written
+ * by the thread serving the {@link Shopper}, and the arrays only grow while
+ * no store is being ticked.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class ShopperPopulation {
+
+  /**
+   * The store identifier of a {@link Shopper} that has not chosen a store.
+   */
+  public static final int NO_STORE = -1;
+
+  static final int IN_LINE = 0;
+  static final int IRATE = 1;
+  static final int UNRATED = 2;
+
+  private static final int FLAGS = 3;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final SimulationContext context;
+  private final SkuArea skus;
+  private final LineLinks lineLinks;
+  private int[] waitingTimes = new int[INITIAL_CAPACITY];
+  private int[] stores = new int[INITIAL_CAPACITY];
+  private int[] basketOffsets = new int[INITIAL_CAPACITY];
+  private int[] basketSizes = new int[INITIAL_CAPACITY];
+  private long[] randomStates = new long[INITIAL_CAPACITY];
+  private long[] lineRandomStates = new long[INITIAL_CAPACITY];
+  // The discount of the transaction a shopper has yet to rate
+  private double[] unratedDiscounts = new double[INITIAL_CAPACITY];
+  private final AtomicLongArray[] flags = new AtomicLongArray[FLAGS];
+  private int size;
+
+  /**
+   * Creates the empty {@link ShopperPopulation} of the specified
+   * {@link SimulationContext}.
+   *
+   * @param context
+   *            the simulation the shoppers belong to
+   */
+  public ShopperPopulation(final SimulationContext context) {
+    if (context == null) {
+      throw new NullPointerException();
+    }
+    this.context = context;
+    this.skus = new SkuArea(context.getGroceryCatalog());
+    this.lineLinks = new LineLinks(this, INITIAL_CAPACITY);
+    for (int flag = 0; flag < FLAGS; flag++) {
+      flags[flag] = new AtomicLongArray(INITIAL_CAPACITY / Long.SIZE);
+    }
+  }
+
+  /**
+   * Adds the entry of a new {@link Shopper} with the specified basket and
+   * returns their unique ID.
+   *
+   * @param basket
+   *            the SKU ids of the basket of the shopper
+   * @return the unique ID of the new shopper
+   * @throws IllegalArgumentException
+   *             if a SKU id is not in the
+   *             {@link simulator.grocery.GroceryCatalog}
+   */
+  int add(final int[] basket) {
+    // An invalid basket must not use up a shopper ID
+    int offset = skus.append(basket);
+    int id = context.nextShopperID();
+    if (id != size) {
+      throw new IllegalStateException("Shopper " + id
+          + " was not created by this simulation.");
+    }
+    if (size == waitingTimes.length) {
+      grow(size * 2);
+    }
+    RandomStreams streams = context.getRandomStreams();
+    stores[id] = NO_STORE;
+    basketOffsets[id] = offset;
+    basketSizes[id] = basket.length;
+    randomStates[id] = streams.forShopper(id).getState();
+    lineRandomStates[id] = streams.forLineSelection(id).getState();
+    size++;
+    return id;
+  }
+
+  private void grow(final int capacity) {
+    waitingTimes = Arrays.copyOf(waitingTimes, capacity);
+    stores = Arrays.copyOf(stores, capacity);
+    basketOffsets = Arrays.copyOf(basketOffsets, capacity);
+    basketSizes = Arrays.copyOf(basketSizes, capacity);
+    randomStates = Arrays.copyOf(randomStates, capacity);
+    lineRandomStates = Arrays.copyOf(lineRandomStates, capacity);
+    unratedDiscounts = Arrays.copyOf(unratedDiscounts, capacity);
+    for (int flag = 0; flag < FLAGS; flag++) {
+      AtomicLongArray bits = new AtomicLongArray(capacity / Long.SIZE);
+      for (int word = 0; word < flags[flag].length(); word++) {
+        bits.set(word, flags[flag].get(word));
+      }
+      flags[flag] = bits;
+    }
+    lineLinks.ensureCapacity(capacity);
+  }
+
+  /**
+   * Returns the number of {@link Shopper}s in this {@link ShopperPopulation}.
+   *
+   * @return the number of {@link Shopper}s
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a handle onto the {@link Shopper} with the specified ID. The
+   * handle is equal to every other handle onto the same {@link Shopper}.
+   *
+   * @param id
+   *            the unique ID of the shopper
+   * @return the shopper with that ID
+   * @throws IllegalArgumentException
+   *             if there is no shopper with that ID
+   */
+  public Shopper getShopper(final int id) {
+    check(id);
+    return new Shopper(this, id);
+  }
+
+  /**
+   * Returns the waiting time of the {@link Shopper} with the specified ID.
+   *
+   * @param id
+   *            the unique ID of the shopper
+   * @return the waiting time of the shopper
+   * @throws IllegalArgumentException
+   *             if there is no shopper with that ID
+   */
+  public int getWaitingTime(final int id) {
+    check(id);
+    return waitingTimes[id];
+  }
+
+  /**
+   * Returns {@code true} if the {@link Shopper} with the specified ID is in
+   * line and {@code false} otherwise.
+   *
+   * @param id
+   *            the unique ID of the shopper
+   * @return {@code true} if the shopper is in line
+   * @throws IllegalArgumentException
+   *             if there is no shopper with that ID
+   */
+  public boolean isInLine(final int id) {
+    check(id);
+    return has(id, IN_LINE);
+  }
+
+  /**
+   * Returns {@code true} if the {@link Shopper} with the specified ID is irate
+   * and {@code false} otherwise.
+   *
+   * @param id
+   *            the unique ID of the shopper
+   * @return {@code true} if the shopper is irate
+   * @throws IllegalArgumentException
+   *             if there is no shopper with that ID
+   */
+  public boolean isIrate(final int id) {
+    check(id);
+    return has(id, IRATE);
+  }
+
+  /**
+   * Returns the identifier of the store the {@link Shopper} with the
+   * specified ID visited, or {@link #NO_STORE}.
+   *
+   * @param id
+   *            the unique ID of the shopper
+   * @return the identifier of the store the shopper visited
+   * @throws IllegalArgumentException
+   *             if there is no shopper with that ID
+   */
+  public int getStoreID(final int id) {
+    check(id);
+    return stores[id];
+  }
+
+  /**
+   * Returns the {@link Basket} of the {@link Shopper} with the specified ID.
+   *
+   * @param id
+   *            the unique ID of the shopper
+   * @return the basket of the shopper
+   * @throws IllegalArgumentException
+   *             if there is no shopper with that ID
+   */
+  public Basket getBasket(final int id) {
+    check(id);
+    return basket(id);
+  }
+
+  /**
+   * Returns the number of {@link Shopper}s that are waiting in line.
+   *
+   * @return the number of shoppers in line
+   */
+  public int countInLine() {
+    return count(IN_LINE);
+  }
+
+  /**
+   * Returns the number of {@link Shopper}s that are irate.
+   *
+   * @return the number of irate shoppers
+   */
+  public int countIrate() {
+    return count(IRATE);
+  }
+
+  /**
+   * Returns the {@link LineLinks} holding the place of every {@link Shopper}
+   * in an {@link simulator.checkout.IntrusiveQueue}.
+   *
+   * @return the line links of the shoppers
+   */
+  public LineLinks getLineLinks() {
+    return lineLinks;
+  }
+
+  SimulationContext getContext() {
+    return context;
+  }
+
+  int waitingTime(final int id) {
+    return waitingTimes[id];
+  }
+
+  void setWaitingTime(final int id, final int waitingTime) {
+    waitingTimes[id] = waitingTime;
+  }
+
+  boolean has(final int id, final int flag) {
+    return (flags[flag].get(id >>> 6) & (1L << id)) != 0;
+  }
+
+  void set(final int id, final int flag, final boolean value) {
+    AtomicLongArray bits = flags[flag];
+    int word = id >>> 6;
+    long mask = 1L << id;
+    long old;
+    long updated;
+    do {
+      old = bits.get(word);
+      updated = value ? old | mask : old & ~mask;
+    } while (old != updated && !bits.compareAndSet(word, old, updated));
+  }
+
+  int store(final int id) {
+    return stores[id];
+  }
+
+  void setStore(final int id, final int storeID) {
+    stores[id] = storeID;
+  }
+
+  Basket basket(final int id) {
+    return skus.basket(basketOffsets[id], basketSizes[id]);
+  }
+
+  int basketSize(final int id) {
+    return basketSizes[id];
+  }
+
+  void setBasket(final int id, final int[] basket) {
+    basketOffsets[id] = skus.append(basket);
+    basketSizes[id] = basket.length;
+  }
+
+  void clearBasket(final int id) {
+    basketSizes[id] = 0;
+  }
+
+  long randomState(final int id) {
+    return randomStates[id];
+  }
+
+  void setRandomState(final int id, final long state) {
+    randomStates[id] = state;
+  }
+
+  long lineRandomState(final int id) {
+    return lineRandomStates[id];
+  }
+
+  void setLineRandomState(final int id, final long state) {
+    lineRandomStates[id] = state;
+  }
+
+  double unratedDiscount(final int id) {
+    return unratedDiscounts[id];
+  }
+
+  void setUnratedDiscount(final int id, final double discount) {
+    unratedDiscounts[id] = discount;
+  }
+
+  private int count(final int flag) {
+    AtomicLongArray bits = flags[flag];
+    int count = 0;
+    for (int word = 0; word < (size + Long.SIZE - 1) / Long.SIZE; word++) {
+      count += Long.bitCount(bits.get(word));
+    }
+    return count;
+  }
+
+  private void check(final int id) {
+    if (id < 0 || id >= size) {
+      throw new IllegalArgumentException("Unknown shopper " + id + ".");
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+package simulator.shopper;
+
+import java.util.List;
+
+import simulator.checkout.CheckoutLineInterface;
+import simulator.random.RandomStream;
+
+/**
+ * The {@link ShortestLinePolicy} chooses the shortest line a {@link Shopper}
+ * can enter by looking at every line. Of several shortest lines, the first is
+ * chosen.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class ShortestLinePolicy implements LineSelectionPolicy {
+
+  /**
+   * The only instance of {@link ShortestLinePolicy}.
+   */
+  public static final ShortestLinePolicy INSTANCE = new ShortestLinePolicy();
+
+  /**
+   * Use {@link #INSTANCE}.
+   */
+  private ShortestLinePolicy() {
+  }
+
+  @Override
+  public CheckoutLineInterface selectLine(final Shopper shopper,
+      final List<CheckoutLineInterface> lines, final RandomStream random) {
+    return findShortest(shopper, lines);
+  }
+
+  /**
+   * Finds the shortest line that can be entered.
+   * @param shopper
+   *              the {@link Shopper} looking for a line
+   * @param lines
+   *              the list of {@link CheckoutLineInterface}s associated
+   *              with the {@link simulator.store.AbstractGroceryStore} the
+   *              {@link Shopper} is in.
+   * @return
+   *          the {@link CheckoutLineInterface} with the fewest number
+   *          of {@link Shopper}s
+   */
+  static CheckoutLineInterface findShortest(final Shopper shopper,
+      final List<CheckoutLineInterface> lines) {
+    CheckoutLineInterface shortest = null;
+    for (CheckoutLineInterface line : lines) {
+      // If the line cannot be entered, check the next line.
+      if (!line.canEnterLine(shopper)) {
+        continue;
+      }
+
+      // If this is the first line that can be entered, it must be the
+      // shortest line
+      if (shortest == null) {
+        shortest = line;
+      }
+
+      // If this line is shorter than the previously found shortest line,
+      // it must be the shortest line
+      if (shortest.size() > line.size()) {
+        shortest = line;
+      }
+    }
+    // Returns the shortest line or null if one could not be found
+    return shortest;
+  }
+
+}
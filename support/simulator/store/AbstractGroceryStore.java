@@ -3,8 +3,18 @@ package simulator.store;
 import java.util.List;
 
 import simulator.bigbrother.BigBrother;
+import simulator.bigbrother.CheckpointReader;
+import simulator.bigbrother.CheckpointWriter;
+import simulator.bigbrother.Checkpointable;
+import simulator.bigbrother.SimulationContext;
+import simulator.bigbrother.StoreLedger;
+import simulator.checkout.AbstractRegister;
 import simulator.checkout.CheckoutLineInterface;
+import simulator.checkout.RegisterBatch;
 import simulator.checkout.Transaction;
+import simulator.random.RandomStream;
+import simulator.shopper.LineSelectionPolicy;
+import simulator.shopper.Shopper;
 
 /**
  * An {@link AbstractGroceryStore} defines a store in the Grocery Store
@@ -16,19 +26,301 @@ import simulator.checkout.Transaction;
  */
 public abstract class AbstractGroceryStore {
 
+  private final SimulationContext context;
+
+  private final int storeID;
+
+  private RandomStream random;
+
+  private LineIndex lineIndex;
+
+  private LineSelectionPolicy lineSelectionPolicy;
+
+  // The shoppers served during the current tick, if registers run in parallel
+  private RegisterBatch registerBatch;
+
   /**
-   * Registers this {@link AbstractGroceryStore} with {@link BigBrother}.
+   * Registers this {@link AbstractGroceryStore} with the {@link BigBrother}
+   * of the current {@link SimulationContext}.
    */
   protected AbstractGroceryStore() {
-    BigBrother.getBigBrother().registerStore(this);
+    context = SimulationContext.current();
+    storeID = context.getBigBrother().registerStore(this);
+  }
+
+  /**
+   * Returns the identifier of this {@link AbstractGroceryStore}. Stores are
+   * numbered 0, 1, 2, ... in the order they were constructed.
+   *
+   * @return the identifier of this {@link AbstractGroceryStore}
+   */
+  public final int getStoreID() {
+    return storeID;
+  }
+
+  /**
+   * Returns the {@link RandomStream} of this {@link AbstractGroceryStore}.
+   * Stores that make random decisions should draw from this stream so that
+   * simulations stay reproducible.
+   *
+   * @return the {@link RandomStream} of this {@link AbstractGroceryStore}
+   */
+  protected final RandomStream getRandom() {
+    if (random == null) {
+      random = context.getRandomStreams().forStore(storeID);
+    }
+    return random;
+  }
+
+  /**
+   * Keeps the lines returned by {@link #getLines()} in a {@link LineIndex}, so
+   * arriving {@link Shopper}s find the shortest line in O(log n) instead of
+   * looking at every line. This should be called once, at the end of the
+   * constructor. A store that indexes its lines must dequeue
+   * {@link Shopper}s with {@link #dequeue(CheckoutLineInterface)}.
+   */
+  protected final void indexLines() {
+    lineIndex = new LineIndex(getLines());
+  }
+
+  /**
+   * Returns the {@link StoreLedger} of this {@link AbstractGroceryStore}: the
+   * running totals of every {@link Transaction} completed here. Reading a
+   * total takes constant time, so a store can report its sales and waiting
+   * times without keeping its {@link Transaction}s.
+   *
+   * @return the {@link StoreLedger} of this {@link AbstractGroceryStore}
+   */
+  public final StoreLedger getLedger() {
+    return context.getBigBrother().getLedger(this);
+  }
+
+  /**
+   * Returns the {@link LineIndex} of this {@link AbstractGroceryStore}, or
+   * {@code null} if its lines are not indexed.
+   *
+   * @return the {@link LineIndex} of this {@link AbstractGroceryStore}
+   */
+  public final LineIndex getLineIndex() {
+    return lineIndex;
+  }
+
+  /**
+   * Returns the {@link LineSelectionPolicy} arriving {@link Shopper}s use to
+   * choose a line, or {@code null} if they look for the shortest line.
+   *
+   * @return the {@link LineSelectionPolicy} of this store, or {@code null}
+   */
+  public final LineSelectionPolicy getLineSelectionPolicy() {
+    return lineSelectionPolicy;
+  }
+
+  /**
+   * Sets the {@link LineSelectionPolicy} arriving {@link Shopper}s use to
+   * choose a line. With {@code null}, the default, they join the shortest
+   * line they can enter, using the {@link LineIndex} if there is one.
+   *
+   * @param policy
+   *            the policy to use, or {@code null}
+   */
+  public final void setLineSelectionPolicy(final LineSelectionPolicy policy) {
+    this.lineSelectionPolicy = policy;
+  }
+
+  /**
+   * Removes the first {@link Shopper} from the specified line and returns
+   * them, keeping the {@link LineIndex} up to date.
+   *
+   * @param line
+   *            one of the lines of this store
+   * @return the {@link Shopper} that was first in line
+   * @throws IllegalStateException
+   *             if {@code line} is empty
+   */
+  protected final Shopper dequeue(final CheckoutLineInterface line) {
+    Shopper shopper = line.dequeue();
+    if (lineIndex != null) {
+      lineIndex.update(line);
+    }
+    return shopper;
+  }
+
+  /**
+   * Returns {@code true} if the free registers of this
+   * {@link AbstractGroceryStore} process their {@link Shopper}s in parallel.
+   *
+   * @return {@code true} if registers process shoppers in parallel
+   */
+  public final boolean isParallelRegisters() {
+    return registerBatch != null;
+  }
+
+  /**
+   * <p>
+   * Sets whether the free registers of this {@link AbstractGroceryStore}
+   * process their {@link Shopper}s in parallel. When they do,
+   * {@link #processShopper(AbstractRegister, Shopper)} only collects the
+   * {@link Shopper}s of a tick in a {@link RegisterBatch}, which creates their
+   * {@link Transaction}s concurrently once {@link #tick()} returns and then
+   * commits them in the order they were collected.
+   * </p>
+   * <p>
+   * A register given a {@link Shopper} is busy right away in either mode, so
+   * a {@link #tick()} that serves its lines with the free registers makes the
+   * same choices. The running costs, {@link Transaction}s, waiting times and
+   * {@link #getLedger() ledger} totals only change once the tick is over, so
+   * the results are the same as processing every {@link Shopper} immediately
+   * if {@link #tick()} does not read them after serving a {@link Shopper}.
+   * </p>
+   * <p>
+   * This must not be called during a tick.
+   * </p>
+   *
+   * @param parallel
+   *            {@code true} to process shoppers in parallel
+   */
+  public final void setParallelRegisters(final boolean parallel) {
+    if (!parallel) {
+      registerBatch = null;
+    } else if (registerBatch == null) {
+      registerBatch = new RegisterBatch();
+    }
+  }
+
+  /**
+   * Has the specified {@link AbstractRegister} process the specified
+   * {@link Shopper}. If registers process shoppers in parallel, the register
+   * becomes busy right away but the {@link Transaction} is only created at
+   * the end of the tick.
+   *
+   * @param register
+   *            one of the registers of this store
+   * @param s
+   *            the shopper to process
+   * @throws simulator.bigbrother.BigBrotherIsWatchingYouException
+   *             if the register is turned off or busy, or if the register or
+   *             the shopper was already given in this tick
+   * @see AbstractRegister#processShopper(Shopper)
+   */
+  protected final void processShopper(final AbstractRegister register, final Shopper s) {
+    if (registerBatch == null) {
+      register.processShopper(s);
+    } else {
+      registerBatch.add(register, s);
+    }
+  }
+
+  /**
+   * Ticks this {@link AbstractGroceryStore} and then processes the
+   * {@link Shopper}s its registers were given in parallel. This method is
+   * called by {@link BigBrother}.
+   */
+  public final void runTick() {
+    if (registerBatch == null) {
+      tick();
+      return;
+    }
+    try {
+      tick();
+    } catch (RuntimeException | Error e) {
+      registerBatch.clear();
+      throw e;
+    }
+    registerBatch.process();
+  }
+
+  /**
+   * Writes the state of this {@link AbstractGroceryStore} to the specified
+   * {@link CheckpointWriter}. The contents of the lines and the state of the
+   * registers are written by {@link BigBrother}; a store that keeps state of
+   * its own should implement {@link Checkpointable}. This is called by
+   * {@link BigBrother}.
+   *
+   * @param out
+   *            the writer to write to
+   */
+  public final void saveState(final CheckpointWriter out) {
+    out.putBoolean(random != null);
+    if (random != null) {
+      out.putLong(random.getState());
+    }
+    if (this instanceof Checkpointable) {
+      ((Checkpointable) this).writeCheckpoint(out);
+    }
+  }
+
+  /**
+   * Restores the state of this {@link AbstractGroceryStore} from the
+   * specified {@link CheckpointReader}. This is called by
+   * {@link BigBrother}.
+   *
+   * @param in
+   *            the reader to read from
+   */
+  public final void restoreState(final CheckpointReader in) {
+    if (in.getBoolean()) {
+      getRandom().setState(in.getLong());
+    }
+    // The lines were just filled by BigBrother
+    if (lineIndex != null) {
+      lineIndex.refresh();
+    }
+    if (this instanceof Checkpointable) {
+      ((Checkpointable) this).readCheckpoint(in);
+    }
+  }
+
+  /**
+   * Returns the {@link SimulationContext} this {@link AbstractGroceryStore}
+   * belongs to.
+   *
+   * @return the {@link SimulationContext} this {@link AbstractGroceryStore}
+   *         belongs to
+   */
+  protected final SimulationContext getContext() {
+    return context;
   }
 
   /**
    * Advances this {@link AbstractGroceryStore} by one time step. This method
-   * is called by {@link BigBrother}.
+   * is called by {@link #runTick()}.
    */
   public abstract void tick();
 
+  /**
+   * <p>
+   * Returns the first time step after {@code time} at which this
+   * {@link AbstractGroceryStore} must be ticked even if no event occurs.
+   * {@link BigBrother} always ticks every store when a {@link Shopper}
+   * arrives, a {@link Transaction} completes or a {@link Shopper} becomes
+   * irate, so {@link simulator.bigbrother.EngineMode#DISCRETE_EVENT} may
+   * skip the time steps in between.
+   * </p>
+   * <p>
+   * By default, a store with no {@link Shopper} in its lines, or whose
+   * registers are all busy or turned off, only needs to be ticked at the
+   * next event and {@link Integer#MAX_VALUE} is returned. Otherwise a free
+   * register could serve a waiting {@link Shopper}, and the store is ticked at
+   * the next time step. A store whose {@link #tick()} also depends on the
+   * passage of time, for example on how long its {@link Shopper}s have been
+   * waiting, must override this method.
+   * </p>
+   *
+   * @param time
+   *            the current time
+   * @return the first time step after {@code time} at which this store must
+   *         be ticked
+   */
+  public int nextWakeUpTime(final int time) {
+    for (CheckoutLineInterface line : getLines()) {
+      if (!line.isEmpty()) {
+        return context.getBigBrother().hasFreeRegister(this) ? time + 1
+            : Integer.MAX_VALUE;
+      }
+    }
+    return Integer.MAX_VALUE;
+  }
+
   /**
    * Returns a {@link List} of {@link CheckoutLineInterface}s that a
    * {@link Shopper} may choose from when shopping at this
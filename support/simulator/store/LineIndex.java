@@ -0,0 +1,335 @@
+package simulator.store;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import simulator.checkout.CheckoutLineInterface;
+import simulator.shopper.Shopper;
+
+/**
+ * <p>
+ * A {@link LineIndex} keeps the lines of an {@link AbstractGroceryStore} in
+ * indexed min-heaps ordered by length, one heap per eligibility class. Lines
+ * with the same {@link CheckoutLineInterface#getEligibility()}, such as all
+ * express lines for 15 items, admit exactly the same {@link Shopper}s.
+ * Finding the shortest line a {@link Shopper} can enter therefore looks at the
+ * top of each heap instead of every line: if the top does not admit the
+ * {@link Shopper}, no line of its class does. Updating the length of a line
+ * after an enqueue or dequeue takes O(log n).
+ * </p>
+ * <p>
+ * Lines whose eligibility is unknown share one more heap, which is searched
+ * in order of length until a line admitting the {@link Shopper} is found.
+ * </p>
+ * <p>
+ * Ties are broken exactly like a scan of the store's lines: of all the
+ * shortest lines a {@link Shopper} can enter, the one that comes first in
+ * {@link AbstractGroceryStore#getLines()} is chosen.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class LineIndex {
+
+  private final List<CheckoutLineInterface> lines;
+  private final Map<CheckoutLineInterface, Integer> indices;
+  private final int[] sizes;
+  private final int[] group;
+  private final int[] position;
+  private final int[][] heaps;
+  // The heap of the lines whose eligibility is unknown, or -1
+  private final int mixed;
+  private final int[] frontier;
+
+  /**
+   * Creates a {@link LineIndex} of the specified lines. Lines with equal
+   * {@link CheckoutLineInterface#getEligibility()} form an eligibility
+   * class.
+   *
+   * @param lines
+   *            the lines of a store, in order
+   */
+  public LineIndex(final List<CheckoutLineInterface> lines) {
+    if (lines == null) {
+      throw new NullPointerException();
+    }
+    int n = lines.size();
+    this.lines = new ArrayList<CheckoutLineInterface>(lines);
+    this.indices = new IdentityHashMap<CheckoutLineInterface, Integer>(n);
+    this.sizes = new int[n];
+    this.group = new int[n];
+    this.position = new int[n];
+    this.frontier = new int[n];
+
+    // The lines of unknown eligibility are kept under the null key
+    Map<Object, List<Integer>> classes = new LinkedHashMap<Object, List<Integer>>();
+    for (int i = 0; i < n; i++) {
+      CheckoutLineInterface line = this.lines.get(i);
+      if (line == null) {
+        throw new NullPointerException();
+      }
+      indices.put(line, i);
+      Object eligibility = line.getEligibility();
+      List<Integer> members = classes.get(eligibility);
+      if (members == null) {
+        members = new ArrayList<Integer>();
+        classes.put(eligibility, members);
+      }
+      members.add(i);
+    }
+
+    heaps = new int[classes.size()][];
+    int unknown = -1;
+    int g = 0;
+    for (Map.Entry<Object, List<Integer>> entry : classes.entrySet()) {
+      if (entry.getKey() == null) {
+        unknown = g;
+      }
+      List<Integer> members = entry.getValue();
+      heaps[g] = new int[members.size()];
+      for (int p = 0; p < members.size(); p++) {
+        int i = members.get(p);
+        heaps[g][p] = i;
+        group[i] = g;
+        position[i] = p;
+      }
+      g++;
+    }
+    mixed = unknown;
+    refresh();
+  }
+
+  /**
+   * Returns the shortest line the specified {@link Shopper} can enter, or
+   * {@code null} if they cannot enter any line.
+   *
+   * @param shopper
+   *            the shopper looking for a line
+   * @return the shortest line {@code shopper} can enter
+   */
+  public CheckoutLineInterface findShortest(final Shopper shopper) {
+    int best = -1;
+    for (int g = 0; g < heaps.length; g++) {
+      int[] heap = heaps[g];
+      int candidate;
+      if (lines.get(heap[0]).canEnterLine(shopper)) {
+        candidate = heap[0];
+      } else if (g == mixed) {
+        candidate = search(heap, shopper);
+      } else {
+        // No line of this class admits the shopper
+        continue;
+      }
+      if (candidate >= 0 && (best < 0 || less(candidate, best))) {
+        best = candidate;
+      }
+    }
+    return best < 0 ? null : lines.get(best);
+  }
+
+  /**
+   * Updates the length of the specified line. This must be called after a
+   * {@link Shopper} entered or left the line.
+   *
+   * @param line
+   *            the line whose length changed
+   * @throws IllegalArgumentException
+   *             if {@code line} is not in this {@link LineIndex}
+   */
+  public void update(final CheckoutLineInterface line) {
+    Integer i = indices.get(line);
+    if (i == null) {
+      throw new IllegalArgumentException("The line is not part of this index.");
+    }
+    int size = line.size();
+    int old = sizes[i];
+    sizes[i] = size;
+    if (size < old) {
+      siftUp(heaps[group[i]], position[i]);
+    } else if (size > old) {
+      siftDown(heaps[group[i]], position[i]);
+    }
+  }
+
+  /**
+   * Reads the length of every line again.
+   */
+  public void refresh() {
+    for (int i = 0; i < sizes.length; i++) {
+      sizes[i] = lines.get(i).size();
+    }
+    for (int[] heap : heaps) {
+      for (int p = heap.length / 2 - 1; p >= 0; p--) {
+        siftDown(heap, p);
+      }
+    }
+  }
+
+  /**
+   * Returns the shortest line in the heap of lines of unknown eligibility
+   * that the shopper can enter, searching the heap in order of length below
+   * its top, which does not admit the shopper.
+   *
+   * @param heap
+   *            the heap to search
+   * @param shopper
+   *            the shopper looking for a line
+   * @return the index of the line, or -1 if there is none
+   */
+  private int search(final int[] heap, final Shopper shopper) {
+    // Best-first search of the heap using a second heap of positions
+    int count = 0;
+    count = push(heap, count, 1);
+    count = push(heap, count, 2);
+    while (count > 0) {
+      int p = frontier[0];
+      count = pop(heap, count);
+      if (lines.get(heap[p]).canEnterLine(shopper)) {
+        return heap[p];
+      }
+      count = push(heap, count, 2 * p + 1);
+      count = push(heap, count, 2 * p + 2);
+    }
+    return -1;
+  }
+
+  /**
+   * Adds a heap position to the search frontier, if it exists.
+   *
+   * @param heap
+   *            the heap being searched
+   * @param count
+   *            the size of the frontier
+   * @param p
+   *            the heap position to add
+   * @return the new size of the frontier
+   */
+  private int push(final int[] heap, final int count, final int p) {
+    if (p >= heap.length) {
+      return count;
+    }
+    int c = count;
+    while (c > 0) {
+      int parent = (c - 1) >>> 1;
+      if (!less(heap[p], heap[frontier[parent]])) {
+        break;
+      }
+      frontier[c] = frontier[parent];
+      c = parent;
+    }
+    frontier[c] = p;
+    return count + 1;
+  }
+
+  /**
+   * Removes the first heap position from the search frontier.
+   *
+   * @param heap
+   *            the heap being searched
+   * @param count
+   *            the size of the frontier
+   * @return the new size of the frontier
+   */
+  private int pop(final int[] heap, final int count) {
+    int last = frontier[count - 1];
+    int size = count - 1;
+    int c = 0;
+    while (2 * c + 1 < size) {
+      int child = 2 * c + 1;
+      if (child + 1 < size && less(heap[frontier[child + 1]], heap[frontier[child]])) {
+        child++;
+      }
+      if (!less(heap[frontier[child]], heap[last])) {
+        break;
+      }
+      frontier[c] = frontier[child];
+      c = child;
+    }
+    frontier[c] = last;
+    return size;
+  }
+
+  /**
+   * Returns {@code true} if line {@code a} is shorter than line {@code b}, or
+   * as long and comes first.
+   *
+   * @param a
+   *            the index of a line
+   * @param b
+   *            the index of another line
+   * @return {@code true} if line {@code a} should be chosen over line
+   *         {@code b}
+   */
+  private boolean less(final int a, final int b) {
+    return sizes[a] != sizes[b] ? sizes[a] < sizes[b] : a < b;
+  }
+
+  /**
+   * Moves the line at the specified heap position up until the heap is
+   * ordered.
+   *
+   * @param heap
+   *            the heap
+   * @param p
+   *            the position of the line
+   */
+  private void siftUp(final int[] heap, final int p) {
+    int i = heap[p];
+    int c = p;
+    while (c > 0) {
+      int parent = (c - 1) >>> 1;
+      if (!less(i, heap[parent])) {
+        break;
+      }
+      place(heap, c, heap[parent]);
+      c = parent;
+    }
+    place(heap, c, i);
+  }
+
+  /**
+   * Moves the line at the specified heap position down until the heap is
+   * ordered.
+   *
+   * @param heap
+   *            the heap
+   * @param p
+   *            the position of the line
+   */
+  private void siftDown(final int[] heap, final int p) {
+    int i = heap[p];
+    int c = p;
+    while (2 * c + 1 < heap.length) {
+      int child = 2 * c + 1;
+      if (child + 1 < heap.length && less(heap[child + 1], heap[child])) {
+        child++;
+      }
+      if (!less(heap[child], i)) {
+        break;
+      }
+      place(heap, c, heap[child]);
+      c = child;
+    }
+    place(heap, c, i);
+  }
+
+  /**
+   * Puts a line at a heap position.
+   *
+   * @param heap
+   *            the heap
+   * @param p
+   *            the position
+   * @param i
+   *            the index of the line
+   */
+  private void place(final int[] heap, final int p, final int i) {
+    heap[p] = i;
+    position[i] = p;
+  }
+
+}
@@ -0,0 +1,42 @@
+package simulator.sweep;
+
+import simulator.checkout.CheckoutLineInterface;
+import simulator.checkout.ExpressLine;
+import simulator.store.AbstractGroceryStore;
+
+/**
+ * A {@link StoreFactory} creates the {@link AbstractGroceryStore} simulated
+ * in a cell of a {@link SweepGrid}. It is called with the cell's
+ * {@link simulator.bigbrother.SimulationContext} as the current context, so
+ * the store, its registers and its lines register with that simulation.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public interface StoreFactory {
+
+  /**
+   * Creates an {@link AbstractGroceryStore} configured with the specified
+   * parameters.
+   *
+   * @param parameters
+   *            the parameters of the cell being simulated
+   * @return the store to simulate
+   */
+  AbstractGroceryStore createStore(SweepParameters parameters);
+
+  /**
+   * Creates an express line admitting the shoppers allowed by the express
+   * threshold of the specified parameters. Stores with express lines should
+   * create them with this method so that sweeping the threshold has an
+   * effect. By default, this returns an {@link ExpressLine}.
+   *
+   * @param parameters
+   *            the parameters of the cell being simulated
+   * @return an express line for the cell
+   */
+  default CheckoutLineInterface createExpressLine(final SweepParameters parameters) {
+    return new ExpressLine(parameters.getExpressThreshold());
+  }
+
+}
@@ -0,0 +1,81 @@
+package simulator.sweep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link SweepGrid} is the cartesian product of a set of values for each
+ * of the parameters in {@link SweepParameters}. Each combination is a cell
+ * that is simulated on its own.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class SweepGrid {
+
+  private final List<SweepParameters> cells;
+
+  /**
+   * Creates a {@link SweepGrid} from the values of each parameter. Cells are
+   * ordered with the shopper rate varying slowest and the number of
+   * registers varying fastest.
+   *
+   * @param shopperRates
+   *            the shopper rates to simulate
+   * @param numbersOfLines
+   *            the numbers of lines to simulate
+   * @param expressThresholds
+   *            the express thresholds to simulate
+   * @param numbersOfRegisters
+   *            the numbers of registers to simulate
+   * @throws NullPointerException
+   *             if any of the arrays is {@code null}
+   * @throws IllegalArgumentException
+   *             if any of the arrays is empty
+   */
+  public SweepGrid(final int[] shopperRates, final int[] numbersOfLines,
+      final int[] expressThresholds, final int[] numbersOfRegisters) {
+    if (shopperRates == null || numbersOfLines == null
+        || expressThresholds == null || numbersOfRegisters == null) {
+      throw new NullPointerException();
+    }
+    if (shopperRates.length == 0 || numbersOfLines.length == 0
+        || expressThresholds.length == 0 || numbersOfRegisters.length == 0) {
+      throw new IllegalArgumentException(
+          "Each parameter needs at least one value.");
+    }
+    List<SweepParameters> product = new ArrayList<SweepParameters>();
+    for (int rate : shopperRates) {
+      for (int lines : numbersOfLines) {
+        for (int threshold : expressThresholds) {
+          for (int registers : numbersOfRegisters) {
+            product.add(new SweepParameters(rate, lines, threshold, registers));
+          }
+        }
+      }
+    }
+    this.cells = Collections.unmodifiableList(product);
+  }
+
+  /**
+   * Returns an immutable {@link List} of every cell in this
+   * {@link SweepGrid}.
+   *
+   * @return an immutable {@link List} of every cell in this
+   *         {@link SweepGrid}
+   */
+  public List<SweepParameters> getCells() {
+    return cells;
+  }
+
+  /**
+   * Returns the number of cells in this {@link SweepGrid}.
+   *
+   * @return the number of cells in this {@link SweepGrid}
+   */
+  public int size() {
+    return cells.size();
+  }
+
+}
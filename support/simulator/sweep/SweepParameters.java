@@ -0,0 +1,95 @@
+package simulator.sweep;
+
+/**
+ * A {@link SweepParameters} describes a single cell of a {@link SweepGrid}.
+ * That is, the configuration of one simulation.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class SweepParameters {
+
+  private final int shopperRate;
+  private final int numberOfLines;
+  private final int expressThreshold;
+  private final int numberOfRegisters;
+
+  /**
+   * Creates a {@link SweepParameters} with the specified values.
+   *
+   * @param shopperRate
+   *            the rate at which the {@link simulator.world.SimpleWorld}
+   *            generates shoppers
+   * @param numberOfLines
+   *            the number of lines in the store
+   * @param expressThreshold
+   *            the largest number of items allowed in an express line
+   * @param numberOfRegisters
+   *            the number of registers in the store
+   * @throws IllegalArgumentException
+   *             if {@code shopperRate}, {@code numberOfLines} or
+   *             {@code numberOfRegisters} is less than 1, or
+   *             {@code expressThreshold} is negative
+   */
+  public SweepParameters(final int shopperRate, final int numberOfLines,
+      final int expressThreshold, final int numberOfRegisters) {
+    if (shopperRate < 1) {
+      throw new IllegalArgumentException("Shopper rate must be greater than 0.");
+    }
+    if (numberOfLines < 1 || numberOfRegisters < 1) {
+      throw new IllegalArgumentException(
+          "A store needs at least one line and one register.");
+    }
+    if (expressThreshold < 0) {
+      throw new IllegalArgumentException(
+          "Express threshold must be non-negative.");
+    }
+    this.shopperRate = shopperRate;
+    this.numberOfLines = numberOfLines;
+    this.expressThreshold = expressThreshold;
+    this.numberOfRegisters = numberOfRegisters;
+  }
+
+  /**
+   * Returns the rate at which shoppers are generated.
+   *
+   * @return the rate at which shoppers are generated
+   */
+  public int getShopperRate() {
+    return shopperRate;
+  }
+
+  /**
+   * Returns the number of lines in the store.
+   *
+   * @return the number of lines in the store
+   */
+  public int getNumberOfLines() {
+    return numberOfLines;
+  }
+
+  /**
+   * Returns the largest number of items allowed in an express line.
+   *
+   * @return the largest number of items allowed in an express line
+   */
+  public int getExpressThreshold() {
+    return expressThreshold;
+  }
+
+  /**
+   * Returns the number of registers in the store.
+   *
+   * @return the number of registers in the store
+   */
+  public int getNumberOfRegisters() {
+    return numberOfRegisters;
+  }
+
+  @Override
+  public String toString() {
+    return "rate=" + shopperRate + ", lines=" + numberOfLines + ", express="
+        + expressThreshold + ", registers=" + numberOfRegisters;
+  }
+
+}
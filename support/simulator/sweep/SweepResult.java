@@ -0,0 +1,119 @@
+package simulator.sweep;
+
+import simulator.store.AbstractGroceryStore;
+
+/**
+ * A {@link SweepResult} holds the {@link AbstractGroceryStore} metrics
+ * collected at the end of the simulation of one cell of a
+ * {@link SweepGrid}.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class SweepResult {
+
+  private final SweepParameters parameters;
+  private final int replication;
+  private final int numberOfShoppers;
+  private final int numberOfIrateShoppers;
+  private final double averageWaitingTime;
+  private final double totalSales;
+  private final double totalCost;
+  private final double totalProfit;
+
+  /**
+   * Creates a {@link SweepResult} by reading the metrics of the specified
+   * {@link AbstractGroceryStore}.
+   *
+   * @param parameters
+   *            the parameters of the simulated cell
+   * @param replication
+   *            the replication number
+   * @param store
+   *            the simulated store
+   */
+  SweepResult(final SweepParameters parameters, final int replication,
+      final AbstractGroceryStore store) {
+    this.parameters = parameters;
+    this.replication = replication;
+    this.numberOfShoppers = store.getNumberOfShoppers();
+    this.numberOfIrateShoppers = store.getNumberOfIrateShoppers();
+    this.averageWaitingTime = store.getAverageWaitingTime();
+    this.totalSales = store.getTotalSales();
+    this.totalCost = store.getTotalCost();
+    this.totalProfit = store.getTotalProfit();
+  }
+
+  /**
+   * Returns the parameters of the simulated cell.
+   *
+   * @return the parameters of the simulated cell
+   */
+  public SweepParameters getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Returns the replication number of the simulation.
+   *
+   * @return the replication number of the simulation
+   */
+  public int getReplication() {
+    return replication;
+  }
+
+  /**
+   * Returns the total number of shoppers that visited the store.
+   *
+   * @return the total number of shoppers that visited the store
+   */
+  public int getNumberOfShoppers() {
+    return numberOfShoppers;
+  }
+
+  /**
+   * Returns the total number of shoppers that became irate.
+   *
+   * @return the total number of shoppers that became irate
+   */
+  public int getNumberOfIrateShoppers() {
+    return numberOfIrateShoppers;
+  }
+
+  /**
+   * Returns the average amount of time a shopper waited.
+   *
+   * @return the average amount of time a shopper waited
+   */
+  public double getAverageWaitingTime() {
+    return averageWaitingTime;
+  }
+
+  /**
+   * Returns the total sales of the store.
+   *
+   * @return the total sales of the store
+   */
+  public double getTotalSales() {
+    return totalSales;
+  }
+
+  /**
+   * Returns the total cost of the store.
+   *
+   * @return the total cost of the store
+   */
+  public double getTotalCost() {
+    return totalCost;
+  }
+
+  /**
+   * Returns the total profit of the store.
+   *
+   * @return the total profit of the store
+   */
+  public double getTotalProfit() {
+    return totalProfit;
+  }
+
+}
@@ -0,0 +1,234 @@
+package simulator.sweep;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+import simulator.bigbrother.BigBrother;
+import simulator.bigbrother.EngineMode;
+import simulator.bigbrother.SimulationContext;
+import simulator.random.RandomStreams;
+import simulator.store.AbstractGroceryStore;
+import simulator.world.SimpleWorld;
+import simulator.world.World;
+
+/**
+ * <p>
+ * A {@link SweepRunner} simulates every cell of a {@link SweepGrid} and
+ * gathers the results into a {@link SweepTable}. Each cell runs as an
+ * isolated simulation in its own {@link SimulationContext} consisting of a
+ * {@link SimpleWorld}, or another {@link World} generating shoppers at the
+ * cell's rate, and the {@link AbstractGroceryStore} created by a
+ * {@link StoreFactory}. Cells are simulated in parallel on a
+ * {@link ForkJoinPool}.
+ * </p>
+ * <p>
+ * Each cell may be simulated several times. Replication {@code r} of every
+ * cell draws from {@link RandomStreams#forReplication(int)}, so all cells
+ * see the same shoppers in the same replication and results do not depend
+ * on which thread ran a cell.
+ * </p>
+ *
+ * <pre>
+ * SweepGrid grid = new SweepGrid(new int[] {15, 1000}, new int[] {2, 4},
+ *     new int[] {15}, new int[] {2, 4, 8});
+ * SweepTable table = new SweepRunner(factory).run(grid);
+ * System.out.println(table);
+ * </pre>
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class SweepRunner {
+
+  private final StoreFactory factory;
+  private final EngineMode mode;
+  private final ForkJoinPool pool;
+  private final RandomStreams randomStreams;
+  private final int replications;
+  private final IntFunction<? extends World> worlds;
+
+  /**
+   * Creates a {@link SweepRunner} that uses every available core and the
+   * {@link EngineMode#TICK} engine.
+   *
+   * @param factory
+   *            creates the store simulated in each cell
+   */
+  public SweepRunner(final StoreFactory factory) {
+    this(factory, EngineMode.TICK, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a {@link SweepRunner} that simulates each cell with the
+   * specified {@link EngineMode} on the specified {@link ForkJoinPool}.
+   *
+   * @param factory
+   *            creates the store simulated in each cell
+   * @param mode
+   *            the {@link EngineMode} used by each simulation
+   * @param pool
+   *            the pool the simulations run on
+   */
+  public SweepRunner(final StoreFactory factory, final EngineMode mode,
+      final ForkJoinPool pool) {
+    this(factory, mode, pool, new RandomStreams(RandomStreams.DEFAULT_SEED), 1);
+  }
+
+  /**
+   * Creates a {@link SweepRunner} that simulates each cell the specified
+   * number of times with the specified {@link EngineMode} on the specified
+   * {@link ForkJoinPool}.
+   *
+   * @param factory
+   *            creates the store simulated in each cell
+   * @param mode
+   *            the {@link EngineMode} used by each simulation
+   * @param pool
+   *            the pool the simulations run on
+   * @param randomStreams
+   *            the streams the replications are derived from
+   * @param replications
+   *            the number of times each cell is simulated
+   * @throws IllegalArgumentException
+   *             if {@code replications} is less than 1
+   */
+  public SweepRunner(final StoreFactory factory, final EngineMode mode,
+      final ForkJoinPool pool, final RandomStreams randomStreams,
+      final int replications) {
+    this(factory, mode, pool, randomStreams, replications, SimpleWorld::new);
+  }
+
+  /**
+   * Creates a {@link SweepRunner} that simulates each cell the specified
+   * number of times with the specified {@link EngineMode} on the specified
+   * {@link ForkJoinPool}, in the {@link World}s created by {@code worlds}.
+   *
+   * @param factory
+   *            creates the store simulated in each cell
+   * @param mode
+   *            the {@link EngineMode} used by each simulation
+   * @param pool
+   *            the pool the simulations run on
+   * @param randomStreams
+   *            the streams the replications are derived from
+   * @param replications
+   *            the number of times each cell is simulated
+   * @param worlds
+   *            creates the world of each cell from its shopper rate
+   * @throws IllegalArgumentException
+   *             if {@code replications} is less than 1
+   */
+  public SweepRunner(final StoreFactory factory, final EngineMode mode,
+      final ForkJoinPool pool, final RandomStreams randomStreams,
+      final int replications, final IntFunction<? extends World> worlds) {
+    if (factory == null || mode == null || pool == null
+        || randomStreams == null || worlds == null) {
+      throw new NullPointerException();
+    }
+    if (replications < 1) {
+      throw new IllegalArgumentException(
+          "Each cell must be simulated at least once.");
+    }
+    this.factory = factory;
+    this.mode = mode;
+    this.pool = pool;
+    this.randomStreams = randomStreams;
+    this.replications = replications;
+    this.worlds = worlds;
+  }
+
+  /**
+   * Simulates every cell of the specified {@link SweepGrid} and returns the
+   * results in grid order. The replications of a cell are adjacent.
+   *
+   * @param grid
+   *            the cells to simulate
+   * @return a {@link SweepTable} with one result per cell and replication
+   */
+  public SweepTable run(final SweepGrid grid) {
+    if (grid == null) {
+      throw new NullPointerException();
+    }
+    List<SweepParameters> cells = grid.getCells();
+    SweepResult[] results = new SweepResult[cells.size() * replications];
+    pool.invoke(new CellRange(cells, results, 0, results.length));
+    return new SweepTable(new ArrayList<SweepResult>(Arrays.asList(results)));
+  }
+
+  /**
+   * Simulates a single replication of a cell in a fresh
+   * {@link SimulationContext}.
+   *
+   * @param parameters
+   *            the parameters of the cell
+   * @param replication
+   *            the replication number
+   * @return the result of the simulation
+   */
+  SweepResult simulate(final SweepParameters parameters, final int replication) {
+    try (SimulationContext context = new SimulationContext(
+        randomStreams.forReplication(replication))) {
+      return context.call(() -> {
+        worlds.apply(parameters.getShopperRate());
+        AbstractGroceryStore store = factory.createStore(parameters);
+        BigBrother bigBrother = context.getBigBrother();
+        bigBrother.setEngineMode(mode);
+        bigBrother.runFor(bigBrother.getHorizon());
+        return new SweepResult(parameters, replication, store);
+      });
+    }
+  }
+
+  /**
+   * Splits a range of simulations in half until a single simulation remains,
+   * which is then run. Simulation {@code i} is replication
+   * {@code i % replications} of cell {@code i / replications}.
+   */
+  private final class CellRange extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<SweepParameters> cells;
+    private final SweepResult[] results;
+    private final int from;
+    private final int to;
+
+    /**
+     * Creates a task running the simulations in [from, to).
+     *
+     * @param cells
+     *            every cell of the grid
+     * @param results
+     *            where results are stored, indexed by simulation
+     * @param from
+     *            the first simulation, inclusive
+     * @param to
+     *            the last simulation, exclusive
+     */
+    CellRange(final List<SweepParameters> cells, final SweepResult[] results,
+        final int from, final int to) {
+      this.cells = cells;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        results[from] = simulate(cells.get(from / replications),
+            from % replications);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new CellRange(cells, results, from, middle),
+          new CellRange(cells, results, middle, to));
+    }
+
+  }
+
+}
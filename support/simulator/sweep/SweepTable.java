@@ -0,0 +1,85 @@
+package simulator.sweep;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link SweepTable} gathers the {@link SweepResult} of every cell of a
+ * {@link SweepGrid}. Results are kept in the same order as the cells of the
+ * grid, with the replications of each cell next to each other, regardless of
+ * the order in which the simulations finished.
+ *
+ * @author jcollard, jddevaug
+ *
+ */
+public final class SweepTable {
+
+  private static final String ROW_FORMAT =
+      "%6s %6s %8s %10s %4s %10s %8s %12s %12s %12s %12s%n";
+
+  private final List<SweepResult> results;
+
+  /**
+   * Creates a {@link SweepTable} containing the specified results.
+   *
+   * @param results
+   *            the results in grid order
+   */
+  SweepTable(final List<SweepResult> results) {
+    this.results = Collections.unmodifiableList(results);
+  }
+
+  /**
+   * Returns an immutable {@link List} of every {@link SweepResult} in grid
+   * order.
+   *
+   * @return an immutable {@link List} of every {@link SweepResult} in grid
+   *         order
+   */
+  public List<SweepResult> getResults() {
+    return results;
+  }
+
+  /**
+   * Returns the {@link SweepResult} with the highest total profit, or
+   * {@code null} if this table is empty.
+   *
+   * @return the {@link SweepResult} with the highest total profit
+   */
+  public SweepResult getMostProfitable() {
+    SweepResult best = null;
+    for (SweepResult r : results) {
+      if (best == null || r.getTotalProfit() > best.getTotalProfit()) {
+        best = r;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns this table formatted with one row per cell.
+   *
+   * @return this table formatted with one row per cell
+   */
+  @Override
+  public String toString() {
+    StringBuilder table = new StringBuilder();
+    table.append(String.format(ROW_FORMAT, "rate", "lines", "express",
+        "registers", "rep", "shoppers", "irate", "avg wait", "sales", "cost",
+        "profit"));
+    for (SweepResult r : results) {
+      SweepParameters p = r.getParameters();
+      table.append(String.format(ROW_FORMAT, p.getShopperRate(),
+          p.getNumberOfLines(), p.getExpressThreshold(),
+          p.getNumberOfRegisters(), r.getReplication(),
+          r.getNumberOfShoppers(),
+          r.getNumberOfIrateShoppers(),
+          String.format("%.2f", r.getAverageWaitingTime()),
+          String.format("%.2f", r.getTotalSales()),
+          String.format("%.2f", r.getTotalCost()),
+          String.format("%.2f", r.getTotalProfit())));
+    }
+    return table.toString();
+  }
+
+}
@@ -0,0 +1,6 @@
+/**
+ * Contains classes for running a grid of
+ * isolated simulations in parallel.
+ **/
+
+package simulator.sweep;
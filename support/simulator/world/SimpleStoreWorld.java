@@ -4,7 +4,6 @@ import java.util.LinkedList;
 import java.util.List;
 
 import config.Groceries;
-import simulator.bigbrother.BigBrother;
 import simulator.grocery.GroceryInterface;
 import simulator.shopper.Shopper;
 /**
@@ -17,7 +16,7 @@ public class SimpleStoreWorld extends World {
   @Override
   public final void tick() {
     // At time step 1000, create a shopper buying milk, beef, and cold pockets
-    if (BigBrother.getBigBrother().getTime() == 1000) {
+    if (getContext().getBigBrother().getTime() == 1000) {
       List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
       groceries.add(Groceries.getMilk());
       groceries.add(Groceries.getBeef());
@@ -26,7 +25,7 @@ public class SimpleStoreWorld extends World {
     }
 
     // At time step 5000, create a shopper buying 30 beefs
-    if (BigBrother.getBigBrother().getTime() == 5000) {
+    if (getContext().getBigBrother().getTime() == 5000) {
       List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
       for (int i = 0; i < 30; i++) {
         groceries.add(Groceries.getBeef());
@@ -35,4 +34,18 @@ public class SimpleStoreWorld extends World {
     }
   }
 
+  /**
+   * Shoppers are only created at time steps 1000 and 5000.
+   */
+  @Override
+  public final int nextArrivalTime(final int time) {
+    if (time < 1000) {
+      return 1000;
+    }
+    if (time < 5000) {
+      return 5000;
+    }
+    return Integer.MAX_VALUE;
+  }
+
 }
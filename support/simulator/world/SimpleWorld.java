@@ -1,12 +1,13 @@
 package simulator.world;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
 
 import config.Groceries;
-import simulator.bigbrother.BigBrother;
+import simulator.bigbrother.CheckpointReader;
+import simulator.bigbrother.CheckpointWriter;
+import simulator.bigbrother.Checkpointable;
 import simulator.grocery.GroceryInterface;
+import simulator.random.RandomStream;
 import simulator.shopper.Shopper;
 
 /**
@@ -15,10 +16,16 @@ import simulator.shopper.Shopper;
  * @author jcollard, jddevaug
  *
  */
-public class SimpleWorld extends World {
+public class SimpleWorld extends World implements Checkpointable {
 
-  private final Random random = new Random(0);
+  // The number of different groceries and the SKU id of one not drawn yet
+  private static final int GROCERIES = 6;
+  private static final int NOT_INTERNED = Integer.MIN_VALUE;
+
+  private final RandomStream random = getContext().getRandomStreams().forWorld();
   private final int shopperRate;
+  private final int[] skus;
+  private int[] basket = new int[16];
 
   /**
    * Creates the {@link SimpleWorld} with the specified rate for {@link Shopper} generation.
@@ -29,6 +36,8 @@ public class SimpleWorld extends World {
       throw new IllegalArgumentException("Shopper rate must be greater than 0.");
     }
     this.shopperRate = shopperRate;
+    this.skus = new int[GROCERIES];
+    Arrays.fill(skus, NOT_INTERNED);
   }
 
   /**
@@ -37,55 +46,102 @@ public class SimpleWorld extends World {
    */
   @Override
   public void tick() {
-    if (BigBrother.getBigBrother().getTime() % shopperRate == 0) {
-      List<GroceryInterface> groceries = getgroceries();
-      new Shopper(groceries);
+    if (getContext().getBigBrother().getTime() % shopperRate == 0) {
+      new Shopper(getgroceries());
     }
 
   }
 
+  /**
+   * Shoppers are only created at multiples of the shopper rate.
+   */
+  @Override
+  public int nextArrivalTime(final int time) {
+    return (time / shopperRate + 1) * shopperRate;
+  }
+
+  /**
+   * Writes the state of the random stream shoppers are created from.
+   */
+  @Override
+  public void writeCheckpoint(final CheckpointWriter out) {
+    out.putLong(random.getState());
+  }
+
+  /**
+   * Restores the state of the random stream shoppers are created from.
+   */
+  @Override
+  public void readCheckpoint(final CheckpointReader in) {
+    random.setState(in.getLong());
+  }
+
   /**
    * Creates a grocery list with at least one item.
    * @return
-   *          a {@link List} of {@link GroceryInterface} items
+   *          the SKU ids of the grocery list
    */
-  private List<GroceryInterface> getgroceries() {
-    List<GroceryInterface> groceries = new LinkedList<GroceryInterface>();
+  private int[] getgroceries() {
+    int size = 0;
     do {
-      groceries.add(nextGrocery());
-    } while (moreGroceries(groceries));
-    return groceries;
+      if (size == basket.length) {
+        basket = Arrays.copyOf(basket, size * 2);
+      }
+      basket[size++] = nextGrocery();
+    } while (moreGroceries(size));
+    return Arrays.copyOf(basket, size);
   }
   /**
    * Decides whether to produce another grocery.
    * As the size of the groceries grows, it becomes less and less
    * likely to produce another grocery
-   * @param groceries
-   *                  a {@link List} of groceries randomly generated
+   * @param size
+   *                  the number of groceries randomly generated so far
    * @return
    *        <code>true</code> if you are going to produce another grocery;
    *        <code>false</code> otherwise
    */
-  private boolean moreGroceries(final List<GroceryInterface> groceries) {
-    if (groceries.size() * random.nextDouble() * random.nextDouble() > 8) {
+  private boolean moreGroceries(final int size) {
+    if (size * random.nextDouble() * random.nextDouble() > 8) {
       return false;
     }
     return true;
   }
   /**
-   * Produces a random grocery.
+   * Produces a random grocery. Each grocery is interned the first time it is
+   * drawn.
+   * @return
+   *          the SKU id of a random grocery
+   */
+  private int nextGrocery() {
+    int i = random.nextInt(GROCERIES);
+    if (skus[i] == NOT_INTERNED) {
+      skus[i] = getContext().getGroceryCatalog().intern(grocery(i));
+    }
+    return skus[i];
+  }
+
+  /**
+   * Returns the grocery with the specified index.
+   * @param i
+   *          the index of the grocery
    * @return
-   *          a random grocery
+   *          the grocery with index {@code i}
    */
-  private GroceryInterface nextGrocery() {
-    switch (random.nextInt(6)) {
-      case 0: return Groceries.getApple();
-      case 1: return Groceries.getBeef();
-      case 2: return Groceries.getChips();
-      case 3: return Groceries.getColdPocket();
-      case 4: return Groceries.getEggs();
-      case 5: return Groceries.getMilk();
-      default: throw new IllegalStateException("Should not ever get here");
+  private static GroceryInterface grocery(final int i) {
+    switch (i) {
+    case 0:
+      return Groceries.getApple();
+    case 1:
+      return Groceries.getBeef();
+    case 2:
+      return Groceries.getChips();
+    case 3:
+      return Groceries.getColdPocket();
+    case 4:
+      return Groceries.getEggs();
+    default:
+      return Groceries.getMilk();
     }
   }
 
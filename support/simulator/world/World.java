@@ -1,6 +1,7 @@
 package simulator.world;
 
-import simulator.bigbrother.BigBrotherIsWatchingYouException;
+import simulator.bigbrother.BigBrother;
+import simulator.bigbrother.SimulationContext;
 
 /**
  * A {@link World} determines how {@link Shopper}s are generated in a
@@ -11,31 +12,36 @@ import simulator.bigbrother.BigBrotherIsWatchingYouException;
  */
 public abstract class World {
 
-  private static World instance;
+  private final SimulationContext context;
 
   /**
-   * Returns the {@link World} object if it exists. If no {@link World} has
-   * been constructed an {@link IllegalStateException} will be thrown
+   * Returns the {@link World} object of the current
+   * {@link SimulationContext} if it exists. If no {@link World} has been
+   * constructed an {@link IllegalStateException} will be thrown
    *
    * @return the {@link World}.
    */
   public static World getWorld() {
-    if (instance == null) {
-      throw new IllegalStateException("No world has been constructed.");
-    }
-    return instance;
+    return SimulationContext.current().getWorld();
   }
 
   /**
-   * Only a Single {@link World} object can exist. If more than one is
-   * constructed, {@link BigBrother} will not be happy.
+   * Only a Single {@link World} object can exist in each
+   * {@link SimulationContext}. If more than one is constructed,
+   * {@link BigBrother} will not be happy.
    */
   protected World() {
-    if (instance != null) {
-      throw new BigBrotherIsWatchingYouException(
-          "Multiple Worlds constructed.");
-    }
-    instance = this;
+    this.context = SimulationContext.current();
+    context.getBigBrother().registerWorld(this);
+  }
+
+  /**
+   * Returns the {@link SimulationContext} this {@link World} belongs to.
+   *
+   * @return the {@link SimulationContext} this {@link World} belongs to
+   */
+  protected final SimulationContext getContext() {
+    return context;
   }
 
   /**
@@ -44,4 +50,20 @@ public abstract class World {
    */
   public abstract void tick();
 
+  /**
+   * Returns the first time step after {@code time} at which this
+   * {@link World} may create a {@link Shopper}. {@link BigBrother} uses this
+   * method to skip idle time steps when running in
+   * {@link simulator.bigbrother.EngineMode#DISCRETE_EVENT}. By default, a
+   * {@link World} may create shoppers at every time step.
+   *
+   * @param time
+   *            the current time
+   * @return the first time step after {@code time} at which a
+   *         {@link Shopper} may be created
+   */
+  public int nextArrivalTime(final int time) {
+    return time + 1;
+  }
+
 }
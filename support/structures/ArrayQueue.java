@@ -0,0 +1,162 @@
+package structures;
+
+/**
+ * An {@link ArrayQueue} is a {@link QueueInterface} backed by a circular
+ * array. The array doubles in size when it is full and, if shrinking is
+ * enabled, halves when it is a quarter full, but never below its initial
+ * capacity. Once the array has grown to its working size, enqueuing and
+ * dequeuing elements does not allocate any memory.
+ *
+ * @author jcollard, jddevaug
+ * @param <T>
+ *            The type of elements stored in this {@link ArrayQueue}
+ */
+public class ArrayQueue<T> implements QueueInterface<T> {
+
+  /**
+   * The capacity of an {@link ArrayQueue} created without one.
+   */
+  public static final int DEFAULT_CAPACITY = 16;
+
+  private final int initialCapacity;
+  private final boolean shrink;
+  private Object[] elements;
+  private int head;
+  private int size;
+
+  /**
+   * Creates an empty {@link ArrayQueue} with the default capacity that never
+   * shrinks.
+   */
+  public ArrayQueue() {
+    this(DEFAULT_CAPACITY, false);
+  }
+
+  /**
+   * Creates an empty {@link ArrayQueue}.
+   *
+   * @param initialCapacity
+   *            the number of elements the queue can hold before it grows
+   * @param shrink
+   *            {@code true} if the queue should shrink again when it empties
+   * @throws IllegalArgumentException
+   *             if {@code initialCapacity} is less than 1
+   */
+  public ArrayQueue(final int initialCapacity, final boolean shrink) {
+    if (initialCapacity < 1) {
+      throw new IllegalArgumentException("Capacity must be greater than 0.");
+    }
+    this.initialCapacity = initialCapacity;
+    this.shrink = shrink;
+    this.elements = new Object[initialCapacity];
+  }
+
+  @Override
+  public T dequeue() {
+    T first = peek();
+    elements[head] = null;
+    head = next(head);
+    size--;
+    if (shrink && size <= elements.length / 4
+        && elements.length / 2 >= initialCapacity) {
+      resize(elements.length / 2);
+    }
+    return first;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T peek() {
+    if (size == 0) {
+      throw new IllegalStateException("The queue is empty.");
+    }
+    return (T) elements[head];
+  }
+
+  @Override
+  public QueueInterface<T> enqueue(final T elem) {
+    if (elem == null) {
+      throw new NullPointerException();
+    }
+    if (size == elements.length) {
+      resize(elements.length * 2);
+    }
+    elements[index(size)] = elem;
+    size++;
+    return this;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of elements this {@link ArrayQueue} can hold before it
+   * grows.
+   *
+   * @return the capacity of this {@link ArrayQueue}
+   */
+  public int capacity() {
+    return elements.length;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    result.append("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        result.append(", ");
+      }
+      result.append(elements[index(i)]);
+    }
+    return result.append("]").toString();
+  }
+
+  /**
+   * Returns the array index of the element at the specified position, where
+   * position 0 is the front of the queue.
+   *
+   * @param position
+   *            the position in the queue
+   * @return the array index of the element at {@code position}
+   */
+  private int index(final int position) {
+    int i = head + position;
+    return i < elements.length ? i : i - elements.length;
+  }
+
+  /**
+   * Returns the array index after the specified one.
+   *
+   * @param i
+   *            an array index
+   * @return the array index after {@code i}
+   */
+  private int next(final int i) {
+    return i + 1 == elements.length ? 0 : i + 1;
+  }
+
+  /**
+   * Moves the elements into a new array of the specified capacity, with the
+   * front of the queue at index 0.
+   *
+   * @param capacity
+   *            the new capacity
+   */
+  private void resize(final int capacity) {
+    Object[] resized = new Object[capacity];
+    int first = Math.min(size, elements.length - head);
+    System.arraycopy(elements, head, resized, 0, first);
+    System.arraycopy(elements, 0, resized, first, size - first);
+    elements = resized;
+    head = 0;
+  }
+
+}
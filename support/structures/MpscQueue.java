@@ -0,0 +1,168 @@
+package structures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * An {@link MpscQueue} is a lock-free {@link QueueInterface} for many
+ * producers and a single consumer. Any number of threads may call
+ * {@link #enqueue(Object)} at the same time, while {@link #dequeue()} and
+ * {@link #peek()} must only ever be called by one thread at a time.
+ * </p>
+ * <p>
+ * Producers append by swapping the tail with a single atomic operation and
+ * then linking the previous tail to the new node. {@link #size()} is kept in
+ * an atomic counter, so it is cheap to read from any thread and exact
+ * whenever no producer is in the middle of an {@link #enqueue(Object)}.
+ * </p>
+ *
+ * @author jcollard, jddevaug
+ * @param <T>
+ *            The type of elements stored in this {@link MpscQueue}
+ */
+public class MpscQueue<T> implements QueueInterface<T> {
+
+  /**
+   * A node of the queue. The head node never holds an element.
+   *
+   * @param <T>
+   *            The type of element stored in this node
+   */
+  private static final class Node<T> {
+
+    private T element;
+    private volatile Node<T> next;
+
+    /**
+     * Creates a node holding the specified element.
+     *
+     * @param element
+     *            the element to hold
+     */
+    Node(final T element) {
+      this.element = element;
+    }
+
+  }
+
+  private volatile Node<T> head;
+  private final AtomicReference<Node<T>> tail;
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * Creates an empty {@link MpscQueue}.
+   */
+  public MpscQueue() {
+    head = new Node<T>(null);
+    tail = new AtomicReference<Node<T>>(head);
+  }
+
+  /**
+   * Removes the first element from this {@link MpscQueue} and returns it.
+   * Only the consumer thread may call this method.
+   *
+   * @return the first element that was removed from this {@link MpscQueue}
+   * @throws IllegalStateException
+   *             if this {@link MpscQueue} is empty.
+   */
+  @Override
+  public T dequeue() {
+    Node<T> first = first();
+    T element = first.element;
+    first.element = null;
+    head = first;
+    size.decrementAndGet();
+    return element;
+  }
+
+  /**
+   * Returns the first element in this {@link MpscQueue} but does not remove
+   * it. Only the consumer thread may call this method.
+   *
+   * @return the first element of this {@link MpscQueue}
+   * @throws IllegalStateException
+   *             if this {@link MpscQueue} is empty.
+   */
+  @Override
+  public T peek() {
+    return first().element;
+  }
+
+  /**
+   * Adds {@code elem} to the end of this {@link MpscQueue}. Any thread may
+   * call this method.
+   *
+   * @param elem
+   *            the element to be added
+   * @return this {@link MpscQueue}
+   * @throws NullPointerException
+   *             if {@code elem} is {@code null}
+   */
+  @Override
+  public QueueInterface<T> enqueue(final T elem) {
+    if (elem == null) {
+      throw new NullPointerException();
+    }
+    Node<T> node = new Node<T>(elem);
+    Node<T> previous = tail.getAndSet(node);
+    previous.next = node;
+    size.incrementAndGet();
+    return this;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns the number of elements in this {@link MpscQueue}. Elements whose
+   * {@link #enqueue(Object)} has not yet returned may not be counted.
+   *
+   * @return the number of elements in this {@link MpscQueue}
+   */
+  @Override
+  public int size() {
+    // A dequeue may be counted before the enqueue it overtook
+    return Math.max(0, size.get());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    result.append("[");
+    for (Node<T> n = head.next; n != null; n = n.next) {
+      T element = n.element;
+      if (element == null) {
+        continue;
+      }
+      if (result.length() > 1) {
+        result.append(", ");
+      }
+      result.append(element);
+    }
+    return result.append("]").toString();
+  }
+
+  /**
+   * Returns the node holding the first element, waiting for a producer that
+   * has already counted its element to finish linking it.
+   *
+   * @return the node holding the first element
+   * @throws IllegalStateException
+   *             if this {@link MpscQueue} is empty.
+   */
+  private Node<T> first() {
+    Node<T> first = head.next;
+    while (first == null) {
+      if (size.get() <= 0) {
+        throw new IllegalStateException("The queue is empty.");
+      }
+      Thread.yield();
+      first = head.next;
+    }
+    return first;
+  }
+
+}